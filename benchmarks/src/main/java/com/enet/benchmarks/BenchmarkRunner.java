@@ -0,0 +1,34 @@
+package com.enet.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH entry point that always attaches the GC profiler, which reports allocation per
+ * operation ({@code gc.alloc.rate.norm}), and passes this JVM's {@code java.library.path} on
+ * to the forked benchmark JVMs so they find {@code libenet_jni}.
+ *
+ * <pre>
+ * java -Djava.library.path=../native -jar target/benchmarks.jar [JMH options]
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+            Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Djava.library.path=" + System.getProperty("java.library.path"));
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.enet.benchmarks;
+
+import com.enet.ENetEvent;
+import com.enet.ENetEventDispatcher;
+import com.enet.ENetEventHandler;
+import com.enet.ENetEventType;
+import com.enet.ENetPacket;
+import com.enet.ENetPeer;
+import com.enet.spring.ENetEventHandlerRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of delivering an event to an {@link ENetEventHandler} method: the dispatcher used by
+ * {@code ENetConnection}, the Spring {@link ENetEventHandlerRegistry}, and a direct call as the
+ * baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+
+    public static class Handler {
+        Blackhole blackhole;
+
+        @ENetEventHandler(ENetEventType.RECEIVE)
+        public void onReceive(ENetEvent event) {
+            blackhole.consume(event);
+        }
+    }
+
+    private final Handler handler = new Handler();
+    private final ENetEventDispatcher dispatcher = new ENetEventDispatcher();
+    private final ENetEventHandlerRegistry registry = new ENetEventHandlerRegistry();
+    private ENetEvent event;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        handler.blackhole = blackhole;
+        dispatcher.register(handler);
+        registry.registerHandler(handler);
+        ENetPeer peer = new ENetPeer(1, 0, null);
+        event = new ENetEvent(ENetEventType.RECEIVE.getValue(), peer, (byte) 0, 0,
+                new ENetPacket(0, new byte[16], 0));
+    }
+
+    @Benchmark
+    public void direct() {
+        handler.onReceive(event);
+    }
+
+    @Benchmark
+    public void dispatcher() {
+        dispatcher.dispatch(event);
+    }
+
+    @Benchmark
+    public void springRegistry() {
+        registry.handleReceive(event);
+    }
+}
@@ -0,0 +1,108 @@
+package com.enet.benchmarks;
+
+import com.enet.ENetConnection;
+import com.enet.ENetEvent;
+import com.enet.ENetEventHandler;
+import com.enet.ENetEventType;
+import com.enet.ENetPacketFlags;
+import com.enet.ENetPeer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Receive path of the server's event loop with and without flyweight events. Run with the GC
+ * profiler (the default in {@link BenchmarkRunner}): {@code gc.alloc.rate.norm} counts every
+ * thread, and the client's send path allocates nothing, so in the flyweight modes it should
+ * stay at about 0 B/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FlyweightBenchmark {
+    private static final int BURST = 64;
+    private static final int FLAGS = ENetPacketFlags.UNSEQUENCED | ENetPacketFlags.UNTHROTTLED;
+
+    @Param({"plain", "flyweight", "flyweightBatch"})
+    public String mode;
+
+    private ENetConnection server;
+    private ENetConnection client;
+    private ENetPeer peer;
+    private final AtomicLong received = new AtomicLong();
+    private final byte[] payload = new byte[64];
+
+    public class Handler {
+        volatile long checksum;
+
+        @ENetEventHandler(ENetEventType.RECEIVE)
+        public void onReceive(ENetEvent event) {
+            ByteBuffer data = event.getPacket().getBuffer();
+            checksum += data.get(data.position()) + event.getPacket().getLength();
+            received.incrementAndGet();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        server = ENetConnection.createHost("127.0.0.1", 47304, 1, 1);
+        server.setAutoReleasePackets(true);
+        if (!mode.equals("plain")) {
+            server.enableFlyweightEvents(2048);
+        }
+        if (mode.equals("flyweightBatch")) {
+            server.enableBatchMode(1 << 16);
+        }
+        server.addEventHandler(new Handler());
+        server.startEventLoop();
+
+        client = ENetConnection.createHost(null, 0, 1, 1);
+        peer = client.connect("127.0.0.1", 47304, 1);
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (client.getPeer(peer.getID()) == null || !peer.isConnected()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Loopback connection timed out");
+            }
+            client.service(1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long receive() {
+        long target = received.get() + BURST;
+        for (int i = 0; i < BURST; i++) {
+            client.send(peer, (byte) 0, payload, FLAGS);
+        }
+        client.flush();
+        // Unreliable datagrams may be dropped on a busy machine, so don't wait forever
+        long deadline = System.nanoTime() + 100_000_000L;
+        while (received.get() < target && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        return received.get();
+    }
+}
@@ -0,0 +1,124 @@
+package com.enet.benchmarks;
+
+import com.enet.ENetConnection;
+import com.enet.ENetEvent;
+import com.enet.ENetEventHandler;
+import com.enet.ENetEventType;
+import com.enet.ENetPacketFlags;
+import com.enet.ENetPeer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end over loopback with both hosts on their own event loops: the server echoes every
+ * message. {@code roundTrip} samples single request/echo latency (read p99 from the
+ * percentile output), {@code pipelined} measures messages per second with
+ * {@link #WINDOW} messages in flight.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoopbackBenchmark {
+    private static final int WINDOW = 64;
+
+    @Param({"32", "512"})
+    public int payloadSize;
+
+    private ENetConnection server;
+    private ENetConnection client;
+    private ENetPeer peer;
+    private final Semaphore echoes = new Semaphore(0);
+    private byte[] payload;
+
+    public static class EchoHandler {
+        private final ENetConnection server;
+
+        EchoHandler(ENetConnection server) {
+            this.server = server;
+        }
+
+        @ENetEventHandler(ENetEventType.RECEIVE)
+        public void onReceive(ENetEvent event) {
+            server.send(event.getPeer(), event.getChannelID(), event.getPacket().getBuffer(), ENetPacketFlags.RELIABLE);
+        }
+    }
+
+    public class ClientHandler {
+        private final CountDownLatch connected;
+
+        ClientHandler(CountDownLatch connected) {
+            this.connected = connected;
+        }
+
+        @ENetEventHandler(ENetEventType.CONNECT)
+        public void onConnect(ENetEvent event) {
+            connected.countDown();
+        }
+
+        @ENetEventHandler(ENetEventType.RECEIVE)
+        public void onReceive(ENetEvent event) {
+            echoes.release();
+        }
+    }
+
+    @Setup
+    public void setup() throws InterruptedException {
+        payload = new byte[payloadSize];
+        server = ENetConnection.createHost("127.0.0.1", 47303, 4, 1);
+        server.setAutoReleasePackets(true);
+        server.addEventHandler(new EchoHandler(server));
+        server.startEventLoop();
+
+        CountDownLatch connected = new CountDownLatch(1);
+        client = ENetConnection.createHost(null, 0, 1, 1);
+        client.setAutoReleasePackets(true);
+        client.enableCommandQueue(WINDOW * 4);
+        client.addEventHandler(new ClientHandler(connected));
+        client.startEventLoop();
+        peer = client.connect("127.0.0.1", 47303, 1);
+        if (!connected.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Loopback connection timed out");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void roundTrip() throws InterruptedException {
+        client.send(peer, (byte) 0, payload, ENetPacketFlags.RELIABLE);
+        echoes.acquire();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(WINDOW)
+    public void pipelined() throws InterruptedException {
+        for (int i = 0; i < WINDOW; i++) {
+            client.send(peer, (byte) 0, payload, ENetPacketFlags.RELIABLE);
+        }
+        echoes.acquire(WINDOW);
+    }
+}
@@ -0,0 +1,51 @@
+package com.enet.benchmarks;
+
+import com.enet.ENetConnection;
+import com.enet.ENetEvent;
+import com.enet.ENetEventType;
+import com.enet.ENetPeer;
+
+/**
+ * A server and a client host connected over loopback, serviced by the caller.
+ */
+final class LoopbackPair implements AutoCloseable {
+    final ENetConnection server;
+    final ENetConnection client;
+    final ENetPeer clientPeer;
+    ENetPeer serverPeer;
+
+    private LoopbackPair(ENetConnection server, ENetConnection client, ENetPeer clientPeer) {
+        this.server = server;
+        this.client = client;
+        this.clientPeer = clientPeer;
+    }
+
+    static LoopbackPair connect(int port, int maxClients, int channels) {
+        ENetConnection server = ENetConnection.createHost("127.0.0.1", port, maxClients, channels);
+        ENetConnection client = ENetConnection.createHost(null, 0, 1, channels);
+        LoopbackPair pair = new LoopbackPair(server, client, client.connect("127.0.0.1", port, channels));
+        boolean clientConnected = false;
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (pair.serverPeer == null || !clientConnected) {
+            if (System.nanoTime() > deadline) {
+                pair.close();
+                throw new IllegalStateException("Loopback connection on port " + port + " timed out");
+            }
+            ENetEvent event = server.service(1);
+            if (event != null && event.getEventType() == ENetEventType.CONNECT) {
+                pair.serverPeer = event.getPeer();
+            }
+            event = client.service(1);
+            if (event != null && event.getEventType() == ENetEventType.CONNECT) {
+                clientConnected = true;
+            }
+        }
+        return pair;
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        server.close();
+    }
+}
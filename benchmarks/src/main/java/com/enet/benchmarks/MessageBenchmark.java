@@ -0,0 +1,90 @@
+package com.enet.benchmarks;
+
+import com.enet.ENetEvent;
+import com.enet.ENetEventType;
+import com.enet.ENetMessage;
+import com.enet.ENetMessageHandler;
+import com.enet.ENetMessageRouter;
+import com.enet.ENetPacket;
+import com.enet.ENetPeer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a received packet into something a handler can use: routing a typed message
+ * through {@link ENetMessageRouter} against parsing the same fields out of a text payload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageBenchmark {
+
+    @ENetMessage(1)
+    public static class Move {
+        int entity;
+        float x;
+        float y;
+        float z;
+    }
+
+    public static class Handler {
+        Blackhole blackhole;
+
+        @ENetMessageHandler(Move.class)
+        public void onMove(Move move) {
+            blackhole.consume(move);
+        }
+    }
+
+    private final Handler handler = new Handler();
+    private final ENetMessageRouter router = new ENetMessageRouter();
+    private ENetEvent typedEvent;
+    private ENetEvent textEvent;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        handler.blackhole = blackhole;
+        router.register(handler);
+        Move move = new Move();
+        move.entity = 42;
+        move.x = 1.5f;
+        move.y = 2.5f;
+        move.z = -3.0f;
+        ENetPeer peer = new ENetPeer(1, 0, null);
+        typedEvent = new ENetEvent(ENetEventType.RECEIVE.getValue(), peer, (byte) 0, 0,
+                new ENetPacket(0, router.encode(move), 0));
+        textEvent = new ENetEvent(ENetEventType.RECEIVE.getValue(), peer, (byte) 0, 0,
+                new ENetPacket(0, "move 42 1.5 2.5 -3.0".getBytes(StandardCharsets.UTF_8), 0));
+    }
+
+    @Benchmark
+    public boolean routeTyped() {
+        return router.route(typedEvent);
+    }
+
+    @Benchmark
+    public void parseText(Blackhole blackhole) {
+        String[] parts = textEvent.getPacket().getDataAsString().split(" ");
+        Move move = new Move();
+        move.entity = Integer.parseInt(parts[1]);
+        move.x = Float.parseFloat(parts[2]);
+        move.y = Float.parseFloat(parts[3]);
+        move.z = Float.parseFloat(parts[4]);
+        blackhole.consume(move);
+    }
+}
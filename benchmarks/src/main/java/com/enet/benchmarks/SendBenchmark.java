@@ -0,0 +1,131 @@
+package com.enet.benchmarks;
+
+import com.enet.ENetBufferPool;
+import com.enet.ENetConnection;
+import com.enet.ENetEvent;
+import com.enet.ENetEventType;
+import com.enet.ENetPacketFlags;
+import com.enet.ENetPeer;
+import com.enet.ENetPeerGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of queueing a packet by payload size: byte[] send, pooled direct-buffer send, a send to
+ * a peer group and a host broadcast to {@link #PEERS} peers. The host is flushed every
+ * {@link #FLUSH_EVERY} operations so ENet's queues stay bounded; receivers are not serviced
+ * and their socket buffers simply overflow.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SendBenchmark {
+    private static final int PEERS = 8;
+    private static final int FLUSH_EVERY = 64;
+    private static final int FLAGS = ENetPacketFlags.UNSEQUENCED | ENetPacketFlags.UNTHROTTLED;
+
+    @Param({"16", "256", "1024", "4096"})
+    public int payloadSize;
+
+    private ENetConnection server;
+    private final List<ENetConnection> clients = new ArrayList<>();
+    private ENetPeer peer;
+    private ENetPeerGroup group;
+    private ENetBufferPool pool;
+    private byte[] payload;
+    private int operations;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        server = ENetConnection.createHost("127.0.0.1", 47302, PEERS, 1);
+        List<ENetPeer> serverPeers = new ArrayList<>();
+        for (int i = 0; i < PEERS; i++) {
+            ENetConnection client = ENetConnection.createHost(null, 0, 1, 1);
+            client.connect("127.0.0.1", 47302, 1);
+            clients.add(client);
+        }
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (serverPeers.size() < PEERS && System.nanoTime() < deadline) {
+            ENetEvent event = server.service(1);
+            if (event != null && event.getEventType() == ENetEventType.CONNECT) {
+                serverPeers.add(event.getPeer());
+            }
+            for (ENetConnection client : clients) {
+                client.service(0);
+            }
+        }
+        if (serverPeers.size() < PEERS) {
+            throw new IllegalStateException("Only " + serverPeers.size() + " of " + PEERS + " peers connected");
+        }
+        peer = serverPeers.get(0);
+        group = server.createPeerGroup();
+        serverPeers.forEach(group::add);
+        pool = new ENetBufferPool(payloadSize, FLUSH_EVERY * 2);
+        payload = new byte[payloadSize];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clients.forEach(ENetConnection::close);
+        server.close();
+        pool.close();
+    }
+
+    @Benchmark
+    public int sendArray() {
+        int result = server.send(peer, (byte) 0, payload, FLAGS);
+        maybeFlush();
+        return result;
+    }
+
+    @Benchmark
+    public int sendPooled() {
+        ByteBuffer slot = pool.acquire();
+        if (slot == null) {
+            // Every slot is still queued; flushing frees them
+            server.flush();
+            slot = pool.acquire();
+        }
+        slot.limit(payloadSize);
+        int result = server.send(peer, (byte) 0, slot, FLAGS);
+        maybeFlush();
+        return result;
+    }
+
+    @Benchmark
+    public void sendToGroup() {
+        server.sendToGroup(group, (byte) 0, payload, FLAGS);
+        maybeFlush();
+    }
+
+    @Benchmark
+    public void broadcast() {
+        server.broadcast((byte) 0, payload, FLAGS);
+        maybeFlush();
+    }
+
+    private void maybeFlush() {
+        if (++operations % FLUSH_EVERY == 0) {
+            server.flush();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.enet.benchmarks;
+
+import com.enet.ENetEvent;
+import com.enet.ENetEventBatch;
+import com.enet.ENetEventType;
+import com.enet.ENetPacketFlags;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per received event of marshalling native events into Java: one {@code service()} call
+ * per event versus draining a burst with {@code serviceBatch()}. Each invocation sends a burst
+ * from the client, so the score includes the client's send cost as a constant overhead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ServiceBenchmark {
+    private static final int BURST = 64;
+    private static final int FLAGS = ENetPacketFlags.UNSEQUENCED | ENetPacketFlags.UNTHROTTLED;
+
+    private LoopbackPair pair;
+    private ENetEventBatch batch;
+    private final byte[] payload = new byte[32];
+
+    @Setup
+    public void setup() {
+        pair = LoopbackPair.connect(47301, 1, 1);
+        batch = new ENetEventBatch(1 << 16, BURST * 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pair.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public int service() {
+        sendBurst();
+        int received = 0;
+        long deadline = System.nanoTime() + 100_000_000L;
+        while (received < BURST && System.nanoTime() < deadline) {
+            ENetEvent event = pair.server.service(0);
+            if (event != null && event.getEventType() == ENetEventType.RECEIVE) {
+                event.getPacket().release();
+                received++;
+            }
+        }
+        return received;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public int serviceBatch() {
+        sendBurst();
+        int received = 0;
+        long deadline = System.nanoTime() + 100_000_000L;
+        while (received < BURST && System.nanoTime() < deadline) {
+            pair.server.serviceBatch(batch, 0);
+            while (batch.next()) {
+                if (batch.getEventType() == ENetEventType.RECEIVE) {
+                    received++;
+                }
+            }
+        }
+        return received;
+    }
+
+    private void sendBurst() {
+        for (int i = 0; i < BURST; i++) {
+            pair.client.send(pair.clientPeer, (byte) 0, payload, FLAGS);
+        }
+        pair.client.service(0);
+    }
+}
@@ -0,0 +1,193 @@
+package com.enet.benchmarks.swarm;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Headless load generator: connects a swarm of simulated clients to a server, drives them
+ * through a scripted send pattern and reports connect rate, throughput, round-trip percentiles
+ * and disconnects as JSON lines on stdout, for soak runs and regression tracking.
+ *
+ * <pre>
+ * java -Djava.library.path=../native -cp target/benchmarks.jar com.enet.benchmarks.swarm.Swarm \
+ *     --local --clients=2000 --rate=20 --size=32-512 --duration=60
+ * </pre>
+ */
+public class Swarm {
+    private final SwarmOptions options;
+    private final SwarmWorker[] workers;
+    private final Thread[] threads;
+    private final SwarmMetrics total = new SwarmMetrics();
+    private final long startNanos;
+
+    private Swarm(SwarmOptions options) {
+        this.options = options;
+        int threadCount = Math.min(options.threads, options.clients);
+        this.workers = new SwarmWorker[threadCount];
+        this.threads = new Thread[threadCount];
+        this.startNanos = System.nanoTime();
+        for (int i = 0; i < threadCount; i++) {
+            int share = options.clients / threadCount + (i < options.clients % threadCount ? 1 : 0);
+            workers[i] = new SwarmWorker(options, i, share, startNanos);
+            threads[i] = new Thread(workers[i], "Swarm-" + i);
+            threads[i].setDaemon(true);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            if (arg.equals("--help") || arg.equals("-h")) {
+                System.out.println(SwarmOptions.USAGE);
+                return;
+            }
+        }
+        SwarmOptions options;
+        try {
+            options = SwarmOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(SwarmOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        SwarmEchoServer server = options.local
+                ? new SwarmEchoServer(options.host, options.port, options.serverShards, options.clients,
+                        options.channels, options.network)
+                : null;
+        try {
+            new Swarm(options).run();
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private void run() throws InterruptedException, IOException {
+        for (int i = 0; i < options.phases.size(); i++) {
+            System.err.println("Phase " + i + ": " + options.phases.get(i));
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (SwarmWorker worker : workers) {
+                worker.stop();
+            }
+        }));
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        long intervalNanos = options.reportIntervalSeconds * 1_000_000_000L;
+        long lastReport = startNanos;
+        while (isAnyAlive()) {
+            threads[0].join(Math.max(1, (lastReport + intervalNanos - System.nanoTime()) / 1_000_000L));
+            long now = System.nanoTime();
+            if (now - lastReport >= intervalNanos) {
+                report("interval", collect(), now - lastReport, now);
+                lastReport = now;
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long now = System.nanoTime();
+        collect();
+        report("summary", total, now - startNanos, now);
+    }
+
+    private boolean isAnyAlive() {
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SwarmMetrics collect() {
+        SwarmMetrics interval = new SwarmMetrics();
+        for (SwarmWorker worker : workers) {
+            worker.metrics.drainInto(interval);
+        }
+        total.add(interval);
+        return interval;
+    }
+
+    private void report(String type, SwarmMetrics metrics, long periodNanos, long now) throws IOException {
+        double seconds = periodNanos / 1e9;
+        int connected = 0;
+        for (SwarmWorker worker : workers) {
+            connected += worker.connectedClients;
+        }
+        int phase = options.phaseAt(now - periodNanos - startNanos);
+        double connectSeconds = (metrics.lastConnectNanos - startNanos) / 1e9;
+        boolean summary = type.equals("summary");
+
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"type\":\"").append(type).append('"');
+        field(json, "elapsedSeconds", (now - startNanos) / 1e9);
+        if (!summary) {
+            json.append(",\"phase\":").append(phase);
+            json.append(",\"connectedClients\":").append(connected);
+        } else {
+            json.append(",\"clients\":").append(options.clients);
+        }
+        json.append(",\"connectAttempts\":").append(metrics.connectAttempts);
+        json.append(",\"connects\":").append(metrics.connects);
+        field(json, "connectsPerSecond", summary
+                ? (connectSeconds > 0 ? metrics.connects / connectSeconds : 0)
+                : metrics.connects / seconds);
+        json.append(",\"connectMillis\":");
+        percentiles(json, metrics.connectMillis);
+        json.append(",\"connectFailures\":").append(metrics.connectFailures);
+        json.append(",\"disconnects\":").append(metrics.disconnects);
+        json.append(",\"timeouts\":").append(metrics.timeouts);
+        json.append(",\"messagesSent\":").append(metrics.messagesSent);
+        json.append(",\"messagesReceived\":").append(metrics.messagesReceived);
+        field(json, "sentPerSecond", metrics.messagesSent / seconds);
+        field(json, "receivedPerSecond", metrics.messagesReceived / seconds);
+        field(json, "sentBytesPerSecond", metrics.bytesSent / seconds);
+        field(json, "receivedBytesPerSecond", metrics.bytesReceived / seconds);
+        json.append(",\"roundTripMicros\":");
+        percentiles(json, metrics.roundTripMicros);
+        if (summary && options.network != null) {
+            json.append(",\"network\":{\"lost\":").append(metrics.networkLost)
+                    .append(",\"duplicated\":").append(metrics.networkDuplicated)
+                    .append(",\"reordered\":").append(metrics.networkReordered)
+                    .append(",\"overflowed\":").append(metrics.networkOverflowed)
+                    .append('}');
+        }
+        json.append('}');
+
+        String line = json.toString();
+        System.out.println(line);
+        if (options.output != null) {
+            Files.write(options.output, (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        if (!summary) {
+            PrintStream err = System.err;
+            err.printf(Locale.ROOT, "%6.1fs  clients %d  sent %.0f/s  received %.0f/s  rtt p50 %dus p99 %dus%n",
+                    (now - startNanos) / 1e9, connected, metrics.messagesSent / seconds,
+                    metrics.messagesReceived / seconds, metrics.roundTripMicros.percentile(0.5),
+                    metrics.roundTripMicros.percentile(0.99));
+        }
+    }
+
+    private static void field(StringBuilder json, String name, double value) {
+        json.append(",\"").append(name).append("\":").append(String.format(Locale.ROOT, "%.1f", value));
+    }
+
+    private static void percentiles(StringBuilder json, LatencyHistogram histogram) {
+        json.append("{\"count\":").append(histogram.count())
+                .append(",\"p50\":").append(histogram.percentile(0.5))
+                .append(",\"p99\":").append(histogram.percentile(0.99))
+                .append(",\"p999\":").append(histogram.percentile(0.999))
+                .append(",\"max\":").append(histogram.max())
+                .append('}');
+    }
+}
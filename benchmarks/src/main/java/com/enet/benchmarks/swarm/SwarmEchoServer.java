@@ -0,0 +1,44 @@
+package com.enet.benchmarks.swarm;
+
+import com.enet.ENetEvent;
+import com.enet.ENetEventHandler;
+import com.enet.ENetEventType;
+import com.enet.ENetNetworkConditions;
+import com.enet.ENetPacketFlags;
+import com.enet.ENetServerGroup;
+
+import java.nio.ByteBuffer;
+
+/**
+ * In-process server for {@code --local} runs: echoes every message unchanged on the channel and
+ * with the reliability it arrived with.
+ */
+final class SwarmEchoServer implements AutoCloseable {
+    private final ENetServerGroup group;
+
+    SwarmEchoServer(String host, int port, int shards, int maxClients, int channels, ENetNetworkConditions network) {
+        // REUSEPORT spreads clients by address hash, so leave each shard some headroom
+        int perShard = Math.min(4095, (int) Math.ceil(maxClients * 1.25 / shards) + 16);
+        this.group = ENetServerGroup.create(host, port, shards, perShard, channels);
+        group.forEachShard(shard -> {
+            shard.setAutoReleasePackets(true);
+            if (network != null) {
+                shard.setNetworkConditions(network);
+            }
+        });
+        group.addEventHandler(this);
+        group.startEventLoops();
+    }
+
+    @ENetEventHandler(ENetEventType.RECEIVE)
+    public void onReceive(ENetEvent event) {
+        ByteBuffer data = event.getPacket().getBuffer();
+        int flags = event.getPacket().getFlags() & (ENetPacketFlags.RELIABLE | ENetPacketFlags.UNSEQUENCED);
+        group.send(event.getPeer(), event.getChannelID(), data, data.position(), data.remaining(), flags);
+    }
+
+    @Override
+    public void close() {
+        group.close();
+    }
+}
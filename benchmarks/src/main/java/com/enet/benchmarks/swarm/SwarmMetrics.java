@@ -0,0 +1,108 @@
+package com.enet.benchmarks.swarm;
+
+import com.enet.ENetNetworkEmulatorStats;
+
+/**
+ * Counters and latency histograms of one worker. The worker records; the reporter periodically
+ * moves everything into its own instance with {@link #drainInto(SwarmMetrics)}.
+ */
+final class SwarmMetrics {
+    long connectAttempts;
+    long connects;
+    long connectFailures;
+    long disconnects;
+    long timeouts;
+    long messagesSent;
+    long bytesSent;
+    long messagesReceived;
+    long bytesReceived;
+    long lastConnectNanos;
+    // Network emulator counters of the client hosts, recorded when they close
+    long networkLost;
+    long networkDuplicated;
+    long networkReordered;
+    long networkOverflowed;
+    final LatencyHistogram roundTripMicros = new LatencyHistogram();
+    final LatencyHistogram connectMillis = new LatencyHistogram();
+
+    synchronized void connectAttempted() {
+        connectAttempts++;
+    }
+
+    synchronized void connected(long connectNanos, long now) {
+        connects++;
+        lastConnectNanos = now;
+        connectMillis.record(connectNanos / 1_000_000L);
+    }
+
+    synchronized void lost(boolean wasConnected, boolean timedOut) {
+        if (!wasConnected) {
+            connectFailures++;
+        } else if (timedOut) {
+            timeouts++;
+        } else {
+            disconnects++;
+        }
+    }
+
+    synchronized void sent(int bytes) {
+        messagesSent++;
+        bytesSent += bytes;
+    }
+
+    synchronized void received(int bytes, long roundTripNanos) {
+        messagesReceived++;
+        bytesReceived += bytes;
+        roundTripMicros.record(roundTripNanos / 1_000L);
+    }
+
+    synchronized void emulated(ENetNetworkEmulatorStats stats) {
+        networkLost += stats.getLost();
+        networkDuplicated += stats.getDuplicated();
+        networkReordered += stats.getReordered();
+        networkOverflowed += stats.getOverflowed();
+    }
+
+    synchronized void drainInto(SwarmMetrics target) {
+        target.add(this);
+        connectAttempts = 0;
+        connects = 0;
+        connectFailures = 0;
+        disconnects = 0;
+        timeouts = 0;
+        messagesSent = 0;
+        bytesSent = 0;
+        messagesReceived = 0;
+        bytesReceived = 0;
+        lastConnectNanos = 0;
+        networkLost = 0;
+        networkDuplicated = 0;
+        networkReordered = 0;
+        networkOverflowed = 0;
+        roundTripMicros.reset();
+        connectMillis.reset();
+    }
+
+    // Only called on reporter-owned instances
+    void add(SwarmMetrics other) {
+        if (other.connects > 0 && (connects == 0 || other.lastConnectNanos - lastConnectNanos > 0)) {
+            // nanoTime values may be negative, so 0 can't stand for "none"
+            lastConnectNanos = other.lastConnectNanos;
+        }
+        connectAttempts += other.connectAttempts;
+        connects += other.connects;
+        connectFailures += other.connectFailures;
+        disconnects += other.disconnects;
+        timeouts += other.timeouts;
+        messagesSent += other.messagesSent;
+        bytesSent += other.bytesSent;
+        messagesReceived += other.messagesReceived;
+        bytesReceived += other.bytesReceived;
+        networkLost += other.networkLost;
+        networkDuplicated += other.networkDuplicated;
+        networkReordered += other.networkReordered;
+        networkOverflowed += other.networkOverflowed;
+        roundTripMicros.add(other.roundTripMicros);
+        connectMillis.add(other.connectMillis);
+    }
+}
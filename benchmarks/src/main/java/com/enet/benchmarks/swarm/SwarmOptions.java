@@ -0,0 +1,146 @@
+package com.enet.benchmarks.swarm;
+
+import com.enet.ENetNetworkConditions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line options of {@link Swarm}, given as {@code --name=value}.
+ */
+final class SwarmOptions {
+    static final String USAGE = String.join("\n",
+            "Usage: Swarm [--name=value ...]",
+            "  --host=127.0.0.1        server address",
+            "  --port=7777             server port",
+            "  --clients=1000          simulated clients",
+            "  --threads=N             client threads (default: available processors, at most 8)",
+            "  --peers-per-host=64     clients multiplexed on one ENet host",
+            "  --connect-rate=500      new connections per second during ramp-up",
+            "  --channels=2            channels per connection",
+            "  --duration=30           seconds, for the single phase built from the flags below",
+            "  --rate=10               messages per second per client",
+            "  --size=64               message size in bytes, or a range like 32-512",
+            "  --reliable=0.5          fraction of messages sent reliable",
+            "  --script=FILE           one phase per line (duration= rate= size= reliable= channels=),",
+            "                          missing keys default to the flags above",
+            "  --report-interval=5     seconds between interval records",
+            "  --output=FILE           also append the JSON records to FILE",
+            "  --local                 start an in-process echo server on --host/--port",
+            "  --server-shards=1       SO_REUSEPORT shards of the local server",
+            "  --network=SPEC          emulate a bad link on the clients and the local server, e.g.",
+            "                          latency=40,jitter=10,loss=1,reorder=1,bandwidth=1000000",
+            "",
+            "Clients stamp each message with its send time; the server must echo it unchanged.",
+            "One JSON object per line is written to stdout: 'interval' records, then a 'summary'.");
+
+    String host = "127.0.0.1";
+    int port = 7777;
+    int clients = 1000;
+    int threads = Math.min(8, Runtime.getRuntime().availableProcessors());
+    int peersPerHost = 64;
+    double connectRate = 500;
+    int channels = 2;
+    int reportIntervalSeconds = 5;
+    Path output;
+    boolean local;
+    int serverShards = 1;
+    ENetNetworkConditions network;
+    List<SwarmPhase> phases;
+
+    static SwarmOptions parse(String[] args) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(separator < 0 ? arg.substring(2) : arg.substring(2, separator),
+                    separator < 0 ? "true" : arg.substring(separator + 1));
+        }
+
+        SwarmOptions options = new SwarmOptions();
+        options.host = values.getOrDefault("host", options.host);
+        options.port = intOption(values, "port", options.port);
+        options.clients = intOption(values, "clients", options.clients);
+        options.threads = intOption(values, "threads", options.threads);
+        options.peersPerHost = intOption(values, "peers-per-host", options.peersPerHost);
+        options.connectRate = Double.parseDouble(values.getOrDefault("connect-rate", "500"));
+        options.channels = intOption(values, "channels", options.channels);
+        options.reportIntervalSeconds = intOption(values, "report-interval", options.reportIntervalSeconds);
+        options.local = Boolean.parseBoolean(values.getOrDefault("local", "false"));
+        options.serverShards = intOption(values, "server-shards", options.serverShards);
+        if (values.containsKey("network")) {
+            options.network = ENetNetworkConditions.parse(values.get("network"));
+        }
+        if (values.containsKey("output")) {
+            options.output = Paths.get(values.get("output"));
+        }
+
+        int[] size = SwarmPhase.parseRange(values.getOrDefault("size", "64"), 0, 0);
+        SwarmPhase defaults = new SwarmPhase(intOption(values, "duration", 30),
+                Double.parseDouble(values.getOrDefault("rate", "10")), size[0], size[1],
+                Double.parseDouble(values.getOrDefault("reliable", "0.5")), 0, options.channels - 1);
+        if (values.containsKey("script")) {
+            List<SwarmPhase> phases = new ArrayList<>();
+            for (String line : Files.readAllLines(Paths.get(values.get("script")))) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                    phases.add(SwarmPhase.parse(trimmed, defaults));
+                }
+            }
+            if (phases.isEmpty()) {
+                throw new IllegalArgumentException("Script " + values.get("script") + " has no phases");
+            }
+            options.phases = Collections.unmodifiableList(phases);
+        } else {
+            options.phases = Collections.singletonList(defaults);
+        }
+
+        if (options.clients <= 0 || options.threads <= 0 || options.peersPerHost <= 0 || options.connectRate <= 0
+                || options.channels <= 0 || options.reportIntervalSeconds <= 0 || options.serverShards <= 0) {
+            throw new IllegalArgumentException("Counts, rates and intervals must be positive");
+        }
+        for (SwarmPhase phase : options.phases) {
+            if (phase.lastChannel >= options.channels) {
+                throw new IllegalArgumentException("Phase '" + phase + "' uses channels beyond --channels=" + options.channels);
+            }
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> values, String name, int defaultValue) {
+        String value = values.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    long totalDurationNanos() {
+        long seconds = 0;
+        for (SwarmPhase phase : phases) {
+            seconds += phase.durationSeconds;
+        }
+        return seconds * 1_000_000_000L;
+    }
+
+    /**
+     * Returns the index of the phase running {@code elapsedNanos} into the run, or -1 once the
+     * script is over.
+     */
+    int phaseAt(long elapsedNanos) {
+        long end = 0;
+        for (int i = 0; i < phases.size(); i++) {
+            end += phases.get(i).durationSeconds * 1_000_000_000L;
+            if (elapsedNanos < end) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,101 @@
+package com.enet.benchmarks.swarm;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One step of a send script: for {@code duration} seconds every connected client sends
+ * {@code rate} messages per second of a uniformly random size, reliable with probability
+ * {@code reliable}, spread uniformly over a channel range.
+ *
+ * <pre>
+ * duration=60 rate=20 size=32-512 reliable=0.25 channels=0-1
+ * </pre>
+ */
+final class SwarmPhase {
+    final int durationSeconds;
+    final double rate;
+    final int minSize;
+    final int maxSize;
+    final double reliableRatio;
+    final int firstChannel;
+    final int lastChannel;
+
+    SwarmPhase(int durationSeconds, double rate, int minSize, int maxSize, double reliableRatio,
+               int firstChannel, int lastChannel) {
+        if (durationSeconds <= 0) {
+            throw new IllegalArgumentException("Phase duration must be positive");
+        }
+        if (rate < 0) {
+            throw new IllegalArgumentException("Send rate must not be negative");
+        }
+        if (minSize < SwarmWorker.HEADER_SIZE || maxSize < minSize) {
+            throw new IllegalArgumentException("Message size must be a range of at least "
+                    + SwarmWorker.HEADER_SIZE + " bytes, got " + minSize + "-" + maxSize);
+        }
+        if (reliableRatio < 0 || reliableRatio > 1) {
+            throw new IllegalArgumentException("Reliable ratio must be between 0 and 1");
+        }
+        if (firstChannel < 0 || lastChannel < firstChannel || lastChannel > 254) {
+            throw new IllegalArgumentException("Invalid channel range " + firstChannel + "-" + lastChannel);
+        }
+        this.durationSeconds = durationSeconds;
+        this.rate = rate;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.reliableRatio = reliableRatio;
+        this.firstChannel = firstChannel;
+        this.lastChannel = lastChannel;
+    }
+
+    /**
+     * Parses a whitespace-separated {@code key=value} line; keys that are missing are taken from
+     * {@code defaults}.
+     */
+    static SwarmPhase parse(String line, SwarmPhase defaults) {
+        Map<String, String> values = new HashMap<>();
+        for (String token : line.trim().split("\\s+")) {
+            int separator = token.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value in phase '" + line + "'");
+            }
+            values.put(token.substring(0, separator), token.substring(separator + 1));
+        }
+        int[] size = parseRange(values.remove("size"), defaults.minSize, defaults.maxSize);
+        int[] channels = parseRange(values.remove("channels"), defaults.firstChannel, defaults.lastChannel);
+        String duration = values.remove("duration");
+        String rate = values.remove("rate");
+        String reliable = values.remove("reliable");
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown phase keys " + values.keySet() + " in '" + line + "'");
+        }
+        return new SwarmPhase(
+                duration != null ? Integer.parseInt(duration) : defaults.durationSeconds,
+                rate != null ? Double.parseDouble(rate) : defaults.rate,
+                size[0], size[1],
+                reliable != null ? Double.parseDouble(reliable) : defaults.reliableRatio,
+                channels[0], channels[1]);
+    }
+
+    static int[] parseRange(String value, int defaultLow, int defaultHigh) {
+        if (value == null) {
+            return new int[] {defaultLow, defaultHigh};
+        }
+        int dash = value.indexOf('-');
+        if (dash < 0) {
+            int single = Integer.parseInt(value);
+            return new int[] {single, single};
+        }
+        return new int[] {Integer.parseInt(value.substring(0, dash)), Integer.parseInt(value.substring(dash + 1))};
+    }
+
+    long intervalNanos() {
+        return rate > 0 ? (long) (1_000_000_000L / rate) : Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "duration=" + durationSeconds + " rate=" + rate + " size=" + minSize + "-" + maxSize
+                + " reliable=" + reliableRatio + " channels=" + firstChannel + "-" + lastChannel;
+    }
+}
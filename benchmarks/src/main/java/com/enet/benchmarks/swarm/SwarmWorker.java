@@ -0,0 +1,235 @@
+package com.enet.benchmarks.swarm;
+
+import com.enet.ENetConnection;
+import com.enet.ENetEvent;
+import com.enet.ENetEventType;
+import com.enet.ENetNetworkEmulatorStats;
+import com.enet.ENetPacket;
+import com.enet.ENetPacketFlags;
+import com.enet.ENetPeer;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a share of the simulated clients on one thread. Clients are spread over several ENet
+ * hosts of {@code peersPerHost} peers each, and the thread services all of them itself without
+ * event loops, so thousands of clients need only a handful of threads.
+ */
+final class SwarmWorker implements Runnable {
+    /** Send timestamp written at the start of every message. */
+    static final int HEADER_SIZE = 8;
+
+    private static final long MAX_PARK_NANOS = 1_000_000L;
+    private static final long DISCONNECT_GRACE_NANOS = 2_000_000_000L;
+
+    private static final class Client {
+        int hostIndex;
+        ENetPeer peer;
+        long connectStartNanos;
+        long nextSendNanos;
+        boolean scheduled;
+        boolean connected;
+        boolean closed;
+    }
+
+    private final SwarmOptions options;
+    private final int clientCount;
+    private final double connectRate;
+    private final long startNanos;
+    private final ENetConnection[] hosts;
+    private final Client[][] clientsByPeerID;
+    private final Client[] clients;
+    private final ByteBuffer message;
+    private final SplittableRandom random;
+    final SwarmMetrics metrics = new SwarmMetrics();
+    volatile int connectedClients;
+    private volatile boolean stopRequested;
+    private boolean stopping;
+    private int created;
+
+    SwarmWorker(SwarmOptions options, int index, int clientCount, long startNanos) {
+        this.options = options;
+        this.clientCount = clientCount;
+        this.connectRate = options.connectRate * clientCount / options.clients;
+        this.startNanos = startNanos;
+        int hostCount = (clientCount + options.peersPerHost - 1) / options.peersPerHost;
+        this.hosts = new ENetConnection[hostCount];
+        this.clientsByPeerID = new Client[hostCount][options.peersPerHost];
+        this.clients = new Client[clientCount];
+        int maxSize = HEADER_SIZE;
+        for (SwarmPhase phase : options.phases) {
+            maxSize = Math.max(maxSize, phase.maxSize);
+        }
+        this.message = ByteBuffer.allocateDirect(maxSize);
+        this.random = new SplittableRandom(index * 0x9E3779B97F4A7C15L);
+    }
+
+    void stop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < hosts.length; i++) {
+                hosts[i] = ENetConnection.createHostBound(null, 0, options.peersPerHost, options.channels);
+                if (options.network != null) {
+                    hosts[i].setNetworkConditions(options.network);
+                }
+            }
+            long endNanos = startNanos + options.totalDurationNanos();
+            while (!stopRequested) {
+                long now = System.nanoTime();
+                if (now >= endNanos) {
+                    break;
+                }
+                connectDue(now);
+                serviceHosts();
+                int phaseIndex = options.phaseAt(now - startNanos);
+                long nextDue = sendDue(options.phases.get(phaseIndex), System.nanoTime());
+                for (ENetConnection host : hosts) {
+                    host.flush();
+                }
+                long park = Math.min(nextDue - System.nanoTime(), MAX_PARK_NANOS);
+                if (park > 0) {
+                    LockSupport.parkNanos(park);
+                }
+            }
+            disconnectAll();
+        } finally {
+            for (ENetConnection host : hosts) {
+                if (host != null) {
+                    ENetNetworkEmulatorStats network = host.getNetworkEmulatorStats();
+                    if (network != null) {
+                        metrics.emulated(network);
+                    }
+                    host.close();
+                }
+            }
+        }
+    }
+
+    // Connects this worker's share of the ramp, e.g. 1000 clients at 500/s take two seconds
+    private void connectDue(long now) {
+        long due = Math.min(clientCount, (long) ((now - startNanos) / 1e9 * connectRate) + 1);
+        while (created < due) {
+            Client client = new Client();
+            int hostIndex = created / options.peersPerHost;
+            client.hostIndex = hostIndex;
+            client.connectStartNanos = now;
+            client.peer = hosts[hostIndex].connect(options.host, options.port, options.channels);
+            clients[created++] = client;
+            metrics.connectAttempted();
+            if (client.peer == null) {
+                client.closed = true;
+                metrics.lost(false, false);
+            } else {
+                clientsByPeerID[hostIndex][client.peer.getID()] = client;
+            }
+        }
+    }
+
+    private void serviceHosts() {
+        for (int i = 0; i < hosts.length; i++) {
+            ENetEvent event;
+            while ((event = hosts[i].service(0)) != null) {
+                handle(i, event);
+            }
+        }
+    }
+
+    private void handle(int hostIndex, ENetEvent event) {
+        ENetPeer peer = event.getPeer();
+        Client client = peer != null && peer.getID() >= 0 ? clientsByPeerID[hostIndex][peer.getID()] : null;
+        ENetPacket packet = event.getPacket();
+        long now = System.nanoTime();
+        switch (event.getEventType()) {
+            case CONNECT:
+                if (client != null && !client.connected) {
+                    client.connected = true;
+                    connectedClients++;
+                    metrics.connected(now - client.connectStartNanos, now);
+                }
+                break;
+            case RECEIVE:
+                ByteBuffer data = packet.getBuffer();
+                if (data.remaining() >= HEADER_SIZE) {
+                    metrics.received(data.remaining(), now - data.getLong(data.position()));
+                }
+                packet.release();
+                break;
+            case DISCONNECT:
+            case DISCONNECT_TIMEOUT:
+                if (client != null && !client.closed) {
+                    if (!stopping) {
+                        metrics.lost(client.connected, event.getEventType() == ENetEventType.DISCONNECT_TIMEOUT);
+                    }
+                    if (client.connected) {
+                        connectedClients--;
+                    }
+                    client.connected = false;
+                    client.closed = true;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Sends every message that is due and returns when the next one will be
+    private long sendDue(SwarmPhase phase, long now) {
+        long interval = phase.intervalNanos();
+        long nextDue = now + MAX_PARK_NANOS;
+        if (interval == Long.MAX_VALUE) {
+            return nextDue;
+        }
+        for (int i = 0; i < created; i++) {
+            Client client = clients[i];
+            if (!client.connected) {
+                continue;
+            }
+            if (!client.scheduled) {
+                // Start at a random offset so clients don't send in lockstep
+                client.nextSendNanos = now + random.nextLong(interval);
+                client.scheduled = true;
+            }
+            if (client.nextSendNanos < now - 1_000_000_000L) {
+                // Don't burst to catch up after a stall or a rate change
+                client.nextSendNanos = now;
+            }
+            while (client.nextSendNanos <= now) {
+                send(client, phase, now);
+                client.nextSendNanos += interval;
+            }
+            nextDue = Math.min(nextDue, client.nextSendNanos);
+        }
+        return nextDue;
+    }
+
+    private void send(Client client, SwarmPhase phase, long now) {
+        int size = phase.minSize + random.nextInt(phase.maxSize - phase.minSize + 1);
+        int channel = phase.firstChannel + random.nextInt(phase.lastChannel - phase.firstChannel + 1);
+        int flags = random.nextDouble() < phase.reliableRatio ? ENetPacketFlags.RELIABLE : 0;
+        message.putLong(0, now);
+        if (hosts[client.hostIndex].send(client.peer, (byte) channel, message, 0, size, flags) == 0) {
+            metrics.sent(size);
+        }
+    }
+
+    private void disconnectAll() {
+        stopping = true;
+        for (int i = 0; i < created; i++) {
+            Client client = clients[i];
+            if (!client.closed) {
+                hosts[client.hostIndex].disconnectPeer(client.peer);
+            }
+        }
+        long deadline = System.nanoTime() + DISCONNECT_GRACE_NANOS;
+        while (connectedClients > 0 && System.nanoTime() < deadline) {
+            serviceHosts();
+            LockSupport.parkNanos(MAX_PARK_NANOS);
+        }
+    }
+}
@@ -517,6 +517,7 @@ extern "C" {
         ENET_SOCKOPT_NODELAY   = 9,
         ENET_SOCKOPT_IPV6_V6ONLY = 10,
         ENET_SOCKOPT_TTL       = 11,
+        ENET_SOCKOPT_REUSEPORT = 12,
     } ENetSocketOption;
 
     typedef enum _ENetSocketShutdown {
@@ -824,6 +825,7 @@ extern "C" {
         size_t                duplicatePeers;     /**< optional number of allowed peers from duplicate IPs, defaults to ENET_PROTOCOL_MAXIMUM_PEER_ID */
         size_t                maximumPacketSize;  /**< the maximum allowable packet size that may be sent or received on a peer */
         size_t                maximumWaitingData; /**< the maximum aggregate amount of buffer space a peer may use waiting for packets to be delivered */
+        void *                data;               /**< Application private data, may be freely modified */
     } ENetHost;
 
     /**
@@ -5618,6 +5620,12 @@ extern "C" {
                 result = setsockopt(socket, SOL_SOCKET, SO_REUSEADDR, (char *)&value, sizeof(int));
                 break;
 
+            case ENET_SOCKOPT_REUSEPORT:
+                #ifdef SO_REUSEPORT
+                result = setsockopt(socket, SOL_SOCKET, SO_REUSEPORT, (char *)&value, sizeof(int));
+                #endif
+                break;
+
             case ENET_SOCKOPT_RCVBUF:
                 result = setsockopt(socket, SOL_SOCKET, SO_RCVBUF, (char *)&value, sizeof(int));
                 break;
@@ -5675,6 +5683,16 @@ extern "C" {
                 result = getsockopt(socket, IPPROTO_IP, IP_TTL, (char *)value, &len);
                 break;
 
+            case ENET_SOCKOPT_RCVBUF:
+                len = sizeof(int);
+                result = getsockopt(socket, SOL_SOCKET, SO_RCVBUF, (char *)value, &len);
+                break;
+
+            case ENET_SOCKOPT_SNDBUF:
+                len = sizeof(int);
+                result = getsockopt(socket, SOL_SOCKET, SO_SNDBUF, (char *)value, &len);
+                break;
+
             default:
                 break;
         }
@@ -6075,6 +6093,16 @@ extern "C" {
                 result = getsockopt(socket, IPPROTO_IP, IP_TTL, (char *)value, &len);
                 break;
 
+            case ENET_SOCKOPT_RCVBUF:
+                len = sizeof(int);
+                result = getsockopt(socket, SOL_SOCKET, SO_RCVBUF, (char *)value, &len);
+                break;
+
+            case ENET_SOCKOPT_SNDBUF:
+                len = sizeof(int);
+                result = getsockopt(socket, SOL_SOCKET, SO_SNDBUF, (char *)value, &len);
+                break;
+
             default:
                 break;
         }
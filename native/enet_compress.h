@@ -0,0 +1,277 @@
+// LZ4-style block compressor for ENetHost.compressor.
+//
+// Datagrams are gathered into one contiguous block and encoded as LZ4 block sequences:
+// a token (literal length << 4 | match length - 4), optional length extension bytes,
+// the literals, a 16-bit little-endian match offset and optional match length bytes.
+// ENet datagrams never exceed ENET_PROTOCOL_MAXIMUM_MTU, so 16-bit positions suffice.
+
+#ifndef ENET_COMPRESS_H
+#define ENET_COMPRESS_H
+
+#ifdef _WIN32
+#include <windows.h>
+#else
+#include <time.h>
+#endif
+
+#define LZ_MIN_MATCH 4
+#define LZ_LAST_LITERALS 5
+#define LZ_MATCH_LIMIT 12
+#define LZ_HASH_LOG 12
+#define LZ_HASH_SIZE (1 << LZ_HASH_LOG)
+#define LZ_MAX_OFFSET 65535
+
+typedef struct {
+    size_t threshold;
+    enet_uint8 scratch[ENET_PROTOCOL_MAXIMUM_MTU];
+    enet_uint16 table[LZ_HASH_SIZE];
+    // Counters read by ENetConnection.getCompressionStats() through statLoad; only the servicing thread writes
+    jlong packetsCompressed;
+    jlong packetsUncompressed;
+    jlong bytesIn;
+    jlong bytesOut;
+    jlong compressNanos;
+    jlong packetsDecompressed;
+    jlong decompressNanos;
+} LzContext;
+
+static enet_uint64 lzNanoTime(void) {
+#ifdef _WIN32
+    static LARGE_INTEGER frequency;
+    LARGE_INTEGER counter;
+    if (frequency.QuadPart == 0) {
+        QueryPerformanceFrequency(&frequency);
+    }
+    QueryPerformanceCounter(&counter);
+    return (enet_uint64)(counter.QuadPart * 1000000000.0 / frequency.QuadPart);
+#else
+    struct timespec now;
+    clock_gettime(CLOCK_MONOTONIC, &now);
+    return (enet_uint64)now.tv_sec * 1000000000ULL + (enet_uint64)now.tv_nsec;
+#endif
+}
+
+static enet_uint32 lzRead32(const enet_uint8 *p) {
+    enet_uint32 value;
+    memcpy(&value, p, sizeof(value));
+    return value;
+}
+
+static enet_uint32 lzHash(enet_uint32 value) {
+    return (value * 2654435761U) >> (32 - LZ_HASH_LOG);
+}
+
+// Writes the 255-run extension of a length field; returns NULL if it would not fit
+static enet_uint8 *lzWriteLength(enet_uint8 *op, const enet_uint8 *oend, size_t length) {
+    for (; length >= 255; length -= 255) {
+        if (op >= oend) {
+            return NULL;
+        }
+        *op++ = 255;
+    }
+    if (op >= oend) {
+        return NULL;
+    }
+    *op++ = (enet_uint8)length;
+    return op;
+}
+
+// Returns the compressed size, or 0 if the output would not fit in outLimit
+static size_t lzCompressBlock(LzContext *context, const enet_uint8 *src, size_t srcLength,
+    enet_uint8 *dst, size_t outLimit) {
+
+    const enet_uint8 *ip = src;
+    const enet_uint8 *anchor = src;
+    const enet_uint8 *end = src + srcLength;
+    const enet_uint8 *matchEnd = end - LZ_LAST_LITERALS;
+    const enet_uint8 *matchStartLimit = end - LZ_MATCH_LIMIT;
+    enet_uint8 *op = dst;
+    const enet_uint8 *oend = dst + outLimit;
+    size_t literals;
+
+    memset(context->table, 0, sizeof(context->table));
+
+    if (srcLength >= LZ_MATCH_LIMIT) {
+        ip++;
+        while (ip < matchStartLimit) {
+            enet_uint32 sequence = lzRead32(ip);
+            enet_uint32 h = lzHash(sequence);
+            const enet_uint8 *ref = src + context->table[h];
+            context->table[h] = (enet_uint16)(ip - src);
+
+            if (ref >= ip || ip - ref > LZ_MAX_OFFSET || lzRead32(ref) != sequence) {
+                ip++;
+                continue;
+            }
+
+            size_t matchLength = LZ_MIN_MATCH;
+            while (ip + matchLength < matchEnd && ref[matchLength] == ip[matchLength]) {
+                matchLength++;
+            }
+
+            literals = (size_t)(ip - anchor);
+            if (op + 1 + literals + 2 > oend) {
+                return 0;
+            }
+            enet_uint8 *token = op++;
+            *token = (enet_uint8)(((literals >= 15 ? 15 : literals) << 4) |
+                (matchLength - LZ_MIN_MATCH >= 15 ? 15 : matchLength - LZ_MIN_MATCH));
+            if (literals >= 15 && (op = lzWriteLength(op, oend, literals - 15)) == NULL) {
+                return 0;
+            }
+            if (op + literals + 2 > oend) {
+                return 0;
+            }
+            memcpy(op, anchor, literals);
+            op += literals;
+
+            enet_uint16 offset = (enet_uint16)(ip - ref);
+            *op++ = (enet_uint8)(offset & 0xFF);
+            *op++ = (enet_uint8)(offset >> 8);
+            if (matchLength - LZ_MIN_MATCH >= 15 &&
+                (op = lzWriteLength(op, oend, matchLength - LZ_MIN_MATCH - 15)) == NULL) {
+                return 0;
+            }
+
+            ip += matchLength;
+            anchor = ip;
+        }
+    }
+
+    literals = (size_t)(end - anchor);
+    if (op + 1 > oend) {
+        return 0;
+    }
+    *op++ = (enet_uint8)((literals >= 15 ? 15 : literals) << 4);
+    if (literals >= 15 && (op = lzWriteLength(op, oend, literals - 15)) == NULL) {
+        return 0;
+    }
+    if (op + literals > oend) {
+        return 0;
+    }
+    memcpy(op, anchor, literals);
+    op += literals;
+
+    return (size_t)(op - dst);
+}
+
+// Returns the decompressed size, or 0 if the input is malformed or does not fit
+static size_t lzDecompressBlock(const enet_uint8 *src, size_t srcLength, enet_uint8 *dst, size_t outLimit) {
+    const enet_uint8 *ip = src;
+    const enet_uint8 *iend = src + srcLength;
+    enet_uint8 *op = dst;
+    const enet_uint8 *oend = dst + outLimit;
+
+    while (ip < iend) {
+        enet_uint8 token = *ip++;
+        size_t literals = token >> 4;
+        if (literals == 15) {
+            enet_uint8 s;
+            do {
+                if (ip >= iend) {
+                    return 0;
+                }
+                s = *ip++;
+                literals += s;
+            } while (s == 255);
+        }
+        if (literals > (size_t)(iend - ip) || literals > (size_t)(oend - op)) {
+            return 0;
+        }
+        memcpy(op, ip, literals);
+        ip += literals;
+        op += literals;
+
+        if (ip >= iend) {
+            break;
+        }
+
+        if (iend - ip < 2) {
+            return 0;
+        }
+        size_t offset = (size_t)ip[0] | ((size_t)ip[1] << 8);
+        ip += 2;
+        if (offset == 0 || offset > (size_t)(op - dst)) {
+            return 0;
+        }
+
+        size_t matchLength = token & 15;
+        if (matchLength == 15) {
+            enet_uint8 s;
+            do {
+                if (ip >= iend) {
+                    return 0;
+                }
+                s = *ip++;
+                matchLength += s;
+            } while (s == 255);
+        }
+        matchLength += LZ_MIN_MATCH;
+        if (matchLength > (size_t)(oend - op)) {
+            return 0;
+        }
+
+        // Byte-wise so overlapping matches repeat correctly
+        const enet_uint8 *match = op - offset;
+        for (size_t i = 0; i < matchLength; i++) {
+            op[i] = match[i];
+        }
+        op += matchLength;
+    }
+
+    return (size_t)(op - dst);
+}
+
+static size_t ENET_CALLBACK lzCompress(void *contextPtr, const ENetBuffer *inBuffers, size_t inBufferCount,
+    size_t inLimit, enet_uint8 *outData, size_t outLimit) {
+
+    LzContext *context = (LzContext*)contextPtr;
+
+    if (inLimit < context->threshold || inLimit > sizeof(context->scratch)) {
+        statAdd(&context->packetsUncompressed, 1);
+        return 0;
+    }
+
+    enet_uint64 start = lzNanoTime();
+    size_t length = 0;
+    for (size_t i = 0; i < inBufferCount && length < inLimit; i++) {
+        size_t chunk = inBuffers[i].dataLength;
+        if (chunk > inLimit - length) {
+            chunk = inLimit - length;
+        }
+        memcpy(context->scratch + length, inBuffers[i].data, chunk);
+        length += chunk;
+    }
+
+    size_t compressed = lzCompressBlock(context, context->scratch, length, outData, outLimit);
+    statAdd(&context->compressNanos, (jlong)(lzNanoTime() - start));
+
+    if (compressed == 0 || compressed >= length) {
+        statAdd(&context->packetsUncompressed, 1);
+        return 0;
+    }
+
+    statAdd(&context->packetsCompressed, 1);
+    statAdd(&context->bytesIn, (jlong)length);
+    statAdd(&context->bytesOut, (jlong)compressed);
+    return compressed;
+}
+
+static size_t ENET_CALLBACK lzDecompress(void *contextPtr, const enet_uint8 *inData, size_t inLimit,
+    enet_uint8 *outData, size_t outLimit) {
+
+    LzContext *context = (LzContext*)contextPtr;
+    enet_uint64 start = lzNanoTime();
+    size_t length = lzDecompressBlock(inData, inLimit, outData, outLimit);
+    statAdd(&context->decompressNanos, (jlong)(lzNanoTime() - start));
+    if (length > 0) {
+        statAdd(&context->packetsDecompressed, 1);
+    }
+    return length;
+}
+
+static void ENET_CALLBACK lzDestroy(void *contextPtr) {
+    free(contextPtr);
+}
+
+#endif // ENET_COMPRESS_H
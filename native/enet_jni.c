@@ -21,13 +21,31 @@
 #include <netinet/in.h>
 #endif
 
-// Global reference to ENetEvent class
-static jclass eventClass = NULL;
-static jclass peerClass = NULL;
+// Counters written by the servicing thread and read from any thread
+#ifdef _WIN32
+static void statAdd(jlong *stat, jlong delta) {
+    InterlockedExchangeAdd64((volatile LONG64*)stat, delta);
+}
+
+static jlong statLoad(jlong *stat) {
+    return InterlockedCompareExchange64((volatile LONG64*)stat, 0, 0);
+}
+#else
+// A single writer, so a relaxed store of the new total is enough
+static void statAdd(jlong *stat, jlong delta) {
+    __atomic_store_n(stat, *stat + delta, __ATOMIC_RELAXED);
+}
+
+static jlong statLoad(jlong *stat) {
+    return __atomic_load_n(stat, __ATOMIC_RELAXED);
+}
+#endif
+
+#include "enet_compress.h"
+
+// Global references to the classes created from native code
 static jclass addressClass = NULL;
 static jclass packetClass = NULL;
-static jmethodID eventConstructor = NULL;
-static jmethodID peerConstructor = NULL;
 static jmethodID addressConstructor = NULL;
 static jmethodID packetConstructor = NULL;
 
@@ -60,18 +78,18 @@ jobject createJavaAddress(JNIEnv *env, ENetAddress *address) {
     return (*env)->NewObject(env, addressClass, addressConstructor, host, port);
 }
 
-// Helper function to create Java ENetPeer
-jobject createJavaPeer(JNIEnv *env, ENetPeer *peer) {
-    jobject address = createJavaAddress(env, &peer->address);
-    jlong handle = (jlong)(intptr_t)peer;
+// Helper function to wrap packet->data in a direct ByteBuffer without copying
+jobject createPacketBuffer(JNIEnv *env, ENetPacket *packet) {
+    static enet_uint8 empty[1];
+    void *data = packet->dataLength > 0 && packet->data ? (void*)packet->data : (void*)empty;
     
-    return (*env)->NewObject(env, peerClass, peerConstructor, handle, address);
+    return (*env)->NewDirectByteBuffer(env, data, (jlong)packet->dataLength);
 }
 
 // Helper function to create Java ENetPacket
+// The Java object takes ownership of the packet and destroys it on release()
 jobject createJavaPacket(JNIEnv *env, ENetPacket *packet) {
-    jbyteArray data = (*env)->NewByteArray(env, packet->dataLength);
-    (*env)->SetByteArrayRegion(env, data, 0, packet->dataLength, (jbyte*)packet->data);
+    jobject data = createPacketBuffer(env, packet);
     
     jlong handle = (jlong)(intptr_t)packet;
     jint flags = packet->flags;
@@ -79,28 +97,6 @@ jobject createJavaPacket(JNIEnv *env, ENetPacket *packet) {
     return (*env)->NewObject(env, packetClass, packetConstructor, handle, data, flags);
 }
 
-// Helper function to create Java ENetEvent
-jobject createJavaEvent(JNIEnv *env, ENetEvent *event) {
-    jobject peer = NULL;
-    jobject packet = NULL;
-    
-    if (event->peer) {
-        peer = createJavaPeer(env, event->peer);
-    }
-    
-    if (event->packet) {
-        packet = createJavaPacket(env, event->packet);
-    }
-    
-    return (*env)->NewObject(env, eventClass, eventConstructor,
-        (jint)event->type,
-        peer,
-        (jbyte)event->channelID,
-        (jint)event->data,
-        packet
-    );
-}
-
 JNIEXPORT jint JNICALL
 Java_com_enet_ENetConnection_nativeInitialize(JNIEnv *env, jclass clazz) {
     return enet_initialize();
@@ -170,6 +166,54 @@ Java_com_enet_ENetConnection_nativeCreateHostBound(JNIEnv *env, jclass clazz,
     return (jlong)(intptr_t)hostPtr;
 }
 
+// Creates a host whose socket has SO_REUSEPORT set before binding, so several hosts can
+// share one address/port and the kernel spreads clients across them
+JNIEXPORT jlong JNICALL
+Java_com_enet_ENetConnection_nativeCreateHostReusePort(JNIEnv *env, jclass clazz,
+    jstring host, jint port, jint maxClients, jint maxChannels,
+    jint incomingBandwidth, jint outgoingBandwidth) {
+    
+    ENetAddress address = {0};
+    
+    if (host != NULL) {
+        const char *hostStr = (*env)->GetStringUTFChars(env, host, NULL);
+        if (hostStr != NULL) {
+            if (strcmp(hostStr, "0.0.0.0") == 0 || strcmp(hostStr, "::") == 0 || strcmp(hostStr, "") == 0) {
+                address.host = in6addr_any;
+            } else {
+                if (enet_address_set_host(&address, hostStr) < 0) {
+                    (*env)->ReleaseStringUTFChars(env, host, hostStr);
+                    return 0; // Failed to set host
+                }
+            }
+            (*env)->ReleaseStringUTFChars(env, host, hostStr);
+        }
+    } else {
+        address.host = in6addr_any;
+    }
+    
+    address.port = port;
+    
+    // Create unbound, then bind ourselves once the option is in place
+    ENetHost *hostPtr = enet_host_create(NULL, maxClients, maxChannels,
+        incomingBandwidth, outgoingBandwidth);
+    if (hostPtr == NULL) {
+        return 0;
+    }
+    
+    if (enet_socket_set_option(hostPtr->socket, ENET_SOCKOPT_REUSEPORT, 1) < 0 ||
+        enet_socket_bind(hostPtr->socket, &address) < 0) {
+        enet_host_destroy(hostPtr);
+        return 0;
+    }
+    
+    if (enet_socket_get_address(hostPtr->socket, &hostPtr->address) < 0) {
+        hostPtr->address = address;
+    }
+    
+    return (jlong)(intptr_t)hostPtr;
+}
+
 JNIEXPORT jlong JNICALL
 Java_com_enet_ENetConnection_nativeConnect(JNIEnv *env, jobject thiz,
     jlong hostHandle, jstring host, jint port, jint channelCount, jint data) {
@@ -188,118 +232,1320 @@ Java_com_enet_ENetConnection_nativeConnect(JNIEnv *env, jobject thiz,
     return (jlong)(intptr_t)peer;
 }
 
-JNIEXPORT jobject JNICALL
-Java_com_enet_ENetConnection_nativeService(JNIEnv *env, jobject thiz,
-    jlong hostHandle, jint timeoutMillis) {
+// Network emulator attached through the host's intercept callback. Datagrams from an address
+// with conditions set are dropped, duplicated or held in a queue ordered by release time, and
+// due datagrams are handed to ENet right before the host is next serviced. Only what the host
+// receives is conditioned: to emulate both directions of a link, set conditions on both ends.
+// The emulator hangs off host->data, and everything but reading the stats runs on the thread
+// that services the host.
+#define EMULATOR_RULES 16
+#define EMULATOR_MAX_QUEUED 65536
+
+// Layout of the params array of nativeSetNetworkConditions, see ENetNetworkConditions
+enum {
+    EMU_LATENCY, EMU_JITTER, EMU_LOSS, EMU_DUPLICATE, EMU_REORDER, EMU_REORDER_DELAY,
+    EMU_BANDWIDTH, EMU_BUFFER, EMU_PARAMS
+};
+
+// Layout of the stats array of nativeNetworkEmulatorStats, see ENetNetworkEmulatorStats
+enum {
+    EMU_RECEIVED, EMU_DELIVERED, EMU_LOST, EMU_DUPLICATED, EMU_REORDERED, EMU_OVERFLOWED,
+    EMU_DELAY_TOTAL, EMU_QUEUED, EMU_STATS
+};
+
+typedef struct {
+    enet_uint64 due;
+    enet_uint64 sequence;
+    ENetAddress from;
+    size_t length;
+    enet_uint8 data[];
+} EmulatedDatagram;
+
+typedef struct {
+    int used;
+    ENetAddress address;
+    jint params[EMU_PARAMS];
+    enet_uint64 linkFreeMicros;
+} EmulatorRule;
+
+typedef struct {
+    EmulatorRule fallback;
+    EmulatorRule rules[EMULATOR_RULES];
+    // Binary min-heap on (due, sequence), so equal release times keep arrival order
+    EmulatedDatagram **queue;
+    size_t queued;
+    size_t capacity;
+    enet_uint64 sequence;
+    enet_uint64 clock;
+    enet_uint32 lastTime;
+    enet_uint32 random;
+    // Written by the servicing thread only, read from any thread through statLoad
+    jlong stats[EMU_STATS];
+} Emulator;
+
+#ifdef _WIN32
+static void publishEmulator(ENetHost *host, Emulator *emulator) {
+    InterlockedExchangePointer(&host->data, emulator);
+}
+
+static Emulator *loadEmulator(ENetHost *host) {
+    return (Emulator*)InterlockedCompareExchangePointer(&host->data, NULL, NULL);
+}
+#else
+static void publishEmulator(ENetHost *host, Emulator *emulator) {
+    __atomic_store_n(&host->data, emulator, __ATOMIC_RELEASE);
+}
+
+static Emulator *loadEmulator(ENetHost *host) {
+    return (Emulator*)__atomic_load_n(&host->data, __ATOMIC_ACQUIRE);
+}
+#endif
+
+static int ENET_CALLBACK emulatorIntercept(ENetHost *host, void *event);
+
+// On the servicing thread, which is the only one that installs or removes the emulator
+static Emulator *findEmulator(ENetHost *host) {
+    return host->intercept == emulatorIntercept ? (Emulator*)host->data : NULL;
+}
+
+// Milliseconds on a 64-bit clock, so release times never wrap
+static enet_uint64 emulatorNow(Emulator *emulator) {
+    enet_uint32 now = enet_time_get();
+    emulator->clock += (enet_uint32)(now - emulator->lastTime);
+    emulator->lastTime = now;
+    return emulator->clock;
+}
+
+static enet_uint32 emulatorRandom(Emulator *emulator) {
+    enet_uint32 x = emulator->random;
+    x ^= x << 13;
+    x ^= x >> 17;
+    x ^= x << 5;
+    emulator->random = x;
+    return x;
+}
+
+// True with the given probability in parts per million
+static int emulatorChance(Emulator *emulator, jint ppm) {
+    return ppm > 0 && emulatorRandom(emulator) % 1000000 < (enet_uint32)ppm;
+}
+
+static EmulatorRule *emulatorRuleFor(Emulator *emulator, const ENetAddress *from) {
+    for (int i = 0; i < EMULATOR_RULES; i++) {
+        EmulatorRule *rule = &emulator->rules[i];
+        if (rule->used && memcmp(&rule->address.host, &from->host, sizeof(from->host)) == 0 &&
+            (rule->address.port == 0 || rule->address.port == from->port)) {
+            return rule;
+        }
+    }
+    return emulator->fallback.used ? &emulator->fallback : NULL;
+}
+
+static int datagramBefore(const EmulatedDatagram *a, const EmulatedDatagram *b) {
+    return a->due < b->due || (a->due == b->due && a->sequence < b->sequence);
+}
+
+static int emulatorEnqueue(Emulator *emulator, const ENetAddress *from, const enet_uint8 *data,
+    size_t length, enet_uint64 due) {
     
-    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
-    ENetEvent event;
+    if (emulator->queued >= EMULATOR_MAX_QUEUED) {
+        return -1;
+    }
+    if (emulator->queued == emulator->capacity) {
+        size_t capacity = emulator->capacity == 0 ? 256 : emulator->capacity * 2;
+        EmulatedDatagram **queue = (EmulatedDatagram**)realloc(emulator->queue, capacity * sizeof(EmulatedDatagram*));
+        if (queue == NULL) {
+            return -1;
+        }
+        emulator->queue = queue;
+        emulator->capacity = capacity;
+    }
+    EmulatedDatagram *datagram = (EmulatedDatagram*)malloc(sizeof(EmulatedDatagram) + length);
+    if (datagram == NULL) {
+        return -1;
+    }
+    datagram->due = due;
+    datagram->sequence = emulator->sequence++;
+    datagram->from = *from;
+    datagram->length = length;
+    memcpy(datagram->data, data, length);
     
-    int result = enet_host_service(hostPtr, &event, timeoutMillis);
+    size_t index = emulator->queued++;
+    statAdd(&emulator->stats[EMU_QUEUED], 1);
+    while (index > 0) {
+        size_t parent = (index - 1) / 2;
+        if (!datagramBefore(datagram, emulator->queue[parent])) {
+            break;
+        }
+        emulator->queue[index] = emulator->queue[parent];
+        index = parent;
+    }
+    emulator->queue[index] = datagram;
+    return 0;
+}
+
+static EmulatedDatagram *emulatorDequeue(Emulator *emulator) {
+    EmulatedDatagram *first = emulator->queue[0];
+    EmulatedDatagram *last = emulator->queue[--emulator->queued];
+    size_t index = 0;
+    statAdd(&emulator->stats[EMU_QUEUED], -1);
     
-    if (result > 0) {
-        return createJavaEvent(env, &event);
+    for (;;) {
+        size_t child = index * 2 + 1;
+        if (child >= emulator->queued) {
+            break;
+        }
+        if (child + 1 < emulator->queued && datagramBefore(emulator->queue[child + 1], emulator->queue[child])) {
+            child++;
+        }
+        if (!datagramBefore(emulator->queue[child], last)) {
+            break;
+        }
+        emulator->queue[index] = emulator->queue[child];
+        index = child;
+    }
+    if (emulator->queued > 0) {
+        emulator->queue[index] = last;
+    }
+    return first;
+}
+
+// Milliseconds one copy of a datagram is held back, or -1 if the bottleneck buffer is full.
+// A bandwidth cap serializes datagrams through a link that frees up at linkFreeMicros; the
+// latency, jitter and reordering delay are added on top of the time spent queued for it.
+static jlong emulatorDelay(Emulator *emulator, EmulatorRule *rule, enet_uint64 now, size_t length) {
+    const jint *params = rule->params;
+    enet_uint64 serialization = 0;
+    
+    if (params[EMU_BANDWIDTH] > 0) {
+        enet_uint64 nowMicros = now * 1000;
+        enet_uint64 start = rule->linkFreeMicros > nowMicros ? rule->linkFreeMicros : nowMicros;
+        enet_uint64 backlog = (start - nowMicros) * (enet_uint64)params[EMU_BANDWIDTH] / 1000000;
+        if (backlog + length > (enet_uint64)params[EMU_BUFFER]) {
+            return -1;
+        }
+        rule->linkFreeMicros = start + (enet_uint64)length * 1000000 / (enet_uint64)params[EMU_BANDWIDTH];
+        serialization = (rule->linkFreeMicros - nowMicros + 999) / 1000;
     }
     
-    return NULL;
+    jlong latency = params[EMU_LATENCY];
+    if (params[EMU_JITTER] > 0) {
+        latency += (jlong)(emulatorRandom(emulator) % (2 * (enet_uint32)params[EMU_JITTER] + 1)) - params[EMU_JITTER];
+        if (latency < 0) {
+            latency = 0;
+        }
+    }
+    if (emulatorChance(emulator, params[EMU_REORDER])) {
+        latency += params[EMU_REORDER_DELAY];
+        statAdd(&emulator->stats[EMU_REORDERED], 1);
+    }
+    return (jlong)serialization + latency;
+}
+
+static int ENET_CALLBACK emulatorIntercept(ENetHost *host, void *event) {
+    Emulator *emulator = findEmulator(host);
+    
+    // Datagrams too short for a header pass untouched
+    if (emulator == NULL || host->receivedDataLength < sizeof(ENetProtocolHeaderMinimal)) {
+        return 0;
+    }
+    EmulatorRule *rule = emulatorRuleFor(emulator, &host->receivedAddress);
+    if (rule == NULL) {
+        return 0;
+    }
+    
+    enet_uint64 now = emulatorNow(emulator);
+    statAdd(&emulator->stats[EMU_RECEIVED], 1);
+    if (emulatorChance(emulator, rule->params[EMU_LOSS])) {
+        statAdd(&emulator->stats[EMU_LOST], 1);
+        return 1;
+    }
+    
+    int copies = 1;
+    if (emulatorChance(emulator, rule->params[EMU_DUPLICATE])) {
+        statAdd(&emulator->stats[EMU_DUPLICATED], 1);
+        copies = 2;
+    }
+    
+    int passed = 0;
+    for (int copy = 0; copy < copies; copy++) {
+        jlong delay = emulatorDelay(emulator, rule, now, host->receivedDataLength);
+        if (delay < 0 || (delay > 0 && emulatorEnqueue(emulator, &host->receivedAddress,
+                host->receivedData, host->receivedDataLength, now + (enet_uint64)delay) < 0)) {
+            statAdd(&emulator->stats[EMU_OVERFLOWED], 1);
+        } else if (delay == 0 && !passed) {
+            // Nothing to wait for: let ENet handle the datagram where it lies
+            statAdd(&emulator->stats[EMU_DELIVERED], 1);
+            passed = 1;
+        } else if (delay == 0) {
+            emulatorEnqueue(emulator, &host->receivedAddress, host->receivedData, host->receivedDataLength, now);
+        } else {
+            statAdd(&emulator->stats[EMU_DELAY_TOTAL], delay);
+        }
+    }
+    return passed ? 0 : 1;
+}
+
+// Hands every datagram whose release time has come to ENet, as if it had just been received,
+// and stops early when one completes an event, like ENet's own receive step. Nothing is
+// released while earlier events still wait to be dispatched, so a disconnect cannot overtake them.
+static int emulatorRelease(ENetHost *host, ENetEvent *event) {
+    if (host->intercept != emulatorIntercept || !enet_list_empty(&host->dispatchQueue)) {
+        return 0;
+    }
+    Emulator *emulator = findEmulator(host);
+    if (emulator == NULL || emulator->queued == 0) {
+        return 0;
+    }
+    
+    enet_uint64 now = emulatorNow(emulator);
+    int result = 0;
+    host->serviceTime = enet_time_get();
+    event->type = ENET_EVENT_TYPE_NONE;
+    event->peer = NULL;
+    event->packet = NULL;
+    while (result == 0 && emulator->queued > 0 && emulator->queue[0]->due <= now) {
+        EmulatedDatagram *datagram = emulatorDequeue(emulator);
+        host->receivedAddress = datagram->from;
+        host->receivedData = datagram->data;
+        host->receivedDataLength = datagram->length;
+        statAdd(&emulator->stats[EMU_DELIVERED], 1);
+        result = enet_protocol_handle_incoming_commands(host, event) > 0 && event->type != ENET_EVENT_TYPE_NONE;
+        free(datagram);
+    }
+    host->receivedData = NULL;
+    host->receivedDataLength = 0;
+    return result;
+}
+
+// Milliseconds until the emulator next releases a datagram, or maxTimeout
+static enet_uint32 emulatorNextRelease(ENetHost *host, enet_uint32 maxTimeout) {
+    if (host->intercept != emulatorIntercept) {
+        return maxTimeout;
+    }
+    Emulator *emulator = findEmulator(host);
+    if (emulator == NULL || emulator->queued == 0) {
+        return maxTimeout;
+    }
+    enet_uint64 now = emulatorNow(emulator);
+    enet_uint64 due = emulator->queue[0]->due;
+    if (due <= now) {
+        return 0;
+    }
+    return due - now < maxTimeout ? (enet_uint32)(due - now) : maxTimeout;
+}
+
+static void emulatorDestroy(ENetHost *host) {
+    Emulator *emulator = findEmulator(host);
+    if (emulator == NULL) {
+        return;
+    }
+    publishEmulator(host, NULL);
+    host->intercept = NULL;
+    for (size_t i = 0; i < emulator->queued; i++) {
+        free(emulator->queue[i]);
+    }
+    free(emulator->queue);
+    free(emulator);
 }
 
+static int serviceHost(ENetHost *host, ENetEvent *event, enet_uint32 timeoutMillis) {
+    if (emulatorRelease(host, event)) {
+        return 1;
+    }
+    return enet_host_service(host, event, timeoutMillis);
+}
+
+// Sets the conditions for datagrams from address:port (port 0 for any port), or for every other
+// address when address is null. A null params array removes them. Installs the emulator on first use.
 JNIEXPORT jint JNICALL
-Java_com_enet_ENetConnection_nativeSend(JNIEnv *env, jobject thiz,
-    jlong hostHandle, jlong peerHandle, jbyte channelID, jbyteArray data, jint flags) {
+Java_com_enet_ENetConnection_nativeSetNetworkConditions(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jstring address, jint port, jintArray params) {
     
     ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
-    ENetPeer *peer = (ENetPeer*)(intptr_t)peerHandle;
+    Emulator *emulator = findEmulator(hostPtr);
+    ENetAddress target = {0};
     
-    jsize len = (*env)->GetArrayLength(env, data);
-    jbyte *dataPtr = (*env)->GetByteArrayElements(env, data, NULL);
+    if (address != NULL) {
+        const char *addressStr = (*env)->GetStringUTFChars(env, address, NULL);
+        int resolved = enet_address_set_host(&target, addressStr);
+        (*env)->ReleaseStringUTFChars(env, address, addressStr);
+        if (resolved < 0) {
+            return -1;
+        }
+        target.port = (enet_uint16)port;
+    }
     
-    ENetPacket *packet = enet_packet_create(dataPtr, len, flags);
-    int result = enet_peer_send(peer, channelID, packet);
+    if (emulator == NULL) {
+        if (params == NULL) {
+            return 0;
+        }
+        emulator = (Emulator*)calloc(1, sizeof(Emulator));
+        if (emulator == NULL) {
+            return -1;
+        }
+        emulator->lastTime = enet_time_get();
+        emulator->random = (enet_uint32)((uintptr_t)hostPtr >> 4) ^ emulator->lastTime ^ 0x9E3779B9u;
+        if (emulator->random == 0) {
+            emulator->random = 1;
+        }
+        publishEmulator(hostPtr, emulator);
+        enet_host_set_intercept(hostPtr, emulatorIntercept);
+    }
     
-    (*env)->ReleaseByteArrayElements(env, data, dataPtr, JNI_ABORT);
+    EmulatorRule *rule = NULL;
+    if (address == NULL) {
+        rule = &emulator->fallback;
+    } else {
+        for (int i = 0; i < EMULATOR_RULES && rule == NULL; i++) {
+            EmulatorRule *candidate = &emulator->rules[i];
+            if (candidate->used && memcmp(&candidate->address.host, &target.host, sizeof(target.host)) == 0 &&
+                candidate->address.port == target.port) {
+                rule = candidate;
+            }
+        }
+        for (int i = 0; i < EMULATOR_RULES && rule == NULL && params != NULL; i++) {
+            if (!emulator->rules[i].used) {
+                rule = &emulator->rules[i];
+            }
+        }
+        if (rule == NULL) {
+            return params == NULL ? 0 : -1;
+        }
+    }
     
-    if (result < 0) {
-        enet_packet_destroy(packet);
-        return -1;
+    if (params == NULL) {
+        rule->used = 0;
+        return 0;
     }
+    (*env)->GetIntArrayRegion(env, params, 0, EMU_PARAMS, rule->params);
+    rule->address = target;
+    rule->linkFreeMicros = 0;
+    rule->used = 1;
     
     return 0;
 }
 
-JNIEXPORT void JNICALL
-Java_com_enet_ENetConnection_nativeBroadcast(JNIEnv *env, jobject thiz,
-    jlong hostHandle, jbyte channelID, jbyteArray data, jint flags) {
-    
+JNIEXPORT jboolean JNICALL
+Java_com_enet_ENetConnection_nativeNetworkEmulatorStats(JNIEnv *env, jobject thiz, jlong hostHandle, jlongArray stats) {
     ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    Emulator *emulator = loadEmulator(hostPtr);
     
-    jsize len = (*env)->GetArrayLength(env, data);
-    jbyte *dataPtr = (*env)->GetByteArrayElements(env, data, NULL);
+    if (emulator == NULL) {
+        return JNI_FALSE;
+    }
     
-    ENetPacket *packet = enet_packet_create(dataPtr, len, flags);
-    enet_host_broadcast(hostPtr, channelID, packet);
+    jlong values[EMU_STATS];
+    for (int i = 0; i < EMU_STATS; i++) {
+        values[i] = statLoad(&emulator->stats[i]);
+    }
+    (*env)->SetLongArrayRegion(env, stats, 0, EMU_STATS, values);
     
-    (*env)->ReleaseByteArrayElements(env, data, dataPtr, JNI_ABORT);
+    return JNI_TRUE;
 }
 
-JNIEXPORT void JNICALL
-Java_com_enet_ENetConnection_nativeFlush(JNIEnv *env, jobject thiz, jlong hostHandle) {
+// Services the host once. The event header goes into eventFields
+// {type, peer handle, peer ID, channel ID, data}; the packet, if any, is returned.
+JNIEXPORT jobject JNICALL
+Java_com_enet_ENetConnection_nativeService(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jint timeoutMillis, jlongArray eventFields) {
+    
     ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
-    enet_host_flush(hostPtr);
+    ENetEvent event;
+    jlong fields[5] = {0, 0, -1, 0, 0};
+    
+    int result = serviceHost(hostPtr, &event, timeoutMillis);
+    
+    if (result > 0) {
+        fields[0] = (jlong)event.type;
+        fields[1] = (jlong)(intptr_t)event.peer;
+        fields[2] = event.peer ? (jlong)event.peer->incomingPeerID : -1;
+        fields[3] = (jlong)event.channelID;
+        fields[4] = (jlong)(jint)event.data;
+    }
+    (*env)->SetLongArrayRegion(env, eventFields, 0, 5, fields);
+    
+    if (result > 0 && event.packet) {
+        return createJavaPacket(env, event.packet);
+    }
+    
+    return NULL;
 }
 
-JNIEXPORT void JNICALL
-Java_com_enet_ENetConnection_nativeDisconnectPeer(JNIEnv *env, jobject thiz,
-    jlong hostHandle, jlong peerHandle, jint data) {
+// Like nativeService, but copies a payload that fits into the direct buffer scratch and destroys
+// the packet, so no Java object is created. eventFields gets two more entries: {..., payload
+// length or -1 if not copied, packet flags}. Larger payloads are returned as a packet.
+JNIEXPORT jobject JNICALL
+Java_com_enet_ENetConnection_nativeServiceInto(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jint timeoutMillis, jlongArray eventFields, jobject scratch) {
+    
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    enet_uint8 *out = (enet_uint8*)(*env)->GetDirectBufferAddress(env, scratch);
+    jlong capacity = (*env)->GetDirectBufferCapacity(env, scratch);
+    ENetEvent event;
+    jlong fields[7] = {0, 0, -1, 0, 0, -1, 0};
+    jobject packet = NULL;
+    
+    int result = serviceHost(hostPtr, &event, timeoutMillis);
+    
+    if (result > 0) {
+        fields[0] = (jlong)event.type;
+        fields[1] = (jlong)(intptr_t)event.peer;
+        fields[2] = event.peer ? (jlong)event.peer->incomingPeerID : -1;
+        fields[3] = (jlong)event.channelID;
+        fields[4] = (jlong)(jint)event.data;
+        
+        if (event.packet) {
+            fields[6] = (jlong)event.packet->flags;
+            if (out != NULL && (jlong)event.packet->dataLength <= capacity) {
+                memcpy(out, event.packet->data, event.packet->dataLength);
+                fields[5] = (jlong)event.packet->dataLength;
+                enet_packet_destroy(event.packet);
+            } else {
+                packet = createJavaPacket(env, event.packet);
+            }
+        }
+    }
+    (*env)->SetLongArrayRegion(env, eventFields, 0, 7, fields);
     
+    return packet;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativePeerID(JNIEnv *env, jclass clazz, jlong peerHandle) {
     ENetPeer *peer = (ENetPeer*)(intptr_t)peerHandle;
-    enet_peer_disconnect(peer, data);
+    return (jint)peer->incomingPeerID;
 }
 
-JNIEXPORT void JNICALL
-Java_com_enet_ENetConnection_nativeDestroy(JNIEnv *env, jobject thiz, jlong hostHandle) {
-    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
-    if (hostPtr) {
-        enet_host_destroy(hostPtr);
+JNIEXPORT jobject JNICALL
+Java_com_enet_ENetConnection_nativePeerAddress(JNIEnv *env, jclass clazz, jlong peerHandle) {
+    ENetPeer *peer = (ENetPeer*)(intptr_t)peerHandle;
+    return createJavaAddress(env, &peer->address);
+}
+
+// Batch event record layout, mirrored by com.enet.ENetEventBatch:
+//   0  int   type            4  int   peerID (incomingPeerID)
+//   8  long  peer handle    16  long  packet handle (0 when the payload is inlined)
+//  24  int   data           28  int   packet flags
+//  32  int   data length    36  byte  channel ID
+//  38  short port           40  byte[16] host (IPv6 / IPv4-mapped)
+//  56  payload (only when inlined), padded to 8 bytes
+#define BATCH_HEADER_SIZE 56
+#define BATCH_ALIGN(n) (((n) + 7) & ~((size_t)7))
+
+// Writes one event into the batch buffer. The payload is copied inline and the
+// packet destroyed when it fits; otherwise the packet handle is handed to Java.
+static size_t writeBatchEvent(ENetEvent *event, enet_uint8 *out, size_t remaining) {
+    enet_uint32 dataLength = event->packet ? (enet_uint32)event->packet->dataLength : 0;
+    size_t recordSize = BATCH_HEADER_SIZE;
+    jlong packetHandle = 0;
+
+    memset(out, 0, BATCH_HEADER_SIZE);
+
+    if (event->packet) {
+        if (BATCH_HEADER_SIZE + BATCH_ALIGN(dataLength) <= remaining) {
+            memcpy(out + BATCH_HEADER_SIZE, event->packet->data, dataLength);
+            recordSize += BATCH_ALIGN(dataLength);
+            enet_packet_destroy(event->packet);
+        } else {
+            packetHandle = (jlong)(intptr_t)event->packet;
+        }
     }
+
+    *(jint*)(out + 0) = (jint)event->type;
+    *(jint*)(out + 4) = event->peer ? (jint)event->peer->incomingPeerID : -1;
+    *(jlong*)(out + 8) = (jlong)(intptr_t)event->peer;
+    *(jlong*)(out + 16) = packetHandle;
+    *(jint*)(out + 24) = (jint)event->data;
+    *(jint*)(out + 28) = event->packet ? (jint)event->packet->flags : 0;
+    *(jint*)(out + 32) = (jint)dataLength;
+    *(jbyte*)(out + 36) = (jbyte)event->channelID;
+    if (event->peer) {
+        *(jshort*)(out + 38) = (jshort)event->peer->address.port;
+        memcpy(out + 40, &event->peer->address.host, 16);
+    }
+
+    return recordSize;
 }
 
-JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
-    JNIEnv *env;
-    
-    if ((*vm)->GetEnv(vm, (void**)&env, JNI_VERSION_1_8) != JNI_OK) {
-        return JNI_ERR;
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativeServiceBatch(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jint timeoutMillis, jobject buffer, jint maxEvents) {
+
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    enet_uint8 *out = (enet_uint8*)(*env)->GetDirectBufferAddress(env, buffer);
+    jlong capacity = (*env)->GetDirectBufferCapacity(env, buffer);
+    size_t offset = 0;
+    jint count = 0;
+    ENetEvent event;
+
+    if (out == NULL || capacity < BATCH_HEADER_SIZE) {
+        return -1;
     }
-    
-    // Cache class references
-    eventClass = (*env)->FindClass(env, "com/enet/ENetEvent");
-    peerClass = (*env)->FindClass(env, "com/enet/ENetPeer");
-    addressClass = (*env)->FindClass(env, "com/enet/ENetAddress");
-    packetClass = (*env)->FindClass(env, "com/enet/ENetPacket");
-    
-    if (!eventClass || !peerClass || !addressClass || !packetClass) {
-        return JNI_ERR;
+
+    int result = serviceHost(hostPtr, &event, timeoutMillis);
+
+    while (result > 0) {
+        offset += writeBatchEvent(&event, out + offset, (size_t)capacity - offset);
+        count++;
+
+        if (count >= maxEvents || (size_t)capacity - offset < BATCH_HEADER_SIZE) {
+            break;
+        }
+        result = enet_host_check_events(hostPtr, &event);
     }
-    
-    eventClass = (jclass)(*env)->NewGlobalRef(env, eventClass);
-    peerClass = (jclass)(*env)->NewGlobalRef(env, peerClass);
-    addressClass = (jclass)(*env)->NewGlobalRef(env, addressClass);
-    packetClass = (jclass)(*env)->NewGlobalRef(env, packetClass);
-    
-    // Cache constructor method IDs
-    jclass eventClassLocal = (*env)->FindClass(env, "com/enet/ENetEvent");
-    eventConstructor = (*env)->GetMethodID(env, eventClassLocal, "<init>", "(ILcom/enet/ENetPeer;BILcom/enet/ENetPacket;)V");
-    
-    jclass peerClassLocal = (*env)->FindClass(env, "com/enet/ENetPeer");
-    peerConstructor = (*env)->GetMethodID(env, peerClassLocal, "<init>", "(JLcom/enet/ENetAddress;)V");
-    
+
+    return result < 0 && count == 0 ? -1 : count;
+}
+
+JNIEXPORT jbyteArray JNICALL
+Java_com_enet_ENetConnection_nativeTakePacketData(JNIEnv *env, jclass clazz, jlong packetHandle) {
+    ENetPacket *packet = (ENetPacket*)(intptr_t)packetHandle;
+
+    jbyteArray data = (*env)->NewByteArray(env, packet->dataLength);
+    (*env)->SetByteArrayRegion(env, data, 0, packet->dataLength, (jbyte*)packet->data);
+    enet_packet_destroy(packet);
+
+    return data;
+}
+
+JNIEXPORT jobject JNICALL
+Java_com_enet_ENetConnection_nativePacketBuffer(JNIEnv *env, jclass clazz, jlong packetHandle) {
+    ENetPacket *packet = (ENetPacket*)(intptr_t)packetHandle;
+    return createPacketBuffer(env, packet);
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativePacketDestroy(JNIEnv *env, jclass clazz, jlong packetHandle) {
+    ENetPacket *packet = (ENetPacket*)(intptr_t)packetHandle;
+    if (packet) {
+        enet_packet_destroy(packet);
+    }
+}
+
+// Creates a packet straight from a Java byte[] region with a single copy into the packet allocation
+static ENetPacket *createPacketFromArrayRegion(JNIEnv *env, jbyteArray data, jint offset, jint length, jint flags) {
+    ENetPacket *packet = enet_packet_create(NULL, length, flags & ~ENET_PACKET_FLAG_NO_ALLOCATE);
+    
+    if (packet != NULL) {
+        (*env)->GetByteArrayRegion(env, data, offset, length, (jbyte*)packet->data);
+    }
+    
+    return packet;
+}
+
+static ENetPacket *createPacketFromArray(JNIEnv *env, jbyteArray data, jint flags) {
+    return createPacketFromArrayRegion(env, data, 0, (*env)->GetArrayLength(env, data), flags);
+}
+
+// Off-heap slab registered by com.enet.ENetBufferPool. Packets built on a slot use
+// ENET_PACKET_FLAG_NO_ALLOCATE and hand the slot back to Java from their freeCallback.
+typedef struct {
+    jobject pool;
+    enet_uint8 *base;
+    size_t slotSize;
+    size_t slotCount;
+} BufferPool;
+
+#define MAX_BUFFER_POOLS 64
+static BufferPool *volatile bufferPools[MAX_BUFFER_POOLS];
+static JavaVM *javaVM = NULL;
+static jmethodID poolReleaseMethod = NULL;
+
+static BufferPool *findBufferPool(const enet_uint8 *address) {
+    for (int i = 0; i < MAX_BUFFER_POOLS; i++) {
+        BufferPool *pool = bufferPools[i];
+        if (pool && address >= pool->base && address < pool->base + pool->slotSize * pool->slotCount) {
+            return pool;
+        }
+    }
+    return NULL;
+}
+
+static void ENET_CALLBACK poolPacketFreed(void *packetPtr) {
+    ENetPacket *packet = (ENetPacket*)packetPtr;
+    BufferPool *pool = (BufferPool*)packet->userData;
+    JNIEnv *env;
+    
+    if ((*javaVM)->GetEnv(javaVM, (void**)&env, JNI_VERSION_1_8) != JNI_OK &&
+        (*javaVM)->AttachCurrentThreadAsDaemon(javaVM, (void**)&env, NULL) != JNI_OK) {
+        return;
+    }
+    
+    jint slot = (jint)((packet->data - pool->base) / pool->slotSize);
+    (*env)->CallVoidMethod(env, pool->pool, poolReleaseMethod, slot);
+}
+
+// Hands a pooled slot straight back to its pool when its bytes were copied rather than sent
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeRecycleDirect(JNIEnv *env, jclass clazz, jobject buffer, jint offset) {
+    enet_uint8 *address = (enet_uint8*)(*env)->GetDirectBufferAddress(env, buffer);
+    if (address == NULL) {
+        return;
+    }
+    address += offset;
+    
+    BufferPool *pool = findBufferPool(address);
+    if (pool != NULL) {
+        jint slot = (jint)((address - pool->base) / pool->slotSize);
+        (*env)->CallVoidMethod(env, pool->pool, poolReleaseMethod, slot);
+    }
+}
+
+// Creates a packet from a direct buffer region. Pooled slots are sent without copying;
+// any other direct buffer is copied once since the caller may reuse it immediately.
+static ENetPacket *createPacketFromDirect(JNIEnv *env, jobject buffer, jint offset, jint length, jint flags) {
+    enet_uint8 *address = (enet_uint8*)(*env)->GetDirectBufferAddress(env, buffer);
+    if (address == NULL) {
+        return NULL;
+    }
+    address += offset;
+    
+    BufferPool *pool = findBufferPool(address);
+    if (pool == NULL) {
+        return enet_packet_create(address, length, flags & ~ENET_PACKET_FLAG_NO_ALLOCATE);
+    }
+    
+    ENetPacket *packet = enet_packet_create(address, length, flags | ENET_PACKET_FLAG_NO_ALLOCATE);
+    if (packet == NULL) {
+        return NULL;
+    }
+    packet->userData = pool;
+    packet->freeCallback = poolPacketFreed;
+    
+    return packet;
+}
+
+static jint sendPacket(ENetPeer *peer, jbyte channelID, ENetPacket *packet) {
+    if (packet == NULL) {
+        return -1;
+    }
+    
+    if (enet_peer_send(peer, channelID, packet) < 0) {
+        if (packet->referenceCount == 0) {
+            enet_packet_destroy(packet);
+        }
+        return -1;
+    }
+    
+    return 0;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativeSend(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jlong peerHandle, jbyte channelID, jbyteArray data, jint flags) {
+    
+    ENetPeer *peer = (ENetPeer*)(intptr_t)peerHandle;
+    
+    return sendPacket(peer, channelID, createPacketFromArray(env, data, flags));
+}
+
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativeSendRegion(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jlong peerHandle, jbyte channelID, jbyteArray data, jint offset, jint length, jint flags) {
+    
+    ENetPeer *peer = (ENetPeer*)(intptr_t)peerHandle;
+    
+    return sendPacket(peer, channelID, createPacketFromArrayRegion(env, data, offset, length, flags));
+}
+
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativeSendDirect(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jlong peerHandle, jbyte channelID, jobject buffer, jint offset, jint length, jint flags) {
+    
+    ENetPeer *peer = (ENetPeer*)(intptr_t)peerHandle;
+    
+    return sendPacket(peer, channelID, createPacketFromDirect(env, buffer, offset, length, flags));
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeBroadcast(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jbyte channelID, jbyteArray data, jint flags) {
+    
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    
+    ENetPacket *packet = createPacketFromArray(env, data, flags);
+    if (packet != NULL) {
+        enet_host_broadcast(hostPtr, channelID, packet);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeBroadcastDirect(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jbyte channelID, jobject buffer, jint offset, jint length, jint flags) {
+    
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    
+    ENetPacket *packet = createPacketFromDirect(env, buffer, offset, length, flags);
+    if (packet != NULL) {
+        enet_host_broadcast(hostPtr, channelID, packet);
+    }
+}
+
+// Queues one packet on every peer slot in peerIDs[0..count); ENet's reference count keeps it
+// alive until the last peer is done with it. Returns the number of peers it was queued on.
+static jint sendPacketToGroup(JNIEnv *env, ENetHost *host, jintArray peerIDs, jint count,
+    jbyte channelID, ENetPacket *packet) {
+    
+    if (packet == NULL) {
+        return -1;
+    }
+    
+    jint sent = 0;
+    jint *ids = (*env)->GetPrimitiveArrayCritical(env, peerIDs, NULL);
+    if (ids != NULL) {
+        for (jint i = 0; i < count; i++) {
+            if (ids[i] >= 0 && (size_t)ids[i] < host->peerCount &&
+                enet_peer_send(&host->peers[ids[i]], channelID, packet) == 0) {
+                sent++;
+            }
+        }
+        (*env)->ReleasePrimitiveArrayCritical(env, peerIDs, ids, JNI_ABORT);
+    }
+    
+    if (packet->referenceCount == 0) {
+        enet_packet_destroy(packet);
+    }
+    
+    return sent;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativeSendToGroup(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jintArray peerIDs, jint count, jbyte channelID, jbyteArray data, jint flags) {
+    
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    
+    return sendPacketToGroup(env, hostPtr, peerIDs, count, channelID,
+        createPacketFromArray(env, data, flags));
+}
+
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativeSendToGroupDirect(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jintArray peerIDs, jint count, jbyte channelID,
+    jobject buffer, jint offset, jint length, jint flags) {
+    
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    
+    return sendPacketToGroup(env, hostPtr, peerIDs, count, channelID,
+        createPacketFromDirect(env, buffer, offset, length, flags));
+}
+
+JNIEXPORT jlong JNICALL
+Java_com_enet_ENetConnection_nativeCreateBufferPool(JNIEnv *env, jclass clazz,
+    jobject poolObject, jobject slab, jint slotSize, jint slotCount) {
+    
+    enet_uint8 *base = (enet_uint8*)(*env)->GetDirectBufferAddress(env, slab);
+    if (base == NULL) {
+        return 0;
+    }
+    
+    for (int i = 0; i < MAX_BUFFER_POOLS; i++) {
+        if (bufferPools[i] == NULL) {
+            BufferPool *pool = (BufferPool*)malloc(sizeof(BufferPool));
+            if (pool == NULL) {
+                return 0;
+            }
+            pool->pool = (*env)->NewGlobalRef(env, poolObject);
+            pool->base = base;
+            pool->slotSize = (size_t)slotSize;
+            pool->slotCount = (size_t)slotCount;
+            bufferPools[i] = pool;
+            return (jlong)(intptr_t)pool;
+        }
+    }
+    
+    return 0;
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeDestroyBufferPool(JNIEnv *env, jclass clazz, jlong poolHandle) {
+    BufferPool *pool = (BufferPool*)(intptr_t)poolHandle;
+    
+    for (int i = 0; i < MAX_BUFFER_POOLS; i++) {
+        if (bufferPools[i] == pool) {
+            bufferPools[i] = NULL;
+        }
+    }
+    
+    if (pool) {
+        (*env)->DeleteGlobalRef(env, pool->pool);
+        free(pool);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeFlush(JNIEnv *env, jobject thiz, jlong hostHandle) {
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    enet_host_flush(hostPtr);
+}
+
+// Wake-up channel for a blocked event loop: a loopback datagram socket on a port of its own,
+// plus a sender connected to it. Nothing else shares the port, so unlike the host socket, which
+// SO_REUSEPORT shards share, a wake-up always reaches the loop it was meant for.
+typedef struct WakeChannel {
+    ENetSocket receiver;
+    ENetSocket sender;
+} WakeChannel;
+
+static void wakeChannelDestroy(WakeChannel *channel) {
+    if (channel->receiver != ENET_SOCKET_NULL) {
+        enet_socket_destroy(channel->receiver);
+    }
+    if (channel->sender != ENET_SOCKET_NULL) {
+        enet_socket_destroy(channel->sender);
+    }
+    free(channel);
+}
+
+JNIEXPORT jlong JNICALL
+Java_com_enet_ENetConnection_nativeCreateWakeChannel(JNIEnv *env, jclass clazz) {
+    WakeChannel *channel = (WakeChannel*)malloc(sizeof(WakeChannel));
+    ENetAddress address = {0};
+    
+    if (channel == NULL) {
+        return 0;
+    }
+    channel->receiver = enet_socket_create(ENET_SOCKET_TYPE_DATAGRAM);
+    channel->sender = enet_socket_create(ENET_SOCKET_TYPE_DATAGRAM);
+    if (channel->receiver == ENET_SOCKET_NULL || channel->sender == ENET_SOCKET_NULL) {
+        wakeChannelDestroy(channel);
+        return 0;
+    }
+    
+    enet_socket_set_option(channel->receiver, ENET_SOCKOPT_IPV6_V6ONLY, 0);
+    enet_socket_set_option(channel->receiver, ENET_SOCKOPT_NONBLOCK, 1);
+    enet_socket_set_option(channel->sender, ENET_SOCKOPT_IPV6_V6ONLY, 0);
+    enet_socket_set_option(channel->sender, ENET_SOCKOPT_NONBLOCK, 1);
+    
+    address.host = in6addr_loopback;
+    if (enet_socket_bind(channel->receiver, &address) < 0 ||
+        enet_socket_get_address(channel->receiver, &address) < 0 ||
+        enet_socket_connect(channel->sender, &address) < 0) {
+        wakeChannelDestroy(channel);
+        return 0;
+    }
+    
+    return (jlong)(intptr_t)channel;
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeWakeup(JNIEnv *env, jclass clazz, jlong wakeHandle) {
+    static enet_uint8 wake = 0;
+    WakeChannel *channel = (WakeChannel*)(intptr_t)wakeHandle;
+    ENetBuffer buffer;
+    
+    buffer.data = &wake;
+    buffer.dataLength = 1;
+    enet_socket_send(channel->sender, NULL, &buffer, 1);
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeDestroyWakeChannel(JNIEnv *env, jclass clazz, jlong wakeHandle) {
+    wakeChannelDestroy((WakeChannel*)(intptr_t)wakeHandle);
+}
+
+// Blocks until the host socket is readable, the wake channel is signalled or the timeout
+// expires, and drains the wake channel. Returns 1 if the host socket is readable, 0 otherwise,
+// -1 on failure.
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativeWait(JNIEnv *env, jobject thiz, jlong hostHandle, jlong wakeHandle,
+                                        jint timeoutMillis) {
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    WakeChannel *channel = (WakeChannel*)(intptr_t)wakeHandle;
+    struct pollfd fds[2];
+    int count = 1;
+    int ready;
+    
+    fds[0].fd = hostPtr->socket;
+    fds[0].events = POLLIN;
+    fds[0].revents = 0;
+    if (channel != NULL) {
+        fds[1].fd = channel->receiver;
+        fds[1].events = POLLIN;
+        fds[1].revents = 0;
+        count = 2;
+    }
+    
+#ifdef _WIN32
+    ready = WSAPoll(fds, (ULONG)count, timeoutMillis);
+#else
+    ready = poll(fds, (nfds_t)count, timeoutMillis);
+    if (ready < 0 && errno == EINTR) {
+        return 0;
+    }
+#endif
+    if (ready < 0) {
+        return -1;
+    }
+    
+    if (count == 2 && (fds[1].revents & POLLIN)) {
+        enet_uint8 drain[16];
+        ENetBuffer buffer;
+        buffer.data = drain;
+        buffer.dataLength = sizeof(drain);
+        while (enet_socket_receive(channel->receiver, NULL, &buffer, 1) > 0) {
+        }
+    }
+    
+    return (fds[0].revents & POLLIN) ? 1 : 0;
+}
+
+// Milliseconds until ENet next has work of its own: a pending send or acknowledgement, a
+// retransmission timeout, a ping, the bandwidth throttle or a datagram held by the network
+// emulator, capped at maxTimeoutMillis
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativeNextTimeout(JNIEnv *env, jobject thiz, jlong hostHandle, jint maxTimeoutMillis) {
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    enet_uint32 now = enet_time_get();
+    enet_uint32 timeout = (enet_uint32)maxTimeoutMillis;
+    ENetPeer *peer;
+    
+    if (!enet_list_empty(&hostPtr->dispatchQueue)) {
+        return 0;
+    }
+    
+    timeout = emulatorNextRelease(hostPtr, timeout);
+    
+    if (hostPtr->incomingBandwidth != 0 || hostPtr->outgoingBandwidth != 0) {
+        enet_uint32 deadline = hostPtr->bandwidthThrottleEpoch + ENET_HOST_BANDWIDTH_THROTTLE_INTERVAL;
+        enet_uint32 remaining = ENET_TIME_LESS(deadline, now) ? 0 : deadline - now;
+        if (remaining < timeout) {
+            timeout = remaining;
+        }
+    }
+    
+    for (peer = hostPtr->peers; peer < &hostPtr->peers[hostPtr->peerCount]; ++peer) {
+        enet_uint32 deadline;
+        enet_uint32 remaining;
+        
+        if (peer->state == ENET_PEER_STATE_DISCONNECTED || peer->state == ENET_PEER_STATE_ZOMBIE) {
+            continue;
+        }
+        
+        if (!enet_list_empty(&peer->acknowledgements) ||
+            !enet_list_empty(&peer->outgoingCommands) ||
+            !enet_list_empty(&peer->outgoingSendReliableCommands)) {
+            return 0;
+        }
+        
+        if (!enet_list_empty(&peer->sentReliableCommands)) {
+            ENetOutgoingCommand *command = (ENetOutgoingCommand *)enet_list_front(&peer->sentReliableCommands);
+            deadline = command->sentTime + command->roundTripTimeout;
+        } else if (peer->state == ENET_PEER_STATE_CONNECTED) {
+            deadline = peer->lastReceiveTime + peer->pingInterval;
+        } else {
+            continue;
+        }
+        
+        remaining = ENET_TIME_LESS(deadline, now) ? 0 : deadline - now;
+        if (remaining < timeout) {
+            timeout = remaining;
+        }
+    }
+    
+    return (jint)timeout;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativeEnableCompression(JNIEnv *env, jobject thiz, jlong hostHandle, jint threshold) {
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    LzContext *context = (LzContext*)calloc(1, sizeof(LzContext));
+    
+    if (context == NULL) {
+        return -1;
+    }
+    context->threshold = threshold > 0 ? (size_t)threshold : 0;
+    
+    ENetCompressor compressor;
+    compressor.context = context;
+    compressor.compress = lzCompress;
+    compressor.decompress = lzDecompress;
+    compressor.destroy = lzDestroy;
+    enet_host_compress(hostPtr, &compressor);
+    
+    return 0;
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeDisableCompression(JNIEnv *env, jobject thiz, jlong hostHandle) {
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    enet_host_compress(hostPtr, NULL);
+}
+
+// Fills stats with the counters of the host's compressor; returns JNI_FALSE if it has none
+JNIEXPORT jboolean JNICALL
+Java_com_enet_ENetConnection_nativeCompressionStats(JNIEnv *env, jobject thiz, jlong hostHandle, jlongArray stats) {
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    
+    if (hostPtr->compressor.compress != lzCompress || hostPtr->compressor.context == NULL) {
+        return JNI_FALSE;
+    }
+    
+    LzContext *context = (LzContext*)hostPtr->compressor.context;
+    jlong values[7];
+    values[0] = statLoad(&context->packetsCompressed);
+    values[1] = statLoad(&context->packetsUncompressed);
+    values[2] = statLoad(&context->bytesIn);
+    values[3] = statLoad(&context->bytesOut);
+    values[4] = statLoad(&context->compressNanos);
+    values[5] = statLoad(&context->packetsDecompressed);
+    values[6] = statLoad(&context->decompressNanos);
+    (*env)->SetLongArrayRegion(env, stats, 0, 7, values);
+    
+    return JNI_TRUE;
+}
+
+// Field layout is mirrored by com.enet.ENetStats
+#define HOST_STAT_FIELDS 7
+#define PEER_STAT_FIELDS 17
+
+// Payload bytes and packet commands still held in a command list
+static void sumPacketCommands(ENetList *list, jlong *bytes, jlong *commands) {
+    for (ENetListIterator it = enet_list_begin(list); it != enet_list_end(list); it = enet_list_next(it)) {
+        ENetOutgoingCommand *command = (ENetOutgoingCommand*)it;
+        if (command->packet != NULL) {
+            *bytes += command->fragmentLength;
+            ++*commands;
+        }
+    }
+}
+
+// Bytes a peer has queued for sending plus reliable bytes sent but not yet acknowledged
+static jlong outstandingBytes(ENetPeer *peer) {
+    jlong bytes = 0;
+    jlong commands = 0;
+    sumPacketCommands(&peer->outgoingCommands, &bytes, &commands);
+    sumPacketCommands(&peer->outgoingSendReliableCommands, &bytes, &commands);
+    sumPacketCommands(&peer->sentReliableCommands, &bytes, &commands);
+    return bytes;
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeHostStats(JNIEnv *env, jobject thiz, jlong hostHandle, jlongArray stats) {
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    jlong values[HOST_STAT_FIELDS];
+    
+    values[0] = (jlong)hostPtr->totalSentData;
+    values[1] = (jlong)hostPtr->totalSentPackets;
+    values[2] = (jlong)hostPtr->totalReceivedData;
+    values[3] = (jlong)hostPtr->totalReceivedPackets;
+    values[4] = (jlong)hostPtr->connectedPeers;
+    values[5] = (jlong)hostPtr->peerCount;
+    values[6] = (jlong)hostPtr->bandwidthLimitedPeers;
+    (*env)->SetLongArrayRegion(env, stats, 0, HOST_STAT_FIELDS, values);
+}
+
+// Writes one record per peer that is not disconnected and returns how many were written.
+// The command lists are only walked when the caller owns the host (countQueues), since the
+// servicing thread relinks them; otherwise those fields are -1.
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativePeerStats(JNIEnv *env, jobject thiz, jlong hostHandle,
+    jlongArray stats, jboolean countQueues) {
+    
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    jsize capacity = (*env)->GetArrayLength(env, stats) / PEER_STAT_FIELDS;
+    jint count = 0;
+    
+    jlong *values = (*env)->GetPrimitiveArrayCritical(env, stats, NULL);
+    if (values == NULL) {
+        return -1;
+    }
+    
+    for (ENetPeer *peer = hostPtr->peers; peer < &hostPtr->peers[hostPtr->peerCount] && count < capacity; ++peer) {
+        if (peer->state == ENET_PEER_STATE_DISCONNECTED || peer->state == ENET_PEER_STATE_ZOMBIE) {
+            continue;
+        }
+        
+        jlong *record = values + (size_t)count * PEER_STAT_FIELDS;
+        record[0] = (jlong)peer->incomingPeerID;
+        record[1] = (jlong)peer->state;
+        record[2] = (jlong)peer->roundTripTime;
+        record[3] = (jlong)peer->roundTripTimeVariance;
+        record[4] = (jlong)peer->packetLoss;
+        record[5] = (jlong)peer->packetLossVariance;
+        record[6] = (jlong)peer->packetThrottle;
+        record[7] = (jlong)peer->totalPacketsSent;
+        record[8] = (jlong)peer->totalPacketsLost;
+        record[9] = (jlong)peer->totalDataSent;
+        record[10] = (jlong)peer->totalDataReceived;
+        record[11] = (jlong)peer->reliableDataInTransit;
+        if (countQueues) {
+            record[12] = (jlong)(enet_list_size(&peer->outgoingCommands) +
+                enet_list_size(&peer->outgoingSendReliableCommands));
+            record[13] = (jlong)enet_list_size(&peer->sentReliableCommands);
+        } else {
+            record[12] = -1;
+            record[13] = -1;
+        }
+        record[14] = (jlong)peer->totalWaitingData;
+        record[15] = (jlong)peer->mtu;
+        record[16] = countQueues ? outstandingBytes(peer) : -1;
+        count++;
+    }
+    
+    (*env)->ReleasePrimitiveArrayCritical(env, stats, values, 0);
+    return count;
+}
+
+// Walks the peer's command lists, so only call it from the thread that services the host
+JNIEXPORT jlong JNICALL
+Java_com_enet_ENetConnection_nativePeerOutstanding(JNIEnv *env, jclass clazz, jlong peerHandle) {
+    return outstandingBytes((ENetPeer*)(intptr_t)peerHandle);
+}
+
+// Removes the oldest queued unreliable packet on a channel that has not been sent yet, to make
+// room for a newer one. Fragmented packets are left alone. Returns the bytes removed, or 0.
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativePeerDropOldestUnreliable(JNIEnv *env, jclass clazz,
+    jlong peerHandle, jbyte channelID) {
+    
+    ENetPeer *peer = (ENetPeer*)(intptr_t)peerHandle;
+    
+    for (ENetListIterator it = enet_list_begin(&peer->outgoingCommands);
+         it != enet_list_end(&peer->outgoingCommands); it = enet_list_next(it)) {
+        ENetOutgoingCommand *command = (ENetOutgoingCommand*)it;
+        enet_uint8 type = command->command.header.command & ENET_PROTOCOL_COMMAND_MASK;
+        
+        if (command->packet == NULL || command->sendAttempts != 0 ||
+            command->command.header.channelID != (enet_uint8)channelID ||
+            (type != ENET_PROTOCOL_COMMAND_SEND_UNRELIABLE && type != ENET_PROTOCOL_COMMAND_SEND_UNSEQUENCED)) {
+            continue;
+        }
+        
+        jint length = command->fragmentLength;
+        // Undo what enet_peer_setup_outgoing_command added, so the throttle does not count it
+        enet_uint32 size = (enet_uint32)enet_protocol_command_size(command->command.header.command) + length;
+        peer->outgoingDataTotal -= ENET_MIN(peer->outgoingDataTotal, size);
+        enet_list_remove(&command->outgoingCommandList);
+        if (--command->packet->referenceCount == 0) {
+            enet_packet_destroy(command->packet);
+        }
+        enet_free(command);
+        return length;
+    }
+    return 0;
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeDisconnectPeer(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jlong peerHandle, jint data) {
+    
+    ENetPeer *peer = (ENetPeer*)(intptr_t)peerHandle;
+    enet_peer_disconnect(peer, data);
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativePeerThrottleConfigure(JNIEnv *env, jclass clazz,
+    jlong peerHandle, jint interval, jint acceleration, jint deceleration) {
+    
+    ENetPeer *peer = (ENetPeer*)(intptr_t)peerHandle;
+    enet_peer_throttle_configure(peer, (enet_uint32)interval, (enet_uint32)acceleration, (enet_uint32)deceleration);
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativePeerTimeout(JNIEnv *env, jclass clazz,
+    jlong peerHandle, jint timeoutLimit, jint timeoutMinimum, jint timeoutMaximum) {
+    
+    ENetPeer *peer = (ENetPeer*)(intptr_t)peerHandle;
+    enet_peer_timeout(peer, (enet_uint32)timeoutLimit, (enet_uint32)timeoutMinimum, (enet_uint32)timeoutMaximum);
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativePeerPingInterval(JNIEnv *env, jclass clazz,
+    jlong peerHandle, jint pingInterval) {
+    
+    ENetPeer *peer = (ENetPeer*)(intptr_t)peerHandle;
+    enet_peer_ping_interval(peer, (enet_uint32)pingInterval);
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeHostBandwidthLimit(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jint incomingBandwidth, jint outgoingBandwidth) {
+    
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    enet_host_bandwidth_limit(hostPtr, (enet_uint32)incomingBandwidth, (enet_uint32)outgoingBandwidth);
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeHostChannelLimit(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jint channelLimit) {
+    
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    enet_host_channel_limit(hostPtr, (size_t)channelLimit);
+}
+
+// Sets SO_RCVBUF (receive) or SO_SNDBUF and returns the size the kernel actually applied,
+// which may be rounded or capped (Linux doubles it and caps at net.core.rmem_max/wmem_max).
+// Returns -1 on failure.
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativeSetSocketBufferSize(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jboolean receive, jint size) {
+    
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    ENetSocketOption option = receive ? ENET_SOCKOPT_RCVBUF : ENET_SOCKOPT_SNDBUF;
+    int applied = 0;
+    
+    if (enet_socket_set_option(hostPtr->socket, option, size) < 0 ||
+        enet_socket_get_option(hostPtr->socket, option, &applied) < 0) {
+        return -1;
+    }
+    return applied;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_enet_ENetConnection_nativeGetSocketBufferSize(JNIEnv *env, jobject thiz,
+    jlong hostHandle, jboolean receive) {
+    
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    int size = 0;
+    
+    if (enet_socket_get_option(hostPtr->socket, receive ? ENET_SOCKOPT_RCVBUF : ENET_SOCKOPT_SNDBUF, &size) < 0) {
+        return -1;
+    }
+    return size;
+}
+
+JNIEXPORT void JNICALL
+Java_com_enet_ENetConnection_nativeDestroy(JNIEnv *env, jobject thiz, jlong hostHandle) {
+    ENetHost *hostPtr = (ENetHost*)(intptr_t)hostHandle;
+    if (hostPtr) {
+        emulatorDestroy(hostPtr);
+        enet_host_destroy(hostPtr);
+    }
+}
+
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
+    JNIEnv *env;
+    
+    if ((*vm)->GetEnv(vm, (void**)&env, JNI_VERSION_1_8) != JNI_OK) {
+        return JNI_ERR;
+    }
+    
+    javaVM = vm;
+    
+    // Cache class references
+    addressClass = (*env)->FindClass(env, "com/enet/ENetAddress");
+    packetClass = (*env)->FindClass(env, "com/enet/ENetPacket");
+    
+    if (!addressClass || !packetClass) {
+        return JNI_ERR;
+    }
+    
+    addressClass = (jclass)(*env)->NewGlobalRef(env, addressClass);
+    packetClass = (jclass)(*env)->NewGlobalRef(env, packetClass);
+    
+    // Cache constructor method IDs
     jclass addressClassLocal = (*env)->FindClass(env, "com/enet/ENetAddress");
     addressConstructor = (*env)->GetMethodID(env, addressClassLocal, "<init>", "(Ljava/lang/String;I)V");
     
     jclass packetClassLocal = (*env)->FindClass(env, "com/enet/ENetPacket");
-    packetConstructor = (*env)->GetMethodID(env, packetClassLocal, "<init>", "(J[BI)V");
+    packetConstructor = (*env)->GetMethodID(env, packetClassLocal, "<init>", "(JLjava/nio/ByteBuffer;I)V");
+    
+    jclass poolClassLocal = (*env)->FindClass(env, "com/enet/ENetBufferPool");
+    poolReleaseMethod = poolClassLocal ? (*env)->GetMethodID(env, poolClassLocal, "onNativeRelease", "(I)V") : NULL;
     
-    if (!eventConstructor || !peerConstructor || !addressConstructor || !packetConstructor) {
+    if (!addressConstructor || !packetConstructor || !poolReleaseMethod) {
         return JNI_ERR;
     }
     
@@ -313,8 +1559,6 @@ JNIEXPORT void JNICALL JNI_OnUnload(JavaVM *vm, void *reserved) {
         return;
     }
     
-    if (eventClass) (*env)->DeleteGlobalRef(env, eventClass);
-    if (peerClass) (*env)->DeleteGlobalRef(env, peerClass);
     if (addressClass) (*env)->DeleteGlobalRef(env, addressClass);
     if (packetClass) (*env)->DeleteGlobalRef(env, packetClass);
 }
@@ -7,6 +7,12 @@
 #ifdef __cplusplus
 extern "C" {
 #endif
+#undef com_enet_ENetConnection_DEFAULT_COMMAND_QUEUE_CAPACITY
+#define com_enet_ENetConnection_DEFAULT_COMMAND_QUEUE_CAPACITY 4096L
+#undef com_enet_ENetConnection_DEFAULT_MAX_WAIT_MILLIS
+#define com_enet_ENetConnection_DEFAULT_MAX_WAIT_MILLIS 100L
+#undef com_enet_ENetConnection_TICK_EVENT_LIMIT
+#define com_enet_ENetConnection_TICK_EVENT_LIMIT 4096L
 /*
  * Class:     com_enet_ENetConnection
  * Method:    nativeInitialize
@@ -31,6 +37,14 @@ JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeDeinitialize
 JNIEXPORT jlong JNICALL Java_com_enet_ENetConnection_nativeCreateHost
   (JNIEnv *, jclass, jstring, jint, jint, jint, jint, jint);
 
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeCreateHostReusePort
+ * Signature: (Ljava/lang/String;IIIII)J
+ */
+JNIEXPORT jlong JNICALL Java_com_enet_ENetConnection_nativeCreateHostReusePort
+  (JNIEnv *, jclass, jstring, jint, jint, jint, jint, jint);
+
 /*
  * Class:     com_enet_ENetConnection
  * Method:    nativeCreateHostBound
@@ -50,10 +64,82 @@ JNIEXPORT jlong JNICALL Java_com_enet_ENetConnection_nativeConnect
 /*
  * Class:     com_enet_ENetConnection
  * Method:    nativeService
- * Signature: (JI)Lcom/enet/ENetEvent;
+ * Signature: (JI[J)Lcom/enet/ENetPacket;
  */
 JNIEXPORT jobject JNICALL Java_com_enet_ENetConnection_nativeService
-  (JNIEnv *, jobject, jlong, jint);
+  (JNIEnv *, jobject, jlong, jint, jlongArray);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativePeerID
+ * Signature: (J)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativePeerID
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativePeerAddress
+ * Signature: (J)Lcom/enet/ENetAddress;
+ */
+JNIEXPORT jobject JNICALL Java_com_enet_ENetConnection_nativePeerAddress
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeServiceInto
+ * Signature: (JI[JLjava/nio/ByteBuffer;)Lcom/enet/ENetPacket;
+ */
+JNIEXPORT jobject JNICALL Java_com_enet_ENetConnection_nativeServiceInto
+  (JNIEnv *, jobject, jlong, jint, jlongArray, jobject);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeServiceBatch
+ * Signature: (JILjava/nio/ByteBuffer;I)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeServiceBatch
+  (JNIEnv *, jobject, jlong, jint, jobject, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeTakePacketData
+ * Signature: (J)[B
+ */
+JNIEXPORT jbyteArray JNICALL Java_com_enet_ENetConnection_nativeTakePacketData
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativePacketBuffer
+ * Signature: (J)Ljava/nio/ByteBuffer;
+ */
+JNIEXPORT jobject JNICALL Java_com_enet_ENetConnection_nativePacketBuffer
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativePacketDestroy
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativePacketDestroy
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeCreateBufferPool
+ * Signature: (Lcom/enet/ENetBufferPool;Ljava/nio/ByteBuffer;II)J
+ */
+JNIEXPORT jlong JNICALL Java_com_enet_ENetConnection_nativeCreateBufferPool
+  (JNIEnv *, jclass, jobject, jobject, jint, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeDestroyBufferPool
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeDestroyBufferPool
+  (JNIEnv *, jclass, jlong);
 
 /*
  * Class:     com_enet_ENetConnection
@@ -63,6 +149,30 @@ JNIEXPORT jobject JNICALL Java_com_enet_ENetConnection_nativeService
 JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeSend
   (JNIEnv *, jobject, jlong, jlong, jbyte, jbyteArray, jint);
 
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeSendDirect
+ * Signature: (JJBLjava/nio/ByteBuffer;III)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeSendDirect
+  (JNIEnv *, jobject, jlong, jlong, jbyte, jobject, jint, jint, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeSendRegion
+ * Signature: (JJB[BIII)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeSendRegion
+  (JNIEnv *, jobject, jlong, jlong, jbyte, jbyteArray, jint, jint, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeRecycleDirect
+ * Signature: (Ljava/nio/ByteBuffer;I)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeRecycleDirect
+  (JNIEnv *, jclass, jobject, jint);
+
 /*
  * Class:     com_enet_ENetConnection
  * Method:    nativeBroadcast
@@ -71,6 +181,86 @@ JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeSend
 JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeBroadcast
   (JNIEnv *, jobject, jlong, jbyte, jbyteArray, jint);
 
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeBroadcastDirect
+ * Signature: (JBLjava/nio/ByteBuffer;III)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeBroadcastDirect
+  (JNIEnv *, jobject, jlong, jbyte, jobject, jint, jint, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeSendToGroup
+ * Signature: (J[IIB[BI)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeSendToGroup
+  (JNIEnv *, jobject, jlong, jintArray, jint, jbyte, jbyteArray, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeSendToGroupDirect
+ * Signature: (J[IIBLjava/nio/ByteBuffer;III)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeSendToGroupDirect
+  (JNIEnv *, jobject, jlong, jintArray, jint, jbyte, jobject, jint, jint, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeEnableCompression
+ * Signature: (JI)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeEnableCompression
+  (JNIEnv *, jobject, jlong, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeDisableCompression
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeDisableCompression
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeCompressionStats
+ * Signature: (J[J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_enet_ENetConnection_nativeCompressionStats
+  (JNIEnv *, jobject, jlong, jlongArray);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeSetNetworkConditions
+ * Signature: (JLjava/lang/String;I[I)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeSetNetworkConditions
+  (JNIEnv *, jobject, jlong, jstring, jint, jintArray);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeNetworkEmulatorStats
+ * Signature: (J[J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_enet_ENetConnection_nativeNetworkEmulatorStats
+  (JNIEnv *, jobject, jlong, jlongArray);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeHostStats
+ * Signature: (J[J)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeHostStats
+  (JNIEnv *, jobject, jlong, jlongArray);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativePeerStats
+ * Signature: (J[JZ)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativePeerStats
+  (JNIEnv *, jobject, jlong, jlongArray, jboolean);
+
 /*
  * Class:     com_enet_ENetConnection
  * Method:    nativeFlush
@@ -87,6 +277,78 @@ JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeFlush
 JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeDisconnectPeer
   (JNIEnv *, jobject, jlong, jlong, jint);
 
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativePeerOutstanding
+ * Signature: (J)J
+ */
+JNIEXPORT jlong JNICALL Java_com_enet_ENetConnection_nativePeerOutstanding
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativePeerDropOldestUnreliable
+ * Signature: (JB)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativePeerDropOldestUnreliable
+  (JNIEnv *, jclass, jlong, jbyte);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativePeerThrottleConfigure
+ * Signature: (JIII)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativePeerThrottleConfigure
+  (JNIEnv *, jclass, jlong, jint, jint, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativePeerTimeout
+ * Signature: (JIII)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativePeerTimeout
+  (JNIEnv *, jclass, jlong, jint, jint, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativePeerPingInterval
+ * Signature: (JI)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativePeerPingInterval
+  (JNIEnv *, jclass, jlong, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeHostBandwidthLimit
+ * Signature: (JII)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeHostBandwidthLimit
+  (JNIEnv *, jobject, jlong, jint, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeHostChannelLimit
+ * Signature: (JI)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeHostChannelLimit
+  (JNIEnv *, jobject, jlong, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeSetSocketBufferSize
+ * Signature: (JZI)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeSetSocketBufferSize
+  (JNIEnv *, jobject, jlong, jboolean, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeGetSocketBufferSize
+ * Signature: (JZ)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeGetSocketBufferSize
+  (JNIEnv *, jobject, jlong, jboolean);
+
 /*
  * Class:     com_enet_ENetConnection
  * Method:    nativeDestroy
@@ -95,6 +357,46 @@ JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeDisconnectPeer
 JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeDestroy
   (JNIEnv *, jobject, jlong);
 
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeCreateWakeChannel
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_com_enet_ENetConnection_nativeCreateWakeChannel
+  (JNIEnv *, jclass);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeWakeup
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeWakeup
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeDestroyWakeChannel
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_enet_ENetConnection_nativeDestroyWakeChannel
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeWait
+ * Signature: (JJI)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeWait
+  (JNIEnv *, jobject, jlong, jlong, jint);
+
+/*
+ * Class:     com_enet_ENetConnection
+ * Method:    nativeNextTimeout
+ * Signature: (JI)I
+ */
+JNIEXPORT jint JNICALL Java_com_enet_ENetConnection_nativeNextTimeout
+  (JNIEnv *, jobject, jlong, jint);
+
 #ifdef __cplusplus
 }
 #endif
@@ -0,0 +1,269 @@
+package com.enet;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-peer watermark state behind {@link ENetConnection#enableBackpressure(long, long,
+ * ENetBackpressureListener)}. The loop thread keeps an upper bound of each peer's outstanding
+ * bytes: the exact count from the last walk of its command lists plus whatever was queued since.
+ * Only when that bound crosses the high watermark is the peer walked again, and peers that were
+ * sent to or are congested are re-walked about once a millisecond to notice them draining.
+ */
+final class ENetBackpressure {
+    static final int ADMIT = 1;
+    static final int COALESCE = 2;
+
+    private static final long CHECK_INTERVAL_NANOS = 1_000_000L;
+
+    private final ENetConnection connection;
+    private final long highWatermark;
+    private final long lowWatermark;
+    private final ENetBackpressureListener listener;
+    private final ENetCongestionPolicy[] policies = new ENetCongestionPolicy[ENetChannelLanes.CHANNEL_COUNT];
+    private final byte[] coalesceChannels = new byte[ENetChannelLanes.CHANNEL_COUNT];
+    private final int[] coalesceSlot = new int[ENetChannelLanes.CHANNEL_COUNT];
+    private int coalesceSlots;
+    private AtomicReferenceArray<Latest> latest;
+    private final AtomicIntegerArray congested;
+    private final AtomicLong drops = new AtomicLong();
+    private final AtomicLong rejects = new AtomicLong();
+
+    // Loop thread only
+    private final long[] outstanding;
+    private final int[] watched;
+    private final boolean[] isWatched;
+    private final int[] writable;
+    private int watchedCount;
+    private long lastCheck;
+
+    ENetBackpressure(ENetConnection connection, int peerCapacity, long highWatermark, long lowWatermark,
+                     ENetBackpressureListener listener) {
+        if (lowWatermark < 0 || highWatermark <= lowWatermark) {
+            throw new IllegalArgumentException("High watermark must be greater than the low watermark");
+        }
+        this.connection = connection;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.listener = listener;
+        this.congested = new AtomicIntegerArray(peerCapacity);
+        this.outstanding = new long[peerCapacity];
+        this.watched = new int[peerCapacity];
+        this.isWatched = new boolean[peerCapacity];
+        this.writable = new int[peerCapacity];
+        this.latest = new AtomicReferenceArray<>(0);
+        Arrays.fill(coalesceSlot, -1);
+    }
+
+    void setPolicy(int channelID, ENetCongestionPolicy policy) {
+        if (channelID < 0 || channelID >= policies.length) {
+            throw new IllegalArgumentException("Channel ID must be between 0 and " + (policies.length - 1));
+        }
+        policies[channelID] = policy;
+        if (policy == ENetCongestionPolicy.COALESCE_LATEST && coalesceSlot[channelID] < 0) {
+            coalesceChannels[coalesceSlots] = (byte) channelID;
+            coalesceSlot[channelID] = coalesceSlots++;
+            latest = new AtomicReferenceArray<>(congested.length() * coalesceSlots);
+        }
+    }
+
+    private ENetCongestionPolicy policyFor(byte channelID, int flags) {
+        ENetCongestionPolicy policy = policies[channelID & 0xFF];
+        if (policy != null) {
+            return policy;
+        }
+        return (flags & ENetPacketFlags.RELIABLE) != 0 ? ENetCongestionPolicy.REJECT : ENetCongestionPolicy.DROP_NEWEST;
+    }
+
+    boolean isCongested(int peerID) {
+        return peerID >= 0 && peerID < congested.length() && congested.get(peerID) != 0;
+    }
+
+    /**
+     * Decides a send made off the loop thread before it enters the command queue, from the
+     * congestion flag alone. Policies that need the peer's command lists are left to
+     * {@link #admit}.
+     */
+    int screen(int peerID, byte channelID, int flags) {
+        if (!isCongested(peerID)) {
+            return ADMIT;
+        }
+        switch (policyFor(channelID, flags)) {
+            case REJECT:
+                rejects.incrementAndGet();
+                return -1;
+            case DROP_NEWEST:
+                drops.incrementAndGet();
+                return 0;
+            case COALESCE_LATEST:
+                return COALESCE;
+            default:
+                return ADMIT;
+        }
+    }
+
+    /**
+     * Decides a send on the loop thread just before the packet is handed to ENet. Returns
+     * {@link #ADMIT}, {@link #COALESCE}, or the result the send should return instead.
+     */
+    int admit(long peerHandle, int peerID, byte channelID, int length, int flags) {
+        if (peerID < 0 || peerID >= outstanding.length) {
+            return ADMIT;
+        }
+        if (congested.get(peerID) == 0 && outstanding[peerID] + length > highWatermark) {
+            outstanding[peerID] = ENetConnection.nativePeerOutstanding(peerHandle);
+            if (outstanding[peerID] + length > highWatermark) {
+                congested.set(peerID, 1);
+                watch(peerID);
+                notifyListener(peerID, true);
+            }
+        }
+        if (congested.get(peerID) != 0) {
+            switch (policyFor(channelID, flags)) {
+                case REJECT:
+                    rejects.incrementAndGet();
+                    return -1;
+                case DROP_NEWEST:
+                    drops.incrementAndGet();
+                    return 0;
+                case COALESCE_LATEST:
+                    return COALESCE;
+                case DROP_OLDEST:
+                    while (outstanding[peerID] + length > highWatermark) {
+                        int freed = ENetConnection.nativePeerDropOldestUnreliable(peerHandle, channelID);
+                        if (freed == 0) {
+                            // Nothing older left to drop on this channel
+                            drops.incrementAndGet();
+                            return 0;
+                        }
+                        outstanding[peerID] -= freed;
+                        drops.incrementAndGet();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        outstanding[peerID] += length;
+        watch(peerID);
+        return ADMIT;
+    }
+
+    void storeLatest(int peerID, byte channelID, byte[] data, int flags) {
+        int index = peerID * coalesceSlots + coalesceSlot[channelID & 0xFF];
+        if (latest.getAndSet(index, new Latest(data, flags)) != null) {
+            drops.incrementAndGet();
+        }
+    }
+
+    /**
+     * Hands every coalesced packet of the peer to {@code sender}, on the loop thread.
+     */
+    void drainLatest(int peerID, LatestSender sender) {
+        for (int slot = 0; slot < coalesceSlots; slot++) {
+            Latest pending = latest.getAndSet(peerID * coalesceSlots + slot, null);
+            if (pending != null) {
+                sender.send(coalesceChannels[slot], pending.data, pending.flags);
+            }
+        }
+    }
+
+    /**
+     * Re-walks the watched peers, at most once per {@link #CHECK_INTERVAL_NANOS}, and releases
+     * those that drained below the low watermark.
+     */
+    void check() {
+        long now = System.nanoTime();
+        if (watchedCount == 0 || now - lastCheck < CHECK_INTERVAL_NANOS) {
+            return;
+        }
+        lastCheck = now;
+        int kept = 0;
+        int writableCount = 0;
+        for (int i = 0; i < watchedCount; i++) {
+            int peerID = watched[i];
+            ENetPeer peer = connection.getPeer(peerID);
+            if (peer == null) {
+                isWatched[peerID] = false;
+                continue;
+            }
+            long bytes = ENetConnection.nativePeerOutstanding(peer.getHandle());
+            outstanding[peerID] = bytes;
+            if (congested.get(peerID) != 0) {
+                if (bytes > lowWatermark) {
+                    watched[kept++] = peerID;
+                    continue;
+                }
+                congested.set(peerID, 0);
+                writable[writableCount++] = peerID;
+            }
+            isWatched[peerID] = false;
+        }
+        watchedCount = kept;
+        for (int i = 0; i < writableCount; i++) {
+            int peerID = writable[i];
+            // Notify first: the flush may congest the peer again
+            notifyListener(peerID, false);
+            connection.flushLatest(peerID);
+        }
+    }
+
+    void reset(int peerID) {
+        if (peerID < 0 || peerID >= outstanding.length) {
+            return;
+        }
+        congested.set(peerID, 0);
+        outstanding[peerID] = 0;
+        for (int slot = 0; slot < coalesceSlots; slot++) {
+            latest.set(peerID * coalesceSlots + slot, null);
+        }
+    }
+
+    long getDrops() {
+        return drops.get();
+    }
+
+    long getRejects() {
+        return rejects.get();
+    }
+
+    private void watch(int peerID) {
+        if (!isWatched[peerID]) {
+            isWatched[peerID] = true;
+            watched[watchedCount++] = peerID;
+        }
+    }
+
+    private void notifyListener(int peerID, boolean congestedNow) {
+        ENetPeer peer = connection.getPeer(peerID);
+        if (listener == null || peer == null) {
+            return;
+        }
+        try {
+            if (congestedNow) {
+                listener.onCongested(peer, outstanding[peerID]);
+            } else {
+                listener.onWritable(peer, outstanding[peerID]);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error in backpressure listener: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    interface LatestSender {
+        void send(byte channelID, byte[] data, int flags);
+    }
+
+    private static final class Latest {
+        final byte[] data;
+        final int flags;
+
+        Latest(byte[] data, int flags) {
+            this.data = data;
+            this.flags = flags;
+        }
+    }
+}
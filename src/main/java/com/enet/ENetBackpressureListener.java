@@ -0,0 +1,13 @@
+package com.enet;
+
+/**
+ * Notified on the event-loop thread when a peer's outstanding bytes cross the watermarks set
+ * with {@link ENetConnection#enableBackpressure(long, long, ENetBackpressureListener)}.
+ */
+public interface ENetBackpressureListener {
+    /** The peer reached the high watermark; sends to it now follow the congestion policy. */
+    void onCongested(ENetPeer peer, long outstandingBytes);
+
+    /** The peer drained below the low watermark and accepts sends again. */
+    void onWritable(ENetPeer peer, long outstandingBytes);
+}
@@ -0,0 +1,95 @@
+package com.enet;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool of pre-allocated off-heap send buffers. Serializers write straight into an acquired slot
+ * and pass it to {@link ENetConnection#send(ENetPeer, byte, ByteBuffer, int, int, int)}; ENet
+ * transmits from the slot without copying and hands it back here once the packet is freed.
+ * Sending a slot transfers its ownership to ENet, so each acquired slot is sent at most once.
+ */
+public class ENetBufferPool implements AutoCloseable {
+    private final ByteBuffer slab;
+    private final ByteBuffer[] slots;
+    private final ArrayBlockingQueue<ByteBuffer> free;
+    private final int slotSize;
+    private long poolHandle;
+
+    public ENetBufferPool(int slotSize, int slotCount) {
+        if (slotSize <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("Slot size and count must be positive");
+        }
+        ENetConnection.initialize();
+        this.slotSize = slotSize;
+        this.slab = ByteBuffer.allocateDirect(slotSize * slotCount);
+        this.slots = new ByteBuffer[slotCount];
+        this.free = new ArrayBlockingQueue<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            ByteBuffer view = slab.duplicate();
+            view.position(i * slotSize).limit((i + 1) * slotSize);
+            slots[i] = view.slice();
+            free.add(slots[i]);
+        }
+        synchronized (ENetBufferPool.class) {
+            this.poolHandle = ENetConnection.nativeCreateBufferPool(this, slab, slotSize, slotCount);
+        }
+        if (poolHandle == 0) {
+            throw new RuntimeException("Failed to register ENet buffer pool");
+        }
+    }
+
+    /**
+     * Returns a cleared slot, or {@code null} when every slot is in flight.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer slot = free.poll();
+        if (slot != null) {
+            slot.clear();
+        }
+        return slot;
+    }
+
+    /**
+     * Returns a slot that was acquired but never sent.
+     */
+    public void release(ByteBuffer slot) {
+        for (ByteBuffer candidate : slots) {
+            if (candidate == slot) {
+                free.offer(slot);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Buffer does not belong to this pool");
+    }
+
+    public int getSlotSize() {
+        return slotSize;
+    }
+
+    public int getSlotCount() {
+        return slots.length;
+    }
+
+    public int available() {
+        return free.size();
+    }
+
+    // Called from the native packet free callback on the thread that destroyed the packet
+    void onNativeRelease(int slot) {
+        free.offer(slots[slot]);
+    }
+
+    /**
+     * Unregisters the slab. Only close the pool once no packet built from it is still queued.
+     */
+    @Override
+    public void close() {
+        synchronized (ENetBufferPool.class) {
+            if (poolHandle != 0) {
+                ENetConnection.nativeDestroyBufferPool(poolHandle);
+                poolHandle = 0;
+            }
+        }
+    }
+}
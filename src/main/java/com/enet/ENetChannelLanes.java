@@ -0,0 +1,111 @@
+package com.enet;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Staging queues for received events, one lane per distinct channel priority. The event loop
+ * stages what one service pass returns, then drains the highest-priority lanes completely and
+ * the others only up to a quantum before it polls the host again, so input on a high-priority
+ * channel never waits behind a long backlog on a bulk channel. ENet only orders packets within
+ * a channel, so reordering across channels is safe.
+ */
+final class ENetChannelLanes {
+    static final int CHANNEL_COUNT = 256;
+    // Lower-priority events handled per loop iteration while the backlog is small
+    static final int QUANTUM = 32;
+    // Backlog at which the loop stops polling and drains every lane
+    static final int MAX_BACKLOG = 4096;
+
+    private final int[] channelPriority = new int[CHANNEL_COUNT];
+    private byte[] channelLane;
+    private ArrayDeque<ENetEvent>[] lanes;
+    private int[] lanePriority;
+    private int backlog;
+
+    void setPriority(int channelID, int priority) {
+        if (channelID < 0 || channelID >= CHANNEL_COUNT) {
+            throw new IllegalArgumentException("Channel ID must be between 0 and " + (CHANNEL_COUNT - 1));
+        }
+        channelPriority[channelID] = priority;
+        lanes = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void buildLanes() {
+        int[] distinct = Arrays.stream(channelPriority).distinct().sorted().toArray();
+        lanePriority = new int[distinct.length];
+        lanes = (ArrayDeque<ENetEvent>[]) new ArrayDeque<?>[distinct.length];
+        for (int i = 0; i < distinct.length; i++) {
+            // Highest priority first
+            lanePriority[i] = distinct[distinct.length - 1 - i];
+            lanes[i] = new ArrayDeque<>();
+        }
+        channelLane = new byte[CHANNEL_COUNT];
+        for (int channel = 0; channel < CHANNEL_COUNT; channel++) {
+            for (int lane = 0; lane < lanePriority.length; lane++) {
+                if (lanePriority[lane] == channelPriority[channel]) {
+                    channelLane[channel] = (byte) lane;
+                    break;
+                }
+            }
+        }
+    }
+
+    void add(ENetEvent event) {
+        if (lanes == null) {
+            buildLanes();
+        }
+        lanes[channelLane[event.getChannelID() & 0xFF] & 0xFF].addLast(event);
+        backlog++;
+    }
+
+    boolean isEmpty() {
+        return backlog == 0;
+    }
+
+    boolean isFull() {
+        return backlog >= MAX_BACKLOG;
+    }
+
+    /**
+     * Hands staged events to {@code sink}: top-priority lanes completely, the rest up to
+     * {@link #QUANTUM} events unless {@code all} is set or the backlog is full.
+     */
+    void drain(Consumer<ENetEvent> sink, boolean all) {
+        if (backlog == 0) {
+            return;
+        }
+        boolean bounded = !all && !isFull();
+        int budget = QUANTUM;
+        for (int lane = 0; lane < lanes.length; lane++) {
+            ArrayDeque<ENetEvent> queue = lanes[lane];
+            boolean top = lanePriority[lane] == lanePriority[0];
+            ENetEvent event;
+            while ((top || !bounded || budget > 0) && (event = queue.pollFirst()) != null) {
+                backlog--;
+                if (!top) {
+                    budget--;
+                }
+                sink.accept(event);
+            }
+        }
+    }
+
+    // Drops everything still staged when the loop stops
+    void clear() {
+        if (lanes == null) {
+            return;
+        }
+        for (ArrayDeque<ENetEvent> queue : lanes) {
+            ENetEvent event;
+            while ((event = queue.pollFirst()) != null) {
+                if (event.getPacket() != null) {
+                    event.getPacket().release();
+                }
+            }
+        }
+        backlog = 0;
+    }
+}
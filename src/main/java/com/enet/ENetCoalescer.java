@@ -0,0 +1,199 @@
+package com.enet;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Packs small messages sent to the same peer, channel and flags into one ENet packet. Each
+ * message is prefixed with its length as an unsigned LEB128 varint, so a packet on a coalesced
+ * channel is a sequence of {@code varint length, payload} frames. Both ends must enable
+ * coalescing for the same channels.
+ *
+ * @see ENetConnection#enableCoalescing(int, int...)
+ */
+public class ENetCoalescer {
+    private static final int MAX_VARINT_SIZE = 5;
+
+    interface Sender {
+        void send(long peerHandle, byte channelID, byte[] data, int length, int flags);
+    }
+
+    private static final class Pending {
+        final byte channelID;
+        final int flags;
+        final byte[] frame;
+        long peerHandle;
+        int length;
+        boolean queued;
+
+        Pending(byte channelID, int flags, int maxPacketSize) {
+            this.channelID = channelID;
+            this.flags = flags;
+            this.frame = new byte[maxPacketSize];
+        }
+    }
+
+    private final int maxPacketSize;
+    private final boolean[] channels = new boolean[256];
+    private final List<Pending>[] byPeer;
+    private final List<Pending> dirty = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    ENetCoalescer(int maxPacketSize, int peerCapacity, int... channelIDs) {
+        if (maxPacketSize <= MAX_VARINT_SIZE) {
+            throw new IllegalArgumentException("Max packet size too small: " + maxPacketSize);
+        }
+        this.maxPacketSize = maxPacketSize;
+        this.byPeer = (List<Pending>[]) new List<?>[peerCapacity];
+        if (channelIDs.length == 0) {
+            Arrays.fill(channels, true);
+        }
+        for (int channelID : channelIDs) {
+            channels[channelID & 0xFF] = true;
+        }
+    }
+
+    boolean isCoalesced(byte channelID) {
+        return channels[channelID & 0xFF];
+    }
+
+    /**
+     * Appends a message to the peer's pending packet, sending the pending packet first if the
+     * message does not fit. Messages too large to share a packet are sent framed on their own.
+     */
+    void append(long peerHandle, int peerID, byte channelID, byte[] data, ByteBuffer buffer,
+                int offset, int length, int flags, Sender sender) {
+        int frameLength = varintSize(length) + length;
+        if (peerID < 0 || peerID >= byPeer.length || frameLength > maxPacketSize) {
+            flushAll(sender);
+            byte[] framed = frame(data, buffer, offset, length);
+            sender.send(peerHandle, channelID, framed, framed.length, flags);
+            return;
+        }
+        Pending pending = pending(peerID, channelID, flags);
+        if (pending.length > 0 && pending.peerHandle != peerHandle) {
+            flush(pending, sender);
+        }
+        if (pending.length + frameLength > maxPacketSize) {
+            flush(pending, sender);
+        }
+        if (pending.length == 0) {
+            pending.peerHandle = peerHandle;
+        }
+        if (!pending.queued) {
+            pending.queued = true;
+            dirty.add(pending);
+        }
+        int position = writeVarint(pending.frame, pending.length, length);
+        if (data != null) {
+            System.arraycopy(data, offset, pending.frame, position, length);
+        } else {
+            buffer.duplicate().position(offset).get(pending.frame, position, length);
+        }
+        pending.length = position + length;
+    }
+
+    /**
+     * Sends every pending packet. Called by the event loop before it services or waits.
+     */
+    void flushAll(Sender sender) {
+        for (int i = 0; i < dirty.size(); i++) {
+            Pending pending = dirty.get(i);
+            flush(pending, sender);
+            pending.queued = false;
+        }
+        dirty.clear();
+    }
+
+    boolean hasPending() {
+        return !dirty.isEmpty();
+    }
+
+    private void flush(Pending pending, Sender sender) {
+        if (pending.length > 0) {
+            sender.send(pending.peerHandle, pending.channelID, pending.frame, pending.length, pending.flags);
+            pending.length = 0;
+        }
+    }
+
+    private Pending pending(int peerID, byte channelID, int flags) {
+        List<Pending> list = byPeer[peerID];
+        if (list == null) {
+            list = new ArrayList<>(2);
+            byPeer[peerID] = list;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            Pending pending = list.get(i);
+            if (pending.channelID == channelID && pending.flags == flags) {
+                return pending;
+            }
+        }
+        Pending pending = new Pending(channelID, flags, maxPacketSize);
+        list.add(pending);
+        return pending;
+    }
+
+    /**
+     * Returns {@code data[offset, offset + length)} as a single frame.
+     */
+    static byte[] frame(byte[] data, ByteBuffer buffer, int offset, int length) {
+        byte[] framed = new byte[varintSize(length) + length];
+        int position = writeVarint(framed, 0, length);
+        if (data != null) {
+            System.arraycopy(data, offset, framed, position, length);
+        } else {
+            buffer.duplicate().position(offset).get(framed, position, length);
+        }
+        return framed;
+    }
+
+    /**
+     * Splits a coalesced packet into its messages. Each view passed to {@code consumer} shares
+     * the packet's memory and is only valid for the duration of the call.
+     *
+     * @throws IllegalArgumentException if the packet is not validly framed
+     */
+    public static void split(ByteBuffer packet, Consumer<ByteBuffer> consumer) {
+        ByteBuffer source = packet.duplicate();
+        while (source.hasRemaining()) {
+            int length = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (!source.hasRemaining() || shift > 28) {
+                    throw new IllegalArgumentException("Malformed frame length");
+                }
+                b = source.get();
+                length |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (length < 0 || length > source.remaining()) {
+                throw new IllegalArgumentException("Frame length " + length + " exceeds packet");
+            }
+            ByteBuffer message = source.slice();
+            message.limit(length);
+            source.position(source.position() + length);
+            consumer.accept(message);
+        }
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(byte[] target, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            target[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+}
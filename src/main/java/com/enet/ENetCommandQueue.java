@@ -0,0 +1,140 @@
+package com.enet;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer/single-consumer ring of preallocated outbound commands.
+ * Any thread may offer; only the event-loop thread drains.
+ */
+class ENetCommandQueue {
+    static final int SEND = 1;
+    static final int SEND_DIRECT = 2;
+    static final int BROADCAST = 3;
+    static final int BROADCAST_DIRECT = 4;
+    static final int FLUSH = 5;
+    static final int DISCONNECT = 6;
+    static final int GROUP_SEND = 7;
+    static final int GROUP_SEND_DIRECT = 8;
+    static final int TASK = 9;
+
+    static final class Command {
+        int op;
+        ENetPeer peer;
+        byte channelID;
+        byte[] data;
+        ByteBuffer buffer;
+        int offset;
+        int length;
+        int flags;
+        ENetPeerGroup group;
+        Runnable task;
+
+        void clear() {
+            peer = null;
+            data = null;
+            buffer = null;
+            group = null;
+            task = null;
+        }
+    }
+
+    interface Executor {
+        void execute(Command command);
+    }
+
+    private final Command[] commands;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final int mask;
+    private long head;
+
+    ENetCommandQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+        this.commands = new Command[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            commands[i] = new Command();
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return commands.length;
+    }
+
+    boolean offer(int op, ENetPeer peer, byte channelID, byte[] data, ByteBuffer buffer,
+                  int offset, int length, int flags) {
+        return offer(op, peer, channelID, data, buffer, offset, length, flags, null);
+    }
+
+    boolean offer(Runnable task) {
+        return offer(TASK, null, (byte) 0, null, null, 0, 0, 0, null, task);
+    }
+
+    boolean offer(int op, ENetPeer peer, byte channelID, byte[] data, ByteBuffer buffer,
+                  int offset, int length, int flags, ENetPeerGroup group) {
+        return offer(op, peer, channelID, data, buffer, offset, length, flags, group, null);
+    }
+
+    boolean offer(int op, ENetPeer peer, byte channelID, byte[] data, ByteBuffer buffer,
+                  int offset, int length, int flags, ENetPeerGroup group, Runnable task) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                return false;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        Command command = commands[index];
+        command.op = op;
+        command.peer = peer;
+        command.channelID = channelID;
+        command.data = data;
+        command.buffer = buffer;
+        command.offset = offset;
+        command.length = length;
+        command.flags = flags;
+        command.group = group;
+        command.task = task;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Executes every published command in order and returns how many were drained.
+     */
+    int drain(Executor executor) {
+        int drained = 0;
+        while (true) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                return drained;
+            }
+            Command command = commands[index];
+            try {
+                executor.execute(command);
+            } finally {
+                command.clear();
+                sequences.lazySet(index, head + commands.length);
+                head++;
+                drained++;
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+}
@@ -0,0 +1,80 @@
+package com.enet;
+
+/**
+ * Snapshot of a host's packet compressor counters.
+ *
+ * @see ENetConnection#getCompressionStats()
+ */
+public class ENetCompressionStats {
+    private final long packetsCompressed;
+    private final long packetsUncompressed;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final long compressNanos;
+    private final long packetsDecompressed;
+    private final long decompressNanos;
+
+    ENetCompressionStats(long[] values) {
+        this.packetsCompressed = values[0];
+        this.packetsUncompressed = values[1];
+        this.bytesIn = values[2];
+        this.bytesOut = values[3];
+        this.compressNanos = values[4];
+        this.packetsDecompressed = values[5];
+        this.decompressNanos = values[6];
+    }
+
+    /**
+     * Datagrams sent compressed.
+     */
+    public long getPacketsCompressed() {
+        return packetsCompressed;
+    }
+
+    /**
+     * Datagrams sent as-is because they were below the threshold or did not shrink.
+     */
+    public long getPacketsUncompressed() {
+        return packetsUncompressed;
+    }
+
+    /**
+     * Size of the compressed datagrams before compression.
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    /**
+     * Compressed size over original size for the datagrams that were compressed, or 1 if none were.
+     */
+    public double getRatio() {
+        return bytesIn == 0 ? 1.0 : (double) bytesOut / bytesIn;
+    }
+
+    /**
+     * Time spent compressing, including datagrams that ended up sent uncompressed.
+     */
+    public long getCompressNanos() {
+        return compressNanos;
+    }
+
+    public long getPacketsDecompressed() {
+        return packetsDecompressed;
+    }
+
+    public long getDecompressNanos() {
+        return decompressNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ENetCompressionStats{compressed=" + packetsCompressed + ", uncompressed=" + packetsUncompressed +
+                ", ratio=" + String.format("%.3f", getRatio()) + ", compressNanos=" + compressNanos +
+                ", decompressed=" + packetsDecompressed + ", decompressNanos=" + decompressNanos + "}";
+    }
+}
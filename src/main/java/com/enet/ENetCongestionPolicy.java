@@ -0,0 +1,19 @@
+package com.enet;
+
+/**
+ * What a send to a congested peer does.
+ *
+ * @see ENetConnection#setCongestionPolicy(int, ENetCongestionPolicy)
+ */
+public enum ENetCongestionPolicy {
+    /** Queue the packet anyway; the peer's backlog is not bounded. */
+    QUEUE,
+    /** Refuse the packet and return -1. The default for reliable packets. */
+    REJECT,
+    /** Discard the packet and return 0. The default for unreliable packets. */
+    DROP_NEWEST,
+    /** Discard the oldest unsent unreliable packets on the channel to make room, then queue. */
+    DROP_OLDEST,
+    /** Keep only the latest packet per peer and channel, and send it once the peer is writable. */
+    COALESCE_LATEST
+}
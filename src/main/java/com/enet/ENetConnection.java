@@ -1,23 +1,60 @@
 package com.enet;
 
 import java.io.File;
-import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
 
 public class ENetConnection implements AutoCloseable {
     private static boolean initialized = false;
+    static final int DEFAULT_COMMAND_QUEUE_CAPACITY = 4096;
+    private static final int DEFAULT_MAX_WAIT_MILLIS = 100;
+    // Events one tick takes from the host; the rest wait for the next tick
+    private static final int TICK_EVENT_LIMIT = 4096;
     
     private long hostHandle;
     private final AtomicBoolean running = new AtomicBoolean(false);
+    // Set first thing in close(), so calls from handler threads stop reaching the native host
+    private volatile boolean closed;
     private ExecutorService eventLoop;
-    private final List<Object> handlers = new ArrayList<>();
-    private final Map<ENetEventType, List<Method>> handlerMethods = new HashMap<>();
+    private ENetEventBatch eventBatch;
+    private ENetEvent flyweightEvent;
+    private ENetPacket flyweightPacket;
+    private ByteBuffer flyweightScratch;
+    private volatile boolean autoReleasePackets;
+    private ENetCommandQueue commandQueue;
+    private ENetHandlerExecutor handlerExecutor;
+    private ENetCoalescer coalescer;
+    private ENetChannelLanes channelLanes;
+    private ENetBackpressure backpressure;
+    private ENetTickScheduler ticker;
+    private final ArrayList<ENetEvent> tickEvents = new ArrayList<>();
+    private final ENetCoalescer.Sender coalescedSender = this::sendCoalesced;
+    private volatile Thread loopThread;
+    private String loopThreadName = "ENet-EventLoop";
+    private volatile long wakeChannel;
+    private final AtomicBoolean wakePending = new AtomicBoolean(false);
+    private volatile int maxWaitMillis = DEFAULT_MAX_WAIT_MILLIS;
+    private AtomicReferenceArray<ENetPeer> peers = new AtomicReferenceArray<>(0);
+    private volatile ENetEventPublisher[] publishers = new ENetEventPublisher[0];
+    // Connects started by connectAsync, by peer ID; touched only by the thread servicing the host
+    private PendingConnect[] pendingConnects;
+    private int pendingConnectCount;
+    private long nextConnectDeadline;
+    private final long[] eventFields = new long[7];
+    private final ENetEventDispatcher dispatcher = new ENetEventDispatcher();
 
     static {
         try {
@@ -77,6 +114,7 @@ public class ENetConnection implements AutoCloseable {
         ENetConnection connection = new ENetConnection();
         connection.hostHandle = nativeCreateHost(host, port, maxClients, maxChannels,
                 incomingBandwidth, outgoingBandwidth);
+        connection.peers = new AtomicReferenceArray<>(maxClients);
         if (connection.hostHandle == 0) {
             throw new RuntimeException("Failed to create ENet host on " + 
                 (host != null ? host : "0.0.0.0") + ":" + port + 
@@ -85,6 +123,25 @@ public class ENetConnection implements AutoCloseable {
         return connection;
     }
 
+    /**
+     * Creates a host with SO_REUSEPORT so that several hosts can listen on the same address and
+     * port. Fails on platforms without SO_REUSEPORT.
+     */
+    public static ENetConnection createHostReusePort(String host, int port, int maxClients, int maxChannels,
+                                                    int incomingBandwidth, int outgoingBandwidth) {
+        initialize();
+        ENetConnection connection = new ENetConnection();
+        connection.hostHandle = nativeCreateHostReusePort(host, port, maxClients, maxChannels,
+                incomingBandwidth, outgoingBandwidth);
+        connection.peers = new AtomicReferenceArray<>(maxClients);
+        if (connection.hostHandle == 0) {
+            throw new RuntimeException("Failed to create ENet host with SO_REUSEPORT on " +
+                (host != null ? host : "0.0.0.0") + ":" + port +
+                ". Check if the port is available and the platform supports SO_REUSEPORT.");
+        }
+        return connection;
+    }
+
     public static ENetConnection createHostBound(String host, int port, int maxPeers, int maxChannels) {
         return createHostBound(host, port, maxPeers, maxChannels, 0, 0);
     }
@@ -95,6 +152,7 @@ public class ENetConnection implements AutoCloseable {
         ENetConnection connection = new ENetConnection();
         connection.hostHandle = nativeCreateHostBound(host, port, maxPeers, maxChannels,
                 incomingBandwidth, outgoingBandwidth);
+        connection.peers = new AtomicReferenceArray<>(maxPeers);
         if (connection.hostHandle == 0) {
             throw new RuntimeException("Failed to create ENet host bound");
         }
@@ -102,84 +160,1065 @@ public class ENetConnection implements AutoCloseable {
     }
 
     public void addEventHandler(Object handler) {
-        handlers.add(handler);
-        scanHandlerMethods(handler);
+        dispatcher.register(handler);
     }
 
-    private void scanHandlerMethods(Object handler) {
-        for (Method method : handler.getClass().getDeclaredMethods()) {
-            ENetEventHandler annotation = method.getAnnotation(ENetEventHandler.class);
-            if (annotation != null) {
-                if (method.getParameterCount() != 1 || 
-                    !method.getParameterTypes()[0].equals(ENetEvent.class)) {
-                    throw new IllegalArgumentException(
-                        "Handler method must accept exactly one ENetEvent parameter: " + method.getName());
-                }
-                method.setAccessible(true);
-                handlerMethods.computeIfAbsent(annotation.value(), k -> new ArrayList<>()).add(method);
+    /**
+     * Makes the event loop drain events in batches of up to {@code capacityBytes} per native call
+     * instead of crossing JNI once per event. Must be called before {@link #startEventLoop()}.
+     */
+    public void enableBatchMode(int capacityBytes) {
+        if (running.get()) {
+            throw new IllegalStateException("Batch mode must be enabled before the event loop starts");
+        }
+        eventBatch = new ENetEventBatch(capacityBytes);
+    }
+
+    /**
+     * Makes the event loop hand handlers one reused {@link ENetEvent}, refilled for every event,
+     * instead of allocating an event and packet each time. Payloads of up to
+     * {@code payloadCapacity} bytes are copied into a reused buffer; larger ones arrive as
+     * regular packets. The event, its packet and the packet's buffer are only valid until the
+     * handler returns; handlers that keep them must call {@link ENetEvent#copy()} or
+     * {@link ENetEvent#retain()}. Packets are always released after the handlers return, as with
+     * {@link #setAutoReleasePackets(boolean)}. Handlers must run on the loop thread, so this
+     * cannot be combined with a handler executor. Must be called before {@link #startEventLoop()}.
+     */
+    public void enableFlyweightEvents(int payloadCapacity) {
+        if (running.get()) {
+            throw new IllegalStateException("Flyweight events must be enabled before the event loop starts");
+        }
+        if (payloadCapacity <= 0) {
+            throw new IllegalArgumentException("Payload capacity must be positive");
+        }
+        flyweightScratch = ByteBuffer.allocateDirect(payloadCapacity);
+        flyweightPacket = new ENetPacket(flyweightScratch);
+        flyweightEvent = new ENetEvent();
+    }
+
+    /**
+     * When enabled, received packets are released as soon as all handlers for the event have
+     * returned. Handlers that need the payload afterwards must copy it with {@link ENetPacket#getData()}.
+     */
+    public void setAutoReleasePackets(boolean autoReleasePackets) {
+        this.autoReleasePackets = autoReleasePackets;
+    }
+
+    public boolean isAutoReleasePackets() {
+        return autoReleasePackets;
+    }
+
+    /**
+     * Routes send, broadcast, flush and disconnect calls made from other threads through a
+     * lock-free queue of {@code capacity} preallocated commands. The event-loop thread drains it
+     * before every service call and flushes once, so the host is only ever touched by the loop.
+     * Arrays and buffers passed to queued calls must not be modified after the call returns.
+     * Must be called before {@link #startEventLoop()}.
+     */
+    public void enableCommandQueue(int capacity) {
+        if (running.get()) {
+            throw new IllegalStateException("Command queue must be enabled before the event loop starts");
+        }
+        commandQueue = new ENetCommandQueue(capacity);
+    }
+
+    /**
+     * Runs handlers on {@code executor} instead of the event-loop thread, keeping per-peer order.
+     * Sends made from handlers then go through the command queue, which is enabled with a default
+     * capacity if {@link #enableCommandQueue(int)} was not called. The connection closes the
+     * executor when it is closed. Must be called before {@link #startEventLoop()}.
+     */
+    public void setHandlerExecutor(ENetHandlerExecutor executor) {
+        if (running.get()) {
+            throw new IllegalStateException("Handler executor must be set before the event loop starts");
+        }
+        handlerExecutor = executor;
+    }
+
+    /**
+     * Tracks how many payload bytes each peer still holds: queued for sending plus reliable data
+     * not yet acknowledged. A peer that reaches {@code highWatermarkBytes} is congested until it
+     * drains to {@code lowWatermarkBytes}, and meanwhile sends to it follow the channel's
+     * {@link ENetCongestionPolicy}, so a slow or lossy client cannot pile up unbounded data.
+     * Broadcasts and group sends are not held back. {@code listener} may be {@code null}.
+     * Must be called before {@link #startEventLoop()}.
+     */
+    public void enableBackpressure(long highWatermarkBytes, long lowWatermarkBytes, ENetBackpressureListener listener) {
+        if (running.get()) {
+            throw new IllegalStateException("Backpressure must be enabled before the event loop starts");
+        }
+        backpressure = new ENetBackpressure(this, peers.length(), highWatermarkBytes, lowWatermarkBytes, listener);
+    }
+
+    /**
+     * Sets what sends on {@code channelID} do while their peer is congested. Without a policy,
+     * reliable packets are rejected and unreliable ones dropped. Must be called after
+     * {@link #enableBackpressure(long, long, ENetBackpressureListener)} and before
+     * {@link #startEventLoop()}.
+     */
+    public void setCongestionPolicy(int channelID, ENetCongestionPolicy policy) {
+        if (backpressure == null) {
+            throw new IllegalStateException("Backpressure is not enabled");
+        }
+        if (running.get()) {
+            throw new IllegalStateException("Congestion policies must be set before the event loop starts");
+        }
+        backpressure.setPolicy(channelID, policy);
+    }
+
+    public boolean isCongested(ENetPeer peer) {
+        return backpressure != null && backpressure.isCongested(peer.getID());
+    }
+
+    /**
+     * Returns the payload bytes {@code peer} has queued or awaiting acknowledgement. From other
+     * threads the count is taken on the loop through the command queue; returns -1 if that is
+     * not possible or the loop did not answer within a second.
+     */
+    public long getOutstandingBytes(ENetPeer peer) {
+        if (!running.get() || Thread.currentThread() == loopThread) {
+            return nativePeerOutstanding(peer.getHandle());
+        }
+        if (commandQueue == null) {
+            return -1;
+        }
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        runOnLoop(() -> result.complete(peer.isConnected() ? nativePeerOutstanding(peer.getHandle()) : 0L));
+        try {
+            return result.get(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (ExecutionException | TimeoutException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns how many sends to congested peers were dropped, including coalesced packets that
+     * were replaced by a newer one.
+     */
+    public long getCongestionDrops() {
+        return backpressure != null ? backpressure.getDrops() : 0;
+    }
+
+    public long getCongestionRejects() {
+        return backpressure != null ? backpressure.getRejects() : 0;
+    }
+
+    /**
+     * Hands received events of higher-priority channels to handlers first. Each loop iteration
+     * stages what the host returns, handles every event of the highest-priority channels, and
+     * only a small quantum of the rest before polling again, so bulk traffic on one channel does
+     * not delay input on another. Channels default to priority 0. Order is kept within a channel
+     * and around connects and disconnects. Must be called before {@link #startEventLoop()}.
+     */
+    public void setChannelPriority(int channelID, int priority) {
+        if (running.get()) {
+            throw new IllegalStateException("Channel priorities must be set before the event loop starts");
+        }
+        ENetChannelLanes lanes = channelLanes != null ? channelLanes : new ENetChannelLanes();
+        lanes.setPriority(channelID, priority);
+        channelLanes = lanes;
+    }
+
+    /**
+     * Caps how long the idle event loop blocks. The loop otherwise sleeps until network input,
+     * a {@link #wakeup()} or the next ENet timer (retransmit, ping), so this only bounds the
+     * latency of calls made from other threads without the command queue.
+     */
+    public void setMaxWaitMillis(int maxWaitMillis) {
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Max wait must not be negative");
+        }
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Packs small messages to the same peer and channel into shared packets of at most
+     * {@code maxPacketSize} bytes, and splits them again on receipt before handlers see them.
+     * Applies to {@code channelIDs}, or to every channel if none are given; the remote end must
+     * enable coalescing for the same channels. Pending messages go out when the host is next
+     * serviced or flushed. The coalescer is only touched on the event-loop thread, so sends from
+     * other threads go through the command queue, which is enabled with a default capacity if
+     * {@link #enableCommandQueue(int)} was not called. Must be called before
+     * {@link #startEventLoop()}.
+     *
+     * @see ENetCoalescer#split(ByteBuffer, java.util.function.Consumer)
+     */
+    public void enableCoalescing(int maxPacketSize, int... channelIDs) {
+        if (running.get()) {
+            throw new IllegalStateException("Coalescing must be enabled before the event loop starts");
+        }
+        coalescer = new ENetCoalescer(maxPacketSize, peers.length(), channelIDs);
+    }
+
+    /**
+     * Compresses outgoing datagrams of at least {@code thresholdBytes} with the built-in
+     * LZ4-style codec, keeping the result only when it is smaller. Compression is not negotiated:
+     * every peer of this host must enable it too, since peers without it drop compressed
+     * datagrams. A compressing host still accepts uncompressed datagrams.
+     * Must be called before {@link #startEventLoop()}.
+     */
+    public void enableCompression(int thresholdBytes) {
+        if (running.get()) {
+            throw new IllegalStateException("Compression must be configured before the event loop starts");
+        }
+        if (nativeEnableCompression(hostHandle, thresholdBytes) != 0) {
+            throw new RuntimeException("Failed to enable compression");
+        }
+    }
+
+    public void disableCompression() {
+        if (running.get()) {
+            throw new IllegalStateException("Compression must be configured before the event loop starts");
+        }
+        nativeDisableCompression(hostHandle);
+    }
+
+    /**
+     * Returns the compressor counters, or {@code null} if compression is not enabled. Safe to
+     * call from any thread; counters may be slightly stale.
+     */
+    public ENetCompressionStats getCompressionStats() {
+        long[] values = new long[7];
+        if (hostHandle == 0 || !nativeCompressionStats(hostHandle, values)) {
+            return null;
+        }
+        return new ENetCompressionStats(values);
+    }
+
+    /**
+     * Applies {@code conditions} to every datagram this host receives from an address without
+     * conditions of its own, or removes them when {@code null}. The emulator only conditions
+     * the receiving side, so set conditions on both hosts to degrade both directions of a link.
+     *
+     * @see #setNetworkConditions(String, int, ENetNetworkConditions)
+     */
+    public void setNetworkConditions(ENetNetworkConditions conditions) {
+        applyNetworkConditions(null, 0, conditions);
+    }
+
+    /**
+     * Applies {@code conditions} to datagrams received from {@code address}, from any of its
+     * ports when {@code port} is 0, or removes them when {@code null}. Up to 16 addresses can
+     * have conditions of their own. Failures on a running loop, such as an address that does
+     * not resolve, are reported on {@code System.err}.
+     */
+    public void setNetworkConditions(String address, int port, ENetNetworkConditions conditions) {
+        if (address == null) {
+            throw new IllegalArgumentException("Address must not be null");
+        }
+        if (port < 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("Port must be between 0 and 65535");
+        }
+        applyNetworkConditions(address, port, conditions);
+    }
+
+    private void applyNetworkConditions(String address, int port, ENetNetworkConditions conditions) {
+        int[] params = conditions != null ? conditions.toParams() : null;
+        String target = address != null ? address + ":" + port : "all addresses";
+        if (!running.get() || Thread.currentThread() == loopThread) {
+            if (nativeSetNetworkConditions(hostHandle, address, port, params) != 0) {
+                throw new IllegalArgumentException("Cannot set network conditions for " + target);
+            }
+            return;
+        }
+        runOnLoop(() -> {
+            if (nativeSetNetworkConditions(hostHandle, address, port, params) != 0) {
+                System.err.println("Cannot set network conditions for " + target);
+            }
+        });
+    }
+
+    /**
+     * Returns the network emulator counters, or {@code null} if no conditions were ever set.
+     * Safe to call from any thread; counters may be slightly stale.
+     */
+    public ENetNetworkEmulatorStats getNetworkEmulatorStats() {
+        long[] values = new long[8];
+        if (hostHandle == 0 || !nativeNetworkEmulatorStats(hostHandle, values)) {
+            return null;
+        }
+        return new ENetNetworkEmulatorStats(values);
+    }
+
+    /**
+     * Runs the event loop at a fixed {@code ticksPerSecond} instead of whenever input arrives.
+     * Each tick runs the queued commands, takes every pending event from the host, dispatches
+     * them, calls the {@link ENetTickListener}s and then flushes once, so that everything sent
+     * during a tick leaves together. Between ticks the loop sleeps without servicing the host,
+     * so acknowledgements, pings and retransmissions also go out only at the tick rate, and
+     * calls from other threads wait for the next tick.
+     * Must be called before {@link #startEventLoop()}; cannot be combined with flyweight events.
+     */
+    public void enableTicks(int ticksPerSecond) {
+        if (running.get()) {
+            throw new IllegalStateException("Ticks must be enabled before the event loop starts");
+        }
+        ENetTickScheduler scheduler = new ENetTickScheduler(ticksPerSecond);
+        if (ticker != null) {
+            for (ENetTickListener listener : ticker.listeners()) {
+                scheduler.addListener(listener);
             }
         }
+        ticker = scheduler;
+    }
+
+    /**
+     * Registers {@code listener} to run on the loop thread every tick. May be called at any time
+     * after {@link #enableTicks(int)}.
+     */
+    public void addTickListener(ENetTickListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null");
+        }
+        requireTicks().addListener(listener);
+    }
+
+    public boolean removeTickListener(ENetTickListener listener) {
+        return ticker != null && ticker.removeListener(listener);
+    }
+
+    /**
+     * Returns the tick counters, or {@code null} if ticks are not enabled. Safe to call from any
+     * thread; counters may be slightly stale.
+     */
+    public ENetTickStats getTickStats() {
+        return ticker != null ? ticker.snapshot() : null;
+    }
+
+    private ENetTickScheduler requireTicks() {
+        if (ticker == null) {
+            throw new IllegalStateException("Ticks are not enabled");
+        }
+        return ticker;
+    }
+
+    void setLoopThreadName(String loopThreadName) {
+        this.loopThreadName = loopThreadName;
     }
 
     public void startEventLoop() {
+        if (flyweightEvent != null && handlerExecutor != null) {
+            throw new IllegalStateException("Flyweight events cannot be combined with a handler executor");
+        }
+        if (flyweightEvent != null && channelLanes != null) {
+            throw new IllegalStateException("Flyweight events cannot be combined with channel priorities");
+        }
+        if (flyweightEvent != null && ticker != null) {
+            throw new IllegalStateException("Flyweight events cannot be combined with ticks");
+        }
+        if ((handlerExecutor != null || coalescer != null) && commandQueue == null) {
+            commandQueue = new ENetCommandQueue(DEFAULT_COMMAND_QUEUE_CAPACITY);
+        }
         if (running.compareAndSet(false, true)) {
+            if (handlerExecutor != null) {
+                handlerExecutor.start(this::handleEvent);
+            }
+            if (wakeChannel == 0) {
+                wakeChannel = nativeCreateWakeChannel();
+            }
             eventLoop = Executors.newSingleThreadExecutor(r -> {
-                Thread t = new Thread(r, "ENet-EventLoop");
+                Thread t = new Thread(r, loopThreadName);
                 t.setDaemon(true);
                 return t;
             });
-            eventLoop.execute(this::eventLoop);
+            eventLoop.execute(ticker != null ? this::tickLoop : this::eventLoop);
         }
     }
 
     public void stopEventLoop() {
         if (running.compareAndSet(true, false)) {
+            if (ticker != null) {
+                LockSupport.unpark(loopThread);
+            } else if (wakeChannel != 0) {
+                nativeWakeup(wakeChannel);
+            }
             if (eventLoop != null) {
                 eventLoop.shutdown();
             }
         }
     }
 
+    /**
+     * Wakes the event loop if it is blocked waiting for input. Commands queued from other threads
+     * wake the loop automatically; call this after touching the host some other way. Does nothing
+     * when ticks are enabled, since the loop then only wakes for the next tick.
+     */
+    public void wakeup() {
+        if (ticker == null && wakeChannel != 0 && Thread.currentThread() != loopThread && wakePending.compareAndSet(false, true)) {
+            nativeWakeup(wakeChannel);
+        }
+    }
+
+    // Services without blocking while there is work, then sleeps in the socket wait until input,
+    // a wakeup or the next ENet timer
     private void eventLoop() {
+        loopThread = Thread.currentThread();
+        while (running.get()) {
+            wakePending.set(false);
+            drainCommands();
+            boolean idle;
+            if (channelLanes != null && channelLanes.isFull()) {
+                idle = false;
+            } else if (eventBatch != null) {
+                idle = serviceBatch(eventBatch, 0) <= 0;
+                while (eventBatch.next()) {
+                    ENetPeer peer = resolvePeer(eventBatch.getType(), eventBatch.getPeerHandle(), eventBatch.getPeerID());
+                    if (flyweightEvent != null) {
+                        dispatchEvent(fillFlyweight(eventBatch, peer));
+                    } else {
+                        deliverEvent(eventBatch.toEvent(peer));
+                    }
+                }
+            } else if (channelLanes != null) {
+                idle = !stageEvents();
+            } else if (flyweightEvent != null) {
+                idle = !serviceFlyweight();
+                if (!idle) {
+                    dispatchEvent(flyweightEvent);
+                }
+            } else {
+                ENetEvent event = service(0);
+                idle = event == null;
+                if (event != null) {
+                    dispatchEvent(event);
+                }
+            }
+            if (channelLanes != null) {
+                channelLanes.drain(this::dispatchEvent, false);
+                idle &= channelLanes.isEmpty();
+            }
+            if (backpressure != null) {
+                backpressure.check();
+            }
+            if (idle && running.get() && (commandQueue == null || commandQueue.isEmpty())
+                    && (coalescer == null || !coalescer.hasPending())) {
+                nativeWait(hostHandle, wakeChannel, nativeNextTimeout(hostHandle, maxWaitMillis));
+            }
+        }
+        if (channelLanes != null) {
+            channelLanes.clear();
+        }
+    }
+
+    // Sleeps until each tick is due; late wakeups show up in the tick's delta, not the schedule
+    private void tickLoop() {
+        loopThread = Thread.currentThread();
+        ticker.start(System.nanoTime());
         while (running.get()) {
-            ENetEvent event = service(10);
-            if (event != null) {
-                handleEvent(event);
+            long now = System.nanoTime();
+            long remaining = ticker.nanosUntilDue(now);
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+                continue;
             }
+            runTick(now);
+        }
+        tickEvents.clear();
+        if (channelLanes != null) {
+            channelLanes.clear();
         }
     }
 
-    private void handleEvent(ENetEvent event) {
-        ENetEventType eventType = event.getEventType();
-        List<Method> methods = handlerMethods.get(eventType);
-        if (methods != null) {
-            for (Method method : methods) {
-                for (Object handler : handlers) {
-                    try {
-                        method.invoke(handler, event);
-                    } catch (Exception e) {
-                        System.err.println("Error handling event: " + e.getMessage());
-                        e.printStackTrace();
+    // Takes all events before dispatching any, so that ENet's own sends while servicing never
+    // carry handler output and the tick's single flush does
+    private void runTick(long start) {
+        double deltaSeconds = ticker.begin(start);
+        if (commandQueue != null) {
+            commandQueue.drain(this::executeCommand);
+        }
+        if (eventBatch != null) {
+            while (tickEvents.size() < TICK_EVENT_LIMIT && serviceBatch(eventBatch, 0) > 0) {
+                while (eventBatch.next()) {
+                    ENetPeer peer = resolvePeer(eventBatch.getType(), eventBatch.getPeerHandle(), eventBatch.getPeerID());
+                    tickEvents.add(eventBatch.toEvent(peer));
+                }
+            }
+        } else {
+            ENetEvent event;
+            while (tickEvents.size() < TICK_EVENT_LIMIT && (event = service(0)) != null) {
+                tickEvents.add(event);
+            }
+        }
+        int events = tickEvents.size();
+        long serviced = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            deliverEvent(tickEvents.get(i));
+        }
+        tickEvents.clear();
+        if (channelLanes != null) {
+            channelLanes.drain(this::dispatchEvent, true);
+        }
+        long handled = System.nanoTime();
+        ticker.runListeners(deltaSeconds);
+        long listened = System.nanoTime();
+        if (backpressure != null) {
+            backpressure.check();
+        }
+        flushCoalesced();
+        nativeFlush(hostHandle);
+        ticker.end(start, serviced, handled, listened, System.nanoTime(), events);
+    }
+
+    // Services until ENet has no more events or the lanes are full
+    private boolean stageEvents() {
+        boolean any = false;
+        ENetEvent event;
+        while (!channelLanes.isFull() && (event = service(0)) != null) {
+            deliverEvent(event);
+            any = true;
+        }
+        return any;
+    }
+
+    // Receives wait in their channel's lane; any other event first flushes the lanes, keeping
+    // each peer's receives ahead of its disconnect and behind its connect
+    private void deliverEvent(ENetEvent event) {
+        if (channelLanes == null) {
+            dispatchEvent(event);
+        } else if (event.getType() == ENetEventType.RECEIVE.getValue()) {
+            channelLanes.add(event);
+        } else {
+            channelLanes.drain(this::dispatchEvent, true);
+            dispatchEvent(event);
+        }
+    }
+
+    // Fills the flyweight from the next event without allocating; returns false if there was none
+    private boolean serviceFlyweight() {
+        flushCoalesced();
+        expireConnects();
+        ENetPacket packet = nativeServiceInto(hostHandle, 0, eventFields, flyweightScratch);
+        int type = (int) eventFields[0];
+        if (type == ENetEventType.NONE.getValue()) {
+            return false;
+        }
+        if (packet == null && eventFields[5] >= 0) {
+            flyweightPacket.reset((int) eventFields[5], (int) eventFields[6]);
+            packet = flyweightPacket;
+        }
+        ENetPeer peer = resolvePeer(type, eventFields[1], (int) eventFields[2]);
+        flyweightEvent.set(type, peer, (byte) eventFields[3], (int) eventFields[4], packet);
+        return true;
+    }
+
+    private ENetEvent fillFlyweight(ENetEventBatch batch, ENetPeer peer) {
+        ENetPacket packet = null;
+        if (batch.getType() == ENetEventType.RECEIVE.getValue()) {
+            if (batch.getPacketHandle() == 0 && batch.getDataLength() <= flyweightScratch.capacity()) {
+                batch.copyData(flyweightScratch);
+                flyweightPacket.reset(batch.getDataLength(), batch.getPacketFlags());
+                packet = flyweightPacket;
+            } else {
+                packet = batch.takePacket();
+            }
+        }
+        flyweightEvent.set(batch.getType(), peer, batch.getChannelID(), batch.getData(), packet);
+        return flyweightEvent;
+    }
+
+    private boolean shouldEnqueue() {
+        return commandQueue != null && running.get() && Thread.currentThread() != loopThread;
+    }
+
+    private void enqueue(int op, ENetPeer peer, byte channelID, byte[] data, ByteBuffer buffer,
+                         int offset, int length, int flags) {
+        enqueue(op, peer, channelID, data, buffer, offset, length, flags, null);
+    }
+
+    private void enqueue(int op, ENetPeer peer, byte channelID, byte[] data, ByteBuffer buffer,
+                         int offset, int length, int flags, ENetPeerGroup group) {
+        while (!offer(op, peer, channelID, data, buffer, offset, length, flags, group)) {
+            if (!running.get()) {
+                // close() sets closed before stopping the loop, so this sees it
+                if (closed) {
+                    if (buffer != null) {
+                        nativeRecycleDirect(buffer, offset);
                     }
+                    return;
+                }
+                throw new IllegalStateException("Event loop stopped while the command queue was full");
+            }
+            wakeup();
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean offer(int op, ENetPeer peer, byte channelID, byte[] data, ByteBuffer buffer,
+                          int offset, int length, int flags, ENetPeerGroup group) {
+        if (commandQueue.offer(op, peer, channelID, data, buffer, offset, length, flags, group)) {
+            wakeup();
+            return true;
+        }
+        return false;
+    }
+
+    private void drainCommands() {
+        if (commandQueue != null && commandQueue.drain(this::executeCommand) > 0) {
+            flushCoalesced();
+            nativeFlush(hostHandle);
+        }
+    }
+
+    // Commands for a peer that disconnected while they were queued are skipped: its native slot
+    // may already belong to another connection
+    private void executeCommand(ENetCommandQueue.Command command) {
+        switch (command.op) {
+            case ENetCommandQueue.SEND:
+                if (isCurrentPeer(command.peer)) {
+                    sendNow(command.peer.getHandle(), command.channelID, command.data, command.flags);
+                }
+                break;
+            case ENetCommandQueue.SEND_DIRECT:
+                if (isCurrentPeer(command.peer)) {
+                    sendNow(command.peer.getHandle(), command.channelID, command.buffer,
+                            command.offset, command.length, command.flags);
+                } else {
+                    nativeRecycleDirect(command.buffer, command.offset);
+                }
+                break;
+            case ENetCommandQueue.BROADCAST:
+                broadcastNow(command.channelID, command.data, command.flags);
+                break;
+            case ENetCommandQueue.BROADCAST_DIRECT:
+                broadcastNow(command.channelID, command.buffer,
+                        command.offset, command.length, command.flags);
+                break;
+            case ENetCommandQueue.GROUP_SEND:
+                sendToGroupNow(command.group, command.channelID, command.data, command.flags);
+                break;
+            case ENetCommandQueue.GROUP_SEND_DIRECT:
+                sendToGroupNow(command.group, command.channelID, command.buffer,
+                        command.offset, command.length, command.flags);
+                break;
+            case ENetCommandQueue.TASK:
+                try {
+                    command.task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error running loop task: " + e.getMessage());
+                    e.printStackTrace();
+                }
+                break;
+            case ENetCommandQueue.DISCONNECT:
+                if (isCurrentPeer(command.peer)) {
+                    flushCoalesced();
+                    nativeDisconnectPeer(hostHandle, command.peer.getHandle(), command.flags);
+                }
+                break;
+            default:
+                // FLUSH: the drain always ends with a single flush
+                break;
+        }
+    }
+
+    private void dispatchEvent(ENetEvent event) {
+        ENetPacket packet = event.getPacket();
+        if (coalescer != null && packet != null && coalescer.isCoalesced(event.getChannelID())) {
+            // Each message is copied out so the packet can be freed before handlers run
+            try {
+                ENetCoalescer.split(packet.getBuffer(), message -> {
+                    byte[] data = new byte[message.remaining()];
+                    message.get(data);
+                    dispatchMessage(new ENetEvent(event.getType(), event.getPeer(), event.getChannelID(),
+                            event.getData(), new ENetPacket(0, data, packet.getFlags())));
+                });
+            } catch (IllegalArgumentException e) {
+                System.err.println("Dropping malformed coalesced packet from " + event.getPeer() + ": " + e.getMessage());
+            } finally {
+                packet.release();
+            }
+            return;
+        }
+        dispatchMessage(event);
+    }
+
+    private void dispatchMessage(ENetEvent event) {
+        if (handlerExecutor != null) {
+            handlerExecutor.submit(event);
+        } else {
+            handleEvent(event);
+        }
+    }
+
+    private void handleEvent(ENetEvent event) {
+        dispatcher.dispatch(event);
+        ENetEventPublisher[] targets = publishers;
+        if (targets.length > 0) {
+            publish(event, targets);
+        }
+        ENetPacket packet = event.getPacket();
+        if (packet != null && (autoReleasePackets || event.isReusable()) && !event.isRetained()) {
+            packet.release();
+        }
+    }
+
+    // Copies the event once for every publisher that wants it, since the original is released
+    private static void publish(ENetEvent event, ENetEventPublisher[] targets) {
+        ENetEvent copy = null;
+        for (ENetEventPublisher publisher : targets) {
+            if (publisher.accepts(event)) {
+                if (copy == null) {
+                    copy = event.copy();
                 }
+                publisher.publish(copy);
             }
         }
     }
 
     public ENetEvent service(int timeoutMillis) {
-        return nativeService(hostHandle, timeoutMillis);
+        flushCoalesced();
+        expireConnects();
+        ENetPacket packet = nativeService(hostHandle, timeoutMillis, eventFields);
+        int type = (int) eventFields[0];
+        if (type == ENetEventType.NONE.getValue()) {
+            return null;
+        }
+        ENetPeer peer = resolvePeer(type, eventFields[1], (int) eventFields[2]);
+        return new ENetEvent(type, peer, (byte) eventFields[3], (int) eventFields[4], packet);
+    }
+
+    /**
+     * Fills {@code into[0..ENetStats.HOST_FIELDS)} with the host's traffic totals and peer
+     * counts. Safe to call from any thread.
+     */
+    public void stats(long[] into) {
+        if (into.length < ENetStats.HOST_FIELDS) {
+            throw new IllegalArgumentException("Stats array needs " + ENetStats.HOST_FIELDS + " elements");
+        }
+        nativeHostStats(hostHandle, into);
+    }
+
+    /**
+     * Fills {@code into} with one {@link ENetStats#PEER_FIELDS}-long record per active peer, in a
+     * single native call, and returns the number of records written. Queue lengths can only be
+     * read on the loop thread, so from other threads the read is run on the loop through the
+     * command queue; without a command queue they are reported as -1. Returns -1 if the loop
+     * did not pick the request up within a second.
+     */
+    public int peerStats(long[] into) {
+        if (!running.get() || Thread.currentThread() == loopThread) {
+            return nativePeerStats(hostHandle, into, true);
+        }
+        if (commandQueue == null) {
+            return nativePeerStats(hostHandle, into, false);
+        }
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        runOnLoop(() -> result.complete(nativePeerStats(hostHandle, into, true)));
+        try {
+            return result.get(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (ExecutionException | TimeoutException e) {
+            return -1;
+        }
+    }
+
+    // True on the loop thread, or on any thread while no loop is running
+    boolean isLoopContext() {
+        return !running.get() || Thread.currentThread() == loopThread;
+    }
+
+    // Runs task on the loop thread, or right away if called from it or no loop is running.
+    // Requires the command queue when called from another thread.
+    void runOnLoop(Runnable task) {
+        if (closed) {
+            return;
+        }
+        if (!running.get() || Thread.currentThread() == loopThread) {
+            task.run();
+            return;
+        }
+        if (commandQueue == null) {
+            throw new IllegalStateException("Calls from other threads need the command queue enabled");
+        }
+        while (!commandQueue.offer(task)) {
+            if (!running.get()) {
+                if (closed) {
+                    return;
+                }
+                throw new IllegalStateException("Event loop stopped while the command queue was full");
+            }
+            wakeup();
+            Thread.onSpinWait();
+        }
+        wakeup();
+    }
+
+    /**
+     * Returns the canonical peer in native slot {@code peerID}, or {@code null} if the slot is free.
+     * The same instance is handed to every event of a connection.
+     */
+    public ENetPeer getPeer(int peerID) {
+        return peerID >= 0 && peerID < peers.length() ? peers.get(peerID) : null;
+    }
+
+    int getPeerCapacity() {
+        return peers.length();
+    }
+
+    // Interns one ENetPeer per native slot: created on CONNECT (or by connect()), recycled on DISCONNECT
+    private ENetPeer resolvePeer(int type, long peerHandle, int peerID) {
+        if (peerHandle == 0) {
+            return null;
+        }
+        if (peerID < 0 || peerID >= peers.length()) {
+            return new ENetPeer(peerHandle, peerID, nativePeerAddress(peerHandle));
+        }
+        ENetPeer peer = peers.get(peerID);
+        if (peer == null || (type == ENetEventType.CONNECT.getValue() && peer.isConnected())) {
+            peer = new ENetPeer(peerHandle, peerID, nativePeerAddress(peerHandle));
+            peers.set(peerID, peer);
+        }
+        if (type == ENetEventType.CONNECT.getValue()) {
+            peer.setConnected(true);
+            if (backpressure != null) {
+                backpressure.reset(peerID);
+            }
+        } else if (type == ENetEventType.DISCONNECT.getValue()
+                || type == ENetEventType.DISCONNECT_TIMEOUT.getValue()) {
+            peer.setConnected(false);
+            peers.compareAndSet(peerID, peer, null);
+            if (backpressure != null) {
+                backpressure.reset(peerID);
+            }
+        }
+        if (pendingConnectCount > 0 && type != ENetEventType.RECEIVE.getValue()) {
+            settleConnect(type, peer);
+        }
+        return peer;
+    }
+
+    /**
+     * Services the host once and drains every queued event into {@code batch}.
+     * Returns the number of events written, or -1 on failure.
+     */
+    public int serviceBatch(ENetEventBatch batch, int timeoutMillis) {
+        flushCoalesced();
+        expireConnects();
+        batch.clear();
+        int count = nativeServiceBatch(hostHandle, timeoutMillis, batch.buffer(), batch.maxEvents());
+        batch.fill(count);
+        return count;
     }
 
     public ENetPeer connect(String host, int port, int channelCount) {
         return connect(host, port, channelCount, 0);
     }
 
+    /**
+     * Starts connecting to {@code host:port} and returns the peer right away; its CONNECT event
+     * follows once the handshake completes. Calls from other threads while the loop runs are
+     * carried out on the loop thread, which needs the command queue, and block until it did.
+     */
     public ENetPeer connect(String host, int port, int channelCount, int data) {
+        if (!running.get() || Thread.currentThread() == loopThread) {
+            return connectNow(host, port, channelCount, data);
+        }
+        // enet_host_connect must not race the service call on the loop thread
+        CompletableFuture<ENetPeer> result = new CompletableFuture<>();
+        runOnLoop(() -> {
+            try {
+                result.complete(connectNow(host, port, channelCount, data));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        while (true) {
+            try {
+                return result.get(maxWaitMillis + 10L, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (!running.get() && !result.isDone()) {
+                    throw new IllegalStateException("Event loop stopped before connecting to " + host + ":" + port);
+                }
+            } catch (ExecutionException e) {
+                throw (RuntimeException) e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while connecting to " + host + ":" + port, e);
+            }
+        }
+    }
+
+    private ENetPeer connectNow(String host, int port, int channelCount, int data) {
         long peerHandle = nativeConnect(hostHandle, host, port, channelCount, data);
         if (peerHandle == 0) {
             throw new RuntimeException("Failed to connect to " + host + ":" + port);
         }
-        return new ENetPeer(peerHandle, new ENetAddress(host, port));
+        int peerID = nativePeerID(peerHandle);
+        ENetPeer peer = new ENetPeer(peerHandle, peerID, new ENetAddress(host, port));
+        if (peerID >= 0 && peerID < peers.length()) {
+            peers.set(peerID, peer);
+        }
+        return peer;
+    }
+
+    public CompletableFuture<ENetPeer> connectAsync(String host, int port, int channelCount, long timeoutMillis) {
+        return connectAsync(host, port, channelCount, 0, timeoutMillis);
+    }
+
+    /**
+     * Starts a connection like {@link #connect(String, int, int, int)} and returns a future that
+     * completes with the peer on its CONNECT event, before the handlers see it. The future fails
+     * with a {@link ConnectException} if ENet gives up on the handshake, or with a
+     * {@link TimeoutException} once {@code timeoutMillis} have passed, and the attempt is then
+     * abandoned. The timeout is checked whenever the host is serviced. Stages chained without
+     * an executor run on the thread that services the host. Calls from other threads while the
+     * loop runs need the command queue.
+     */
+    public CompletableFuture<ENetPeer> connectAsync(String host, int port, int channelCount, int data,
+                                                    long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        CompletableFuture<ENetPeer> future = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        runOnLoop(() -> {
+            ENetPeer peer;
+            try {
+                peer = connect(host, port, channelCount, data);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            trackConnect(peer, future, deadline);
+        });
+        return future;
+    }
+
+    private void trackConnect(ENetPeer peer, CompletableFuture<ENetPeer> future, long deadline) {
+        if (peer.getID() < 0 || peer.getID() >= peers.length()) {
+            future.completeExceptionally(new ConnectException("No peer slot for " + peer.getAddress()));
+            return;
+        }
+        if (pendingConnects == null) {
+            pendingConnects = new PendingConnect[peers.length()];
+        }
+        if (pendingConnectCount == 0 || deadline - nextConnectDeadline < 0) {
+            nextConnectDeadline = deadline;
+        }
+        pendingConnects[peer.getID()] = new PendingConnect(peer, future, deadline);
+        pendingConnectCount++;
+    }
+
+    // Completes the pending connect of the event's peer slot, if any
+    private void settleConnect(int type, ENetPeer peer) {
+        int peerID = peer.getID();
+        PendingConnect pending = peerID >= 0 && peerID < pendingConnects.length ? pendingConnects[peerID] : null;
+        if (pending == null || pending.peer.getHandle() != peer.getHandle()) {
+            return;
+        }
+        pendingConnects[peerID] = null;
+        pendingConnectCount--;
+        if (type == ENetEventType.CONNECT.getValue()) {
+            pending.future.complete(peer);
+        } else {
+            pending.future.completeExceptionally(new ConnectException("Connection to " + peer.getAddress() + " failed"));
+        }
+    }
+
+    // Abandons pending connects whose timeout has passed; scans only once the earliest is due
+    private void expireConnects() {
+        if (pendingConnectCount == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - nextConnectDeadline < 0) {
+            return;
+        }
+        long next = Long.MAX_VALUE;
+        boolean any = false;
+        for (int peerID = 0; peerID < pendingConnects.length; peerID++) {
+            PendingConnect pending = pendingConnects[peerID];
+            if (pending == null) {
+                continue;
+            }
+            if (now - pending.deadline < 0) {
+                if (!any || pending.deadline - next < 0) {
+                    next = pending.deadline;
+                    any = true;
+                }
+                continue;
+            }
+            pendingConnects[peerID] = null;
+            pendingConnectCount--;
+            // A peer that never connected is reset right away, without a disconnect event
+            nativeDisconnectPeer(hostHandle, pending.peer.getHandle(), 0);
+            peers.compareAndSet(peerID, pending.peer, null);
+            pending.future.completeExceptionally(new TimeoutException(
+                    "Connection to " + pending.peer.getAddress() + " timed out"));
+        }
+        nextConnectDeadline = next;
+    }
+
+    private void failPendingConnects() {
+        if (pendingConnects == null) {
+            return;
+        }
+        for (int peerID = 0; peerID < pendingConnects.length; peerID++) {
+            PendingConnect pending = pendingConnects[peerID];
+            if (pending != null) {
+                pendingConnects[peerID] = null;
+                pending.future.completeExceptionally(new ConnectException("Host closed"));
+            }
+        }
+        pendingConnectCount = 0;
+    }
+
+    /**
+     * Publishes every event of this host. See {@link ENetEventPublisher} for buffering and
+     * threading; {@code executor} may be {@code null}.
+     */
+    public ENetEventPublisher publishEvents(int bufferSize, ENetHandlerExecutor.OverflowPolicy overflowPolicy,
+                                            Executor executor) {
+        return addPublisher(new ENetEventPublisher(this, null, ENetEventHandler.ANY_CHANNEL, bufferSize,
+                overflowPolicy, executor));
+    }
+
+    /**
+     * Publishes the events of {@code peer}, completing after its disconnect.
+     */
+    public ENetEventPublisher publishEvents(ENetPeer peer, int bufferSize,
+                                            ENetHandlerExecutor.OverflowPolicy overflowPolicy, Executor executor) {
+        if (peer == null) {
+            throw new IllegalArgumentException("Peer must not be null");
+        }
+        return addPublisher(new ENetEventPublisher(this, peer, ENetEventHandler.ANY_CHANNEL, bufferSize,
+                overflowPolicy, executor));
+    }
+
+    /**
+     * Publishes the receive events of channel {@code channelID}.
+     */
+    public ENetEventPublisher publishChannel(int channelID, int bufferSize,
+                                             ENetHandlerExecutor.OverflowPolicy overflowPolicy, Executor executor) {
+        if (channelID < 0 || channelID >= ENetChannelLanes.CHANNEL_COUNT) {
+            throw new IllegalArgumentException("Channel ID must be between 0 and " + (ENetChannelLanes.CHANNEL_COUNT - 1));
+        }
+        return addPublisher(new ENetEventPublisher(this, null, channelID, bufferSize, overflowPolicy, executor));
+    }
+
+    private synchronized ENetEventPublisher addPublisher(ENetEventPublisher publisher) {
+        ENetEventPublisher[] current = publishers;
+        ENetEventPublisher[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = publisher;
+        publishers = updated;
+        return publisher;
+    }
+
+    synchronized void removePublisher(ENetEventPublisher publisher) {
+        ENetEventPublisher[] current = publishers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == publisher) {
+                ENetEventPublisher[] updated = new ENetEventPublisher[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                publishers = updated;
+                return;
+            }
+        }
     }
 
     public int send(ENetPeer peer, byte channelID, byte[] data) {
@@ -187,7 +1226,52 @@ public class ENetConnection implements AutoCloseable {
     }
 
     public int send(ENetPeer peer, byte channelID, byte[] data, int flags) {
-        return nativeSend(hostHandle, peer.getHandle(), channelID, data, flags);
+        if (shouldEnqueue()) {
+            if (backpressure != null) {
+                int verdict = backpressure.screen(peer.getID(), channelID, flags);
+                if (verdict == ENetBackpressure.COALESCE) {
+                    return coalesceLatest(peer, channelID, data, flags);
+                } else if (verdict != ENetBackpressure.ADMIT) {
+                    return verdict;
+                }
+            }
+            return offer(ENetCommandQueue.SEND, peer, channelID, data, null,
+                    0, data.length, flags, null) ? 0 : -1;
+        }
+        return sendNow(peer.getHandle(), channelID, data, flags);
+    }
+
+    /**
+     * Sends {@code length} bytes of a direct buffer starting at {@code offset}. Slots from an
+     * {@link ENetBufferPool} are transmitted without copying and returned to the pool once ENet
+     * is done with them; other direct buffers are copied once. A pool slot passes to the
+     * connection either way: when the send fails and -1 is returned, for instance because the
+     * command queue is full, the slot has already gone back to the pool and must not be
+     * released again.
+     */
+    public int send(ENetPeer peer, byte channelID, ByteBuffer data, int offset, int length, int flags) {
+        checkDirectRange(data, offset, length);
+        if (shouldEnqueue()) {
+            if (backpressure != null) {
+                int verdict = backpressure.screen(peer.getID(), channelID, flags);
+                if (verdict != ENetBackpressure.ADMIT) {
+                    byte[] copy = verdict == ENetBackpressure.COALESCE ? copyDirect(data, offset, length) : null;
+                    nativeRecycleDirect(data, offset);
+                    return copy != null ? coalesceLatest(peer, channelID, copy, flags) : verdict;
+                }
+            }
+            if (!offer(ENetCommandQueue.SEND_DIRECT, peer, channelID, null, data,
+                    offset, length, flags, null)) {
+                nativeRecycleDirect(data, offset);
+                return -1;
+            }
+            return 0;
+        }
+        return sendNow(peer.getHandle(), channelID, data, offset, length, flags);
+    }
+
+    public int send(ENetPeer peer, byte channelID, ByteBuffer data, int flags) {
+        return send(peer, channelID, data, data.position(), data.remaining(), flags);
     }
 
     public void broadcast(byte channelID, byte[] data) {
@@ -195,10 +1279,220 @@ public class ENetConnection implements AutoCloseable {
     }
 
     public void broadcast(byte channelID, byte[] data, int flags) {
-        nativeBroadcast(hostHandle, channelID, data, flags);
+        if (shouldEnqueue()) {
+            enqueue(ENetCommandQueue.BROADCAST, null, channelID, data, null, 0, data.length, flags);
+            return;
+        }
+        broadcastNow(channelID, data, flags);
+    }
+
+    public void broadcast(byte channelID, ByteBuffer data, int offset, int length, int flags) {
+        checkDirectRange(data, offset, length);
+        if (shouldEnqueue()) {
+            enqueue(ENetCommandQueue.BROADCAST_DIRECT, null, channelID, null, data, offset, length, flags);
+            return;
+        }
+        broadcastNow(channelID, data, offset, length, flags);
+    }
+
+    public void broadcast(byte channelID, ByteBuffer data, int flags) {
+        broadcast(channelID, data, data.position(), data.remaining(), flags);
+    }
+
+    /**
+     * Creates an empty group of this host's peers for {@link #sendToGroup(ENetPeerGroup, byte, byte[], int)}.
+     */
+    public ENetPeerGroup createPeerGroup() {
+        return new ENetPeerGroup(this, peers.length());
+    }
+
+    /**
+     * Sends one packet to every member of {@code group}. The payload is copied once and the
+     * same packet is queued on each member.
+     */
+    public void sendToGroup(ENetPeerGroup group, byte channelID, byte[] data, int flags) {
+        checkGroup(group);
+        if (shouldEnqueue()) {
+            enqueue(ENetCommandQueue.GROUP_SEND, null, channelID, data, null, 0, data.length, flags, group);
+            return;
+        }
+        sendToGroupNow(group, channelID, data, flags);
+    }
+
+    public void sendToGroup(ENetPeerGroup group, byte channelID, ByteBuffer data, int offset, int length, int flags) {
+        checkGroup(group);
+        checkDirectRange(data, offset, length);
+        if (shouldEnqueue()) {
+            enqueue(ENetCommandQueue.GROUP_SEND_DIRECT, null, channelID, null, data, offset, length, flags, group);
+            return;
+        }
+        sendToGroupNow(group, channelID, data, offset, length, flags);
+    }
+
+    public void sendToGroup(ENetPeerGroup group, byte channelID, ByteBuffer data, int flags) {
+        sendToGroup(group, channelID, data, data.position(), data.remaining(), flags);
+    }
+
+    private void checkGroup(ENetPeerGroup group) {
+        if (group.getConnection() != this) {
+            throw new IllegalArgumentException("Peer group belongs to another connection");
+        }
+    }
+
+    private void sendToGroupNow(ENetPeerGroup group, byte channelID, byte[] data, int flags) {
+        if (closed) {
+            return;
+        }
+        byte[] payload = frameIfCoalesced(channelID, data, null, 0, data.length);
+        group.send((ids, count) -> nativeSendToGroup(hostHandle, ids, count, channelID, payload, flags));
+    }
+
+    private void sendToGroupNow(ENetPeerGroup group, byte channelID, ByteBuffer data, int offset, int length, int flags) {
+        if (closed) {
+            nativeRecycleDirect(data, offset);
+            return;
+        }
+        if (coalescer != null && coalescer.isCoalesced(channelID)) {
+            byte[] framed = frameIfCoalesced(channelID, null, data, offset, length);
+            nativeRecycleDirect(data, offset);
+            group.send((ids, count) -> nativeSendToGroup(hostHandle, ids, count, channelID, framed, flags));
+            return;
+        }
+        group.send((ids, count) -> nativeSendToGroupDirect(hostHandle, ids, count, channelID, data, offset, length, flags));
+    }
+
+    private int sendNow(long peerHandle, byte channelID, byte[] data, int flags) {
+        if (closed) {
+            return -1;
+        }
+        if (backpressure != null) {
+            int peerID = nativePeerID(peerHandle);
+            int verdict = backpressure.admit(peerHandle, peerID, channelID, data.length, flags);
+            if (verdict == ENetBackpressure.COALESCE) {
+                backpressure.storeLatest(peerID, channelID, data, flags);
+                return 0;
+            } else if (verdict != ENetBackpressure.ADMIT) {
+                return verdict;
+            }
+        }
+        if (coalescer != null && coalescer.isCoalesced(channelID)) {
+            coalescer.append(peerHandle, nativePeerID(peerHandle), channelID, data, null, 0, data.length,
+                    flags, coalescedSender);
+            return 0;
+        }
+        return nativeSend(hostHandle, peerHandle, channelID, data, flags);
+    }
+
+    private int sendNow(long peerHandle, byte channelID, ByteBuffer data, int offset, int length, int flags) {
+        if (closed) {
+            nativeRecycleDirect(data, offset);
+            return -1;
+        }
+        if (backpressure != null) {
+            int peerID = nativePeerID(peerHandle);
+            int verdict = backpressure.admit(peerHandle, peerID, channelID, length, flags);
+            if (verdict != ENetBackpressure.ADMIT) {
+                if (verdict == ENetBackpressure.COALESCE) {
+                    backpressure.storeLatest(peerID, channelID, copyDirect(data, offset, length), flags);
+                }
+                nativeRecycleDirect(data, offset);
+                return verdict == ENetBackpressure.COALESCE ? 0 : verdict;
+            }
+        }
+        if (coalescer != null && coalescer.isCoalesced(channelID)) {
+            coalescer.append(peerHandle, nativePeerID(peerHandle), channelID, null, data, offset, length,
+                    flags, coalescedSender);
+            nativeRecycleDirect(data, offset);
+            return 0;
+        }
+        return nativeSendDirect(hostHandle, peerHandle, channelID, data, offset, length, flags);
+    }
+
+    private void broadcastNow(byte channelID, byte[] data, int flags) {
+        if (closed) {
+            return;
+        }
+        nativeBroadcast(hostHandle, channelID, frameIfCoalesced(channelID, data, null, 0, data.length), flags);
+    }
+
+    private void broadcastNow(byte channelID, ByteBuffer data, int offset, int length, int flags) {
+        if (closed) {
+            nativeRecycleDirect(data, offset);
+            return;
+        }
+        if (coalescer != null && coalescer.isCoalesced(channelID)) {
+            byte[] framed = frameIfCoalesced(channelID, null, data, offset, length);
+            nativeRecycleDirect(data, offset);
+            nativeBroadcast(hostHandle, channelID, framed, flags);
+            return;
+        }
+        nativeBroadcastDirect(hostHandle, channelID, data, offset, length, flags);
+    }
+
+    // Messages that bypass the per-peer packets still carry a frame header, and go out after
+    // everything already pending so per-channel order holds
+    private byte[] frameIfCoalesced(byte channelID, byte[] data, ByteBuffer buffer, int offset, int length) {
+        if (coalescer == null || !coalescer.isCoalesced(channelID)) {
+            return data;
+        }
+        coalescer.flushAll(coalescedSender);
+        return ENetCoalescer.frame(data, buffer, offset, length);
+    }
+
+    private void flushCoalesced() {
+        if (coalescer != null && coalescer.hasPending()) {
+            coalescer.flushAll(coalescedSender);
+        }
+    }
+
+    // Off the loop the peer may have turned writable, and been flushed, before the store
+    private int coalesceLatest(ENetPeer peer, byte channelID, byte[] data, int flags) {
+        backpressure.storeLatest(peer.getID(), channelID, data, flags);
+        if (!backpressure.isCongested(peer.getID())) {
+            runOnLoop(() -> flushLatest(peer.getID()));
+        }
+        return 0;
+    }
+
+    void flushLatest(int peerID) {
+        ENetPeer peer = getPeer(peerID);
+        if (peer != null) {
+            backpressure.drainLatest(peerID, (channelID, data, flags) -> sendNow(peer.getHandle(), channelID, data, flags));
+        }
+    }
+
+    private static byte[] copyDirect(ByteBuffer data, int offset, int length) {
+        byte[] copy = new byte[length];
+        ByteBuffer view = data.duplicate();
+        view.clear();
+        view.position(offset).limit(offset + length);
+        view.get(copy);
+        return copy;
+    }
+
+    private void sendCoalesced(long peerHandle, byte channelID, byte[] data, int length, int flags) {
+        nativeSendRegion(hostHandle, peerHandle, channelID, data, 0, length, flags);
+    }
+
+    private static void checkDirectRange(ByteBuffer data, int offset, int length) {
+        if (!data.isDirect()) {
+            throw new IllegalArgumentException("ByteBuffer must be direct");
+        }
+        if (offset < 0 || length < 0 || offset + length > data.capacity()) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length
+                    + ", capacity=" + data.capacity());
+        }
     }
 
     public void flush() {
+        if (shouldEnqueue()) {
+            enqueue(ENetCommandQueue.FLUSH, null, (byte) 0, null, null, 0, 0, 0);
+            return;
+        }
+        if (closed) {
+            return;
+        }
+        flushCoalesced();
         nativeFlush(hostHandle);
     }
 
@@ -207,12 +1501,156 @@ public class ENetConnection implements AutoCloseable {
     }
 
     public void disconnectPeer(ENetPeer peer, int data) {
+        if (shouldEnqueue()) {
+            enqueue(ENetCommandQueue.DISCONNECT, peer, (byte) 0, null, null, 0, 0, data);
+            return;
+        }
+        if (closed) {
+            return;
+        }
+        flushCoalesced();
         nativeDisconnectPeer(hostHandle, peer.getHandle(), data);
     }
 
+    // Runtime tuning. Calls from other threads run on the loop thread, which needs the command
+    // queue while the loop is running (see runOnLoop).
+
+    /**
+     * Configures how fast the peer's packet throttle adapts to measured round-trip times; see
+     * {@code enet_peer_throttle_configure}. The remote end is told the new parameters as well.
+     *
+     * @param intervalMillis how often the throttle is re-evaluated
+     * @param acceleration   throttle increase per interval while the RTT is stable, out of 32
+     * @param deceleration   throttle decrease per interval while the RTT is rising, out of 32
+     */
+    public void configureThrottle(ENetPeer peer, int intervalMillis, int acceleration, int deceleration) {
+        if (intervalMillis <= 0 || acceleration < 0 || deceleration < 0) {
+            throw new IllegalArgumentException("Throttle interval must be positive and rates not negative");
+        }
+        runOnPeer(peer, handle -> nativePeerThrottleConfigure(handle, intervalMillis, acceleration, deceleration));
+    }
+
+    /**
+     * Sets when the peer is disconnected for not acknowledging reliable traffic; see
+     * {@code enet_peer_timeout}. A value of 0 restores ENet's default for that parameter
+     * (32, 5000 ms and 30000 ms).
+     */
+    public void setTimeout(ENetPeer peer, int timeoutLimit, int timeoutMinimumMillis, int timeoutMaximumMillis) {
+        if (timeoutLimit < 0 || timeoutMinimumMillis < 0 || timeoutMaximumMillis < 0) {
+            throw new IllegalArgumentException("Timeouts must not be negative");
+        }
+        runOnPeer(peer, handle -> nativePeerTimeout(handle, timeoutLimit, timeoutMinimumMillis, timeoutMaximumMillis));
+    }
+
+    /**
+     * Sets how often the peer is pinged while idle; 0 restores ENet's default of 500 ms.
+     */
+    public void setPingInterval(ENetPeer peer, int pingIntervalMillis) {
+        if (pingIntervalMillis < 0) {
+            throw new IllegalArgumentException("Ping interval must not be negative");
+        }
+        runOnPeer(peer, handle -> nativePeerPingInterval(handle, pingIntervalMillis));
+    }
+
+    /**
+     * Changes the host's bandwidth limits in bytes per second, 0 meaning unlimited. Connected
+     * peers are told the new limits on the next service.
+     */
+    public void setBandwidthLimit(int incomingBandwidth, int outgoingBandwidth) {
+        if (incomingBandwidth < 0 || outgoingBandwidth < 0) {
+            throw new IllegalArgumentException("Bandwidth must not be negative");
+        }
+        runOnLoop(() -> nativeHostBandwidthLimit(hostHandle, incomingBandwidth, outgoingBandwidth));
+    }
+
+    /**
+     * Limits the channels granted to connections established from now on; 0 means ENet's maximum.
+     */
+    public void setChannelLimit(int channelLimit) {
+        if (channelLimit < 0) {
+            throw new IllegalArgumentException("Channel limit must not be negative");
+        }
+        runOnLoop(() -> nativeHostChannelLimit(hostHandle, channelLimit));
+    }
+
+    /**
+     * Sets the socket receive buffer (SO_RCVBUF) and returns the size the OS actually applied,
+     * which may be rounded or capped, e.g. by {@code net.core.rmem_max} on Linux. Socket options
+     * are thread-safe, so this is applied right away from any thread.
+     */
+    public int setReceiveBufferSize(int bytes) {
+        return setSocketBufferSize(true, bytes);
+    }
+
+    /**
+     * Sets the socket send buffer (SO_SNDBUF); see {@link #setReceiveBufferSize(int)}.
+     */
+    public int setSendBufferSize(int bytes) {
+        return setSocketBufferSize(false, bytes);
+    }
+
+    public int getReceiveBufferSize() {
+        return nativeGetSocketBufferSize(hostHandle, true);
+    }
+
+    public int getSendBufferSize() {
+        return nativeGetSocketBufferSize(hostHandle, false);
+    }
+
+    private int setSocketBufferSize(boolean receive, int bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        int applied = nativeSetSocketBufferSize(hostHandle, receive, bytes);
+        if (applied < 0) {
+            throw new RuntimeException("Failed to set socket " + (receive ? "receive" : "send") + " buffer size");
+        }
+        return applied;
+    }
+
+    // The task is skipped if the peer disconnected before it ran, since its native slot may
+    // then belong to another connection
+    private void runOnPeer(ENetPeer peer, LongConsumer action) {
+        runOnLoop(() -> {
+            if (isCurrentPeer(peer)) {
+                action.accept(peer.getHandle());
+            }
+        });
+    }
+
+    private boolean isCurrentPeer(ENetPeer peer) {
+        return peer.getID() < 0 || getPeer(peer.getID()) == peer;
+    }
+
+    /**
+     * Stops the event loop and the handler executor, waiting for handlers still running, then
+     * destroys the host. Sends made from then on, e.g. by a handler that outlives the wait,
+     * return -1 or do nothing instead of reaching the host.
+     */
     @Override
     public void close() {
+        closed = true;
         stopEventLoop();
+        // Completing first releases a loop blocked on a full subscriber buffer
+        for (ENetEventPublisher publisher : publishers) {
+            publisher.close();
+        }
+        if (eventLoop != null && Thread.currentThread() != loopThread) {
+            // The loop may still be inside a service call; wait for it before destroying the host
+            try {
+                eventLoop.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (handlerExecutor != null) {
+            handlerExecutor.close();
+        }
+        failPendingConnects();
+        if (wakeChannel != 0) {
+            nativeDestroyWakeChannel(wakeChannel);
+            wakeChannel = 0;
+        }
         if (hostHandle != 0) {
             nativeDestroy(hostHandle);
             hostHandle = 0;
@@ -224,14 +1662,69 @@ public class ENetConnection implements AutoCloseable {
     private static native void nativeDeinitialize();
     private static native long nativeCreateHost(String host, int port, int maxClients, int maxChannels,
                                                int incomingBandwidth, int outgoingBandwidth);
+    private static native long nativeCreateHostReusePort(String host, int port, int maxClients, int maxChannels,
+                                                        int incomingBandwidth, int outgoingBandwidth);
     private static native long nativeCreateHostBound(String host, int port, int maxPeers, int maxChannels,
                                                     int incomingBandwidth, int outgoingBandwidth);
     private native long nativeConnect(long hostHandle, String host, int port, int channelCount, int data);
-    private native ENetEvent nativeService(long hostHandle, int timeoutMillis);
+    private native ENetPacket nativeService(long hostHandle, int timeoutMillis, long[] eventFields);
+    private static native int nativePeerID(long peerHandle);
+    private static native ENetAddress nativePeerAddress(long peerHandle);
+    private native ENetPacket nativeServiceInto(long hostHandle, int timeoutMillis, long[] eventFields, ByteBuffer scratch);
+    private native int nativeServiceBatch(long hostHandle, int timeoutMillis, ByteBuffer buffer, int maxEvents);
+    static native byte[] nativeTakePacketData(long packetHandle);
+    static native ByteBuffer nativePacketBuffer(long packetHandle);
+    static native void nativePacketDestroy(long packetHandle);
+    static native long nativeCreateBufferPool(ENetBufferPool pool, ByteBuffer slab, int slotSize, int slotCount);
+    static native void nativeDestroyBufferPool(long poolHandle);
     private native int nativeSend(long hostHandle, long peerHandle, byte channelID, byte[] data, int flags);
+    private native int nativeSendDirect(long hostHandle, long peerHandle, byte channelID, ByteBuffer data,
+                                        int offset, int length, int flags);
+    private native int nativeSendRegion(long hostHandle, long peerHandle, byte channelID, byte[] data,
+                                        int offset, int length, int flags);
+    private static native void nativeRecycleDirect(ByteBuffer data, int offset);
     private native void nativeBroadcast(long hostHandle, byte channelID, byte[] data, int flags);
+    private native void nativeBroadcastDirect(long hostHandle, byte channelID, ByteBuffer data,
+                                              int offset, int length, int flags);
+    private native int nativeSendToGroup(long hostHandle, int[] peerIDs, int count, byte channelID,
+                                         byte[] data, int flags);
+    private native int nativeSendToGroupDirect(long hostHandle, int[] peerIDs, int count, byte channelID,
+                                               ByteBuffer data, int offset, int length, int flags);
+    private native int nativeEnableCompression(long hostHandle, int threshold);
+    private native void nativeDisableCompression(long hostHandle);
+    private native boolean nativeCompressionStats(long hostHandle, long[] stats);
+    private native int nativeSetNetworkConditions(long hostHandle, String address, int port, int[] params);
+    private native boolean nativeNetworkEmulatorStats(long hostHandle, long[] stats);
+    private native void nativeHostStats(long hostHandle, long[] stats);
+    private native int nativePeerStats(long hostHandle, long[] stats, boolean countQueues);
     private native void nativeFlush(long hostHandle);
     private native void nativeDisconnectPeer(long hostHandle, long peerHandle, int data);
+    static native long nativePeerOutstanding(long peerHandle);
+    static native int nativePeerDropOldestUnreliable(long peerHandle, byte channelID);
+    private static native void nativePeerThrottleConfigure(long peerHandle, int interval, int acceleration, int deceleration);
+    private static native void nativePeerTimeout(long peerHandle, int timeoutLimit, int timeoutMinimum, int timeoutMaximum);
+    private static native void nativePeerPingInterval(long peerHandle, int pingInterval);
+    private native void nativeHostBandwidthLimit(long hostHandle, int incomingBandwidth, int outgoingBandwidth);
+    private native void nativeHostChannelLimit(long hostHandle, int channelLimit);
+    private native int nativeSetSocketBufferSize(long hostHandle, boolean receive, int size);
+    private native int nativeGetSocketBufferSize(long hostHandle, boolean receive);
     private native void nativeDestroy(long hostHandle);
+    private static native long nativeCreateWakeChannel();
+    private static native void nativeWakeup(long wakeChannel);
+    private static native void nativeDestroyWakeChannel(long wakeChannel);
+    private native int nativeWait(long hostHandle, long wakeChannel, int timeoutMillis);
+    private native int nativeNextTimeout(long hostHandle, int maxTimeoutMillis);
+
+    private static final class PendingConnect {
+        final ENetPeer peer;
+        final CompletableFuture<ENetPeer> future;
+        final long deadline;
+
+        PendingConnect(ENetPeer peer, CompletableFuture<ENetPeer> future, long deadline) {
+            this.peer = peer;
+            this.future = future;
+            this.deadline = deadline;
+        }
+    }
 }
 
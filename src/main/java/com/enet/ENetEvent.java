@@ -1,11 +1,19 @@
 package com.enet;
 
+/**
+ * An event delivered to handlers. Events created by {@link ENetConnection#service(int)} are
+ * standalone objects. With {@link ENetConnection#enableFlyweightEvents(int)} the event loop
+ * instead refills one reusable event per connection, which is only valid until the handler
+ * returns; use {@link #copy()} or {@link #retain()} to keep it.
+ */
 public class ENetEvent {
-    private final int type;
-    private final ENetPeer peer;
-    private final byte channelID;
-    private final int data;
-    private final ENetPacket packet;
+    private int type;
+    private ENetPeer peer;
+    private byte channelID;
+    private int data;
+    private ENetPacket packet;
+    private final boolean reusable;
+    private boolean retained;
 
     public ENetEvent(int type, ENetPeer peer, byte channelID, int data, ENetPacket packet) {
         this.type = type;
@@ -13,6 +21,21 @@ public class ENetEvent {
         this.channelID = channelID;
         this.data = data;
         this.packet = packet;
+        this.reusable = false;
+    }
+
+    // Flyweight owned by the event loop, filled with set() before each dispatch
+    ENetEvent() {
+        this.reusable = true;
+    }
+
+    void set(int type, ENetPeer peer, byte channelID, int data, ENetPacket packet) {
+        this.type = type;
+        this.peer = peer;
+        this.channelID = channelID;
+        this.data = data;
+        this.packet = packet;
+        this.retained = false;
     }
 
     public ENetEventType getEventType() {
@@ -38,5 +61,41 @@ public class ENetEvent {
     public ENetPacket getPacket() {
         return packet;
     }
-}
 
+    /**
+     * Returns {@code true} for the event loop's flyweight, which is refilled for the next event.
+     */
+    public boolean isReusable() {
+        return reusable;
+    }
+
+    /**
+     * Returns a standalone event with its own heap copy of the payload. Nothing needs to be
+     * released, and the original is released as usual.
+     */
+    public ENetEvent copy() {
+        return new ENetEvent(type, peer, channelID, data, packet != null ? packet.copy() : null);
+    }
+
+    /**
+     * Keeps the event and its payload valid after the handler returns, copying only when the
+     * payload lives in a reused buffer. The packet is then no longer auto-released: the caller
+     * owns it and must {@link ENetPacket#release()} it.
+     */
+    public ENetEvent retain() {
+        if (!reusable) {
+            retained = true;
+            return this;
+        }
+        if (packet == null || packet.isReusable()) {
+            return copy();
+        }
+        // A payload too large for the flyweight buffer is a standalone packet; hand it over
+        retained = true;
+        return new ENetEvent(type, peer, channelID, data, packet);
+    }
+
+    boolean isRetained() {
+        return retained;
+    }
+}
@@ -0,0 +1,233 @@
+package com.enet;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reusable direct buffer filled by {@link ENetConnection#serviceBatch(ENetEventBatch, int)}.
+ * Walk the events with {@link #next()}; the accessors read the current record in place.
+ */
+public class ENetEventBatch {
+    static final int HEADER_SIZE = 56;
+
+    private static final int TYPE_OFFSET = 0;
+    private static final int PEER_ID_OFFSET = 4;
+    private static final int PEER_HANDLE_OFFSET = 8;
+    private static final int PACKET_HANDLE_OFFSET = 16;
+    private static final int DATA_OFFSET = 24;
+    private static final int PACKET_FLAGS_OFFSET = 28;
+    private static final int DATA_LENGTH_OFFSET = 32;
+    private static final int CHANNEL_OFFSET = 36;
+    private static final int PORT_OFFSET = 38;
+    private static final int HOST_OFFSET = 40;
+
+    private final ByteBuffer buffer;
+    private final ByteBuffer source;
+    private final int maxEvents;
+    private int count;
+    private int index = -1;
+    private int position;
+    private int nextPosition;
+    private boolean packetTaken;
+
+    public ENetEventBatch(int capacityBytes) {
+        this(capacityBytes, Integer.MAX_VALUE);
+    }
+
+    public ENetEventBatch(int capacityBytes, int maxEvents) {
+        if (capacityBytes < HEADER_SIZE) {
+            throw new IllegalArgumentException("Batch capacity must be at least " + HEADER_SIZE + " bytes");
+        }
+        this.buffer = ByteBuffer.allocateDirect(capacityBytes).order(ByteOrder.nativeOrder());
+        this.source = buffer.duplicate();
+        this.maxEvents = maxEvents;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    int maxEvents() {
+        return maxEvents;
+    }
+
+    void clear() {
+        while (next()) {
+            // destroy any oversized packets the caller did not take
+        }
+        this.count = 0;
+        this.index = -1;
+    }
+
+    void fill(int count) {
+        this.count = Math.max(count, 0);
+        this.index = -1;
+        this.position = 0;
+        this.nextPosition = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean next() {
+        releaseCurrent();
+        if (index + 1 >= count) {
+            index = count;
+            return false;
+        }
+        index++;
+        position = nextPosition;
+        packetTaken = false;
+        int length = getPacketHandle() == 0 ? getDataLength() : 0;
+        nextPosition = position + HEADER_SIZE + ((length + 7) & ~7);
+        return true;
+    }
+
+    public int getType() {
+        return buffer.getInt(position + TYPE_OFFSET);
+    }
+
+    public ENetEventType getEventType() {
+        return ENetEventType.fromValue(getType());
+    }
+
+    public int getPeerID() {
+        return buffer.getInt(position + PEER_ID_OFFSET);
+    }
+
+    public long getPeerHandle() {
+        return buffer.getLong(position + PEER_HANDLE_OFFSET);
+    }
+
+    public byte getChannelID() {
+        return buffer.get(position + CHANNEL_OFFSET);
+    }
+
+    public int getData() {
+        return buffer.getInt(position + DATA_OFFSET);
+    }
+
+    public int getPacketFlags() {
+        return buffer.getInt(position + PACKET_FLAGS_OFFSET);
+    }
+
+    public int getDataLength() {
+        return buffer.getInt(position + DATA_LENGTH_OFFSET);
+    }
+
+    public int getPort() {
+        return buffer.getShort(position + PORT_OFFSET) & 0xFFFF;
+    }
+
+    long getPacketHandle() {
+        return buffer.getLong(position + PACKET_HANDLE_OFFSET);
+    }
+
+    /**
+     * Copies the payload of the current event into {@code dst}. Returns the number of bytes copied.
+     */
+    public int readData(byte[] dst, int offset) {
+        int length = Math.min(getDataLength(), dst.length - offset);
+        if (getPacketHandle() != 0) {
+            byte[] data = takePacketData();
+            System.arraycopy(data, 0, dst, offset, length);
+            return length;
+        }
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = buffer.get(position + HEADER_SIZE + i);
+        }
+        return length;
+    }
+
+    // Copies an inlined payload to the start of dst without allocating
+    void copyData(ByteBuffer dst) {
+        int start = position + HEADER_SIZE;
+        source.clear();
+        source.position(start).limit(start + getDataLength());
+        dst.clear();
+        dst.put(source);
+    }
+
+    public byte[] getDataCopy() {
+        if (getPacketHandle() != 0) {
+            return takePacketData();
+        }
+        byte[] data = new byte[getDataLength()];
+        readData(data, 0);
+        return data;
+    }
+
+    public ENetAddress getAddress() {
+        byte[] host = new byte[16];
+        for (int i = 0; i < host.length; i++) {
+            host[i] = buffer.get(position + HOST_OFFSET + i);
+        }
+        String hostString;
+        try {
+            hostString = InetAddress.getByAddress(host).getHostAddress();
+        } catch (UnknownHostException e) {
+            hostString = "0.0.0.0";
+        }
+        return new ENetAddress(hostString, getPort());
+    }
+
+    /**
+     * Returns a read-only view of an inlined payload. The view is only valid until the next
+     * {@link ENetConnection#serviceBatch(ENetEventBatch, int)} call on this batch.
+     */
+    public ByteBuffer getDataView() {
+        if (getPacketHandle() != 0) {
+            throw new IllegalStateException("Payload of an oversized event is not inlined; use takePacket()");
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + HEADER_SIZE).limit(position + HEADER_SIZE + getDataLength());
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the payload as a standalone packet that outlives this batch. Oversized payloads
+     * are wrapped without copying and must be released by the caller.
+     */
+    public ENetPacket takePacket() {
+        long packetHandle = getPacketHandle();
+        if (packetHandle != 0) {
+            if (packetTaken) {
+                throw new IllegalStateException("Packet of an oversized event can only be taken once");
+            }
+            packetTaken = true;
+            return new ENetPacket(packetHandle, ENetConnection.nativePacketBuffer(packetHandle), getPacketFlags());
+        }
+        return new ENetPacket(0, getDataCopy(), getPacketFlags());
+    }
+
+    /**
+     * Builds a standalone event with a fresh peer object. Prefer
+     * {@link ENetConnection#getPeer(int)} with {@link #getPeerID()} to reuse the canonical peer.
+     */
+    public ENetEvent toEvent() {
+        return toEvent(getPeerHandle() != 0 ? new ENetPeer(getPeerHandle(), getPeerID(), getAddress()) : null);
+    }
+
+    ENetEvent toEvent(ENetPeer peer) {
+        ENetPacket packet = getEventType() == ENetEventType.RECEIVE ? takePacket() : null;
+        return new ENetEvent(getType(), peer, getChannelID(), getData(), packet);
+    }
+
+    private byte[] takePacketData() {
+        if (packetTaken) {
+            throw new IllegalStateException("Packet data of an oversized event can only be taken once");
+        }
+        packetTaken = true;
+        return ENetConnection.nativeTakePacketData(getPacketHandle());
+    }
+
+    private void releaseCurrent() {
+        if (index >= 0 && index < count && !packetTaken && getPacketHandle() != 0) {
+            ENetConnection.nativePacketDestroy(getPacketHandle());
+            packetTaken = true;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.enet;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Dispatch table for {@link ENetEventHandler} methods. Each method is compiled once at
+ * registration into a {@link Consumer} bound to its handler object and stored in an array
+ * indexed by event type, so dispatch is a plain interface call with no reflection. Once a
+ * handler is bound to a channel, receives are looked up in a second table indexed by channel ID
+ * that already includes the handlers for any channel.
+ */
+public class ENetEventDispatcher {
+    // Annotated methods per class, scanned once however many instances are registered
+    private static final ClassValue<Method[]> HANDLER_METHODS = new ClassValue<Method[]>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            List<Method> methods = new ArrayList<>();
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.getAnnotation(ENetEventHandler.class) != null) {
+                    methods.add(method);
+                }
+            }
+            return methods.toArray(new Method[0]);
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    private volatile Consumer<ENetEvent>[][] invokers = (Consumer<ENetEvent>[][]) new Consumer<?>[ENetEventType.values().length][0];
+    private volatile Consumer<ENetEvent>[][] receiveInvokers;
+
+    public static boolean hasHandlerMethods(Class<?> type) {
+        return HANDLER_METHODS.get(type).length > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized void register(Object handler) {
+        Consumer<ENetEvent>[][] table = invokers.clone();
+        Consumer<ENetEvent>[][] byChannel = receiveInvokers != null ? receiveInvokers.clone() : null;
+        int receive = ENetEventType.RECEIVE.getValue();
+        for (Method method : HANDLER_METHODS.get(handler.getClass())) {
+            ENetEventHandler annotation = method.getAnnotation(ENetEventHandler.class);
+            int index = annotation.value().getValue();
+            int channel = annotation.channel();
+            if (channel != ENetEventHandler.ANY_CHANNEL && (index != receive || channel < 0 || channel > 255)) {
+                throw new IllegalArgumentException(
+                    "Channel must be between 0 and 255 and is only supported for RECEIVE: " + method.getName());
+            }
+            Consumer<ENetEvent> invoker = createInvoker(handler, method);
+            if (channel == ENetEventHandler.ANY_CHANNEL) {
+                table[index] = append(table[index], invoker);
+                if (index == receive && byChannel != null) {
+                    for (int i = 0; i < byChannel.length; i++) {
+                        byChannel[i] = append(byChannel[i], invoker);
+                    }
+                }
+            } else {
+                if (byChannel == null) {
+                    byChannel = (Consumer<ENetEvent>[][]) new Consumer<?>[256][];
+                    Arrays.fill(byChannel, table[receive]);
+                }
+                byChannel[channel] = append(byChannel[channel], invoker);
+            }
+        }
+        receiveInvokers = byChannel;
+        invokers = table;
+    }
+
+    private static Consumer<ENetEvent>[] append(Consumer<ENetEvent>[] current, Consumer<ENetEvent> invoker) {
+        Consumer<ENetEvent>[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = invoker;
+        return updated;
+    }
+
+    public void dispatch(ENetEvent event) {
+        dispatch(event.getType(), event);
+    }
+
+    public void dispatch(ENetEventType eventType, ENetEvent event) {
+        dispatch(eventType.getValue(), event);
+    }
+
+    private void dispatch(int type, ENetEvent event) {
+        Consumer<ENetEvent>[] handlers;
+        Consumer<ENetEvent>[][] byChannel = receiveInvokers;
+        if (byChannel != null && type == ENetEventType.RECEIVE.getValue()) {
+            handlers = byChannel[event.getChannelID() & 0xFF];
+        } else {
+            Consumer<ENetEvent>[][] table = invokers;
+            if (type < 0 || type >= table.length) {
+                return;
+            }
+            handlers = table[type];
+        }
+        for (Consumer<ENetEvent> invoker : handlers) {
+            try {
+                invoker.accept(event);
+            } catch (RuntimeException | Error e) {
+                rethrowIfFatal(e);
+                System.err.println("Error handling event: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Rethrows errors the VM cannot recover from. Everything else a handler throws, a
+     * {@link StackOverflowError} included, is logged so the event loop keeps running.
+     */
+    static void rethrowIfFatal(Throwable e) {
+        if (e instanceof VirtualMachineError && !(e instanceof StackOverflowError)) {
+            throw (VirtualMachineError) e;
+        }
+    }
+
+    public boolean hasHandlers(ENetEventType eventType) {
+        return invokers[eventType.getValue()].length > 0
+                || (eventType == ENetEventType.RECEIVE && receiveInvokers != null);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Consumer<ENetEvent> createInvoker(Object handler, Method method) {
+        if (method.getParameterCount() != 1 ||
+            !method.getParameterTypes()[0].equals(ENetEvent.class)) {
+            throw new IllegalArgumentException(
+                "Handler method must accept exactly one ENetEvent parameter: " + method.getName());
+        }
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        Class<?> declaringClass = method.getDeclaringClass();
+        MethodHandle handle;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+            handle = lookup.unreflect(method);
+            try {
+                CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                        isStatic ? MethodType.methodType(Consumer.class)
+                                 : MethodType.methodType(Consumer.class, declaringClass),
+                        MethodType.methodType(void.class, Object.class),
+                        handle,
+                        MethodType.methodType(void.class, ENetEvent.class));
+                return isStatic ? (Consumer<ENetEvent>) site.getTarget().invoke()
+                                : (Consumer<ENetEvent>) site.getTarget().invoke(handler);
+            } catch (LambdaConversionException | LinkageError e) {
+                // Fall back to a bound method handle, e.g. for hidden or proxy classes
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Cannot bind handler method: " + method.getName(), e);
+            }
+        } catch (IllegalAccessException e) {
+            method.setAccessible(true);
+            try {
+                handle = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException inaccessible) {
+                throw new IllegalArgumentException("Handler method is not accessible: " + method.getName(), inaccessible);
+            }
+        }
+        MethodHandle bound = (isStatic ? handle : handle.bindTo(handler))
+                .asType(MethodType.methodType(void.class, ENetEvent.class));
+        return event -> {
+            try {
+                bound.invokeExact(event);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+}
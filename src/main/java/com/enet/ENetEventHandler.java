@@ -8,6 +8,12 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface ENetEventHandler {
+    int ANY_CHANNEL = -1;
+
     ENetEventType value();
-}
 
+    /**
+     * Restricts a {@link ENetEventType#RECEIVE} handler to packets of one channel.
+     */
+    int channel() default ANY_CHANNEL;
+}
@@ -0,0 +1,300 @@
+package com.enet;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hot {@link Flow.Publisher} of a connection's events: all of them, those of one peer, or the
+ * packets of one channel. Each subscriber gets events from the moment it subscribes, buffered in
+ * a queue of {@code bufferSize} receive events until it requests them; what happens when the
+ * buffer is full is decided by the {@link ENetHandlerExecutor.OverflowPolicy}. Connect and
+ * disconnect events are never dropped. Subscribers see standalone copies of the events, so
+ * nothing needs to be released.
+ *
+ * <p>Signals are delivered on {@code executor}, or without one on the thread that services the
+ * host or calls {@link Flow.Subscription#request(long)}. A peer's publisher completes after that
+ * peer's disconnect; the others complete when they or the connection are closed.
+ *
+ * @see ENetConnection#publishEvents(int, ENetHandlerExecutor.OverflowPolicy, Executor)
+ */
+public class ENetEventPublisher implements Flow.Publisher<ENetEvent>, AutoCloseable {
+    private static final EventSubscription[] NONE = new EventSubscription[0];
+    private static final long BLOCK_PARK_NANOS = 50_000L;
+
+    private final ENetConnection connection;
+    private final ENetPeer peer;
+    private final int channelID;
+    private final int bufferSize;
+    private final ENetHandlerExecutor.OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private volatile EventSubscription[] subscriptions = NONE;
+    private volatile boolean closed;
+
+    ENetEventPublisher(ENetConnection connection, ENetPeer peer, int channelID, int bufferSize,
+                       ENetHandlerExecutor.OverflowPolicy overflowPolicy, Executor executor) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.connection = connection;
+        this.peer = peer;
+        this.channelID = channelID;
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "overflowPolicy");
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ENetEvent> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        EventSubscription subscription = new EventSubscription(subscriber);
+        synchronized (this) {
+            if (!closed) {
+                EventSubscription[] current = subscriptions;
+                EventSubscription[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = subscription;
+                subscriptions = updated;
+            }
+        }
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+        }
+    }
+
+    boolean accepts(ENetEvent event) {
+        if (subscriptions.length == 0) {
+            return false;
+        }
+        if (peer != null) {
+            return event.getPeer() == peer;
+        }
+        return channelID == ENetEventHandler.ANY_CHANNEL
+                || (event.getType() == ENetEventType.RECEIVE.getValue() && (event.getChannelID() & 0xFF) == channelID);
+    }
+
+    // Called with a standalone copy, on the thread that handles the connection's events
+    void publish(ENetEvent event) {
+        for (EventSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+        if (peer != null && (event.getType() == ENetEventType.DISCONNECT.getValue()
+                || event.getType() == ENetEventType.DISCONNECT_TIMEOUT.getValue())) {
+            close();
+        }
+    }
+
+    /**
+     * Returns the number of receive events dropped because a subscriber's buffer was full.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * Completes every subscriber once it has been handed what is already buffered.
+     */
+    @Override
+    public void close() {
+        EventSubscription[] current;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            current = subscriptions;
+        }
+        connection.removePublisher(this);
+        for (EventSubscription subscription : current) {
+            subscription.complete();
+        }
+    }
+
+    private synchronized void remove(EventSubscription subscription) {
+        EventSubscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                EventSubscription[] updated = new EventSubscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscriptions = updated;
+                return;
+            }
+        }
+    }
+
+    private final class EventSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super ENetEvent> subscriber;
+        private final ConcurrentLinkedQueue<ENetEvent> queue = new ConcurrentLinkedQueue<>();
+        // Receive events in the queue; connects and disconnects are not counted
+        private final AtomicInteger buffered = new AtomicInteger();
+        private final AtomicLong demand = new AtomicLong();
+        // Drain requests; whoever raises it from zero drains, so signals are never concurrent
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        private Throwable error;
+
+        EventSubscription(Flow.Subscriber<? super ENetEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void offer(ENetEvent event) {
+            if (cancelled || done) {
+                return;
+            }
+            if (event.getType() == ENetEventType.RECEIVE.getValue() && !reserve()) {
+                droppedEvents.incrementAndGet();
+                return;
+            }
+            queue.offer(event);
+            schedule();
+        }
+
+        // Makes room for one receive event according to the overflow policy
+        private boolean reserve() {
+            while (buffered.incrementAndGet() > bufferSize) {
+                buffered.decrementAndGet();
+                switch (overflowPolicy) {
+                    case DROP_NEWEST:
+                        return false;
+                    case DROP_OLDEST:
+                        // Connects and disconnects are never dropped to make room, so look past them
+                        ENetEvent oldest = null;
+                        for (ENetEvent queued : queue) {
+                            if (queued.getType() == ENetEventType.RECEIVE.getValue()) {
+                                oldest = queued;
+                                break;
+                            }
+                        }
+                        if (oldest == null) {
+                            // The subscriber took the buffered receives meanwhile; drop this one
+                            // rather than grow past the buffer
+                            return false;
+                        }
+                        if (queue.remove(oldest)) {
+                            buffered.decrementAndGet();
+                            droppedEvents.incrementAndGet();
+                        }
+                        break;
+                    default:
+                        // BLOCK: hold the servicing thread until the subscriber catches up
+                        if (cancelled || done) {
+                            return false;
+                        }
+                        LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                        break;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Subscriber requested " + n + " events; must be positive");
+                done = true;
+            } else {
+                long current;
+                long next;
+                do {
+                    current = demand.get();
+                    next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!demand.compareAndSet(current, next));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                remove(this);
+                schedule();
+            }
+        }
+
+        void complete() {
+            done = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                if (executor != null) {
+                    executor.execute(this);
+                } else {
+                    run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                if (drain()) {
+                    queue.clear();
+                    buffered.set(0);
+                    return;
+                }
+                missed = pending.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        // Returns true once the subscription is over
+        private boolean drain() {
+            if (cancelled) {
+                return true;
+            }
+            if (error != null) {
+                cancelled = true;
+                remove(this);
+                subscriber.onError(error);
+                return true;
+            }
+            long requested = demand.get();
+            long emitted = 0;
+            ENetEvent event;
+            while (emitted != requested && !cancelled && (event = queue.poll()) != null) {
+                if (event.getType() == ENetEventType.RECEIVE.getValue()) {
+                    buffered.decrementAndGet();
+                }
+                try {
+                    subscriber.onNext(event);
+                } catch (RuntimeException e) {
+                    System.err.println("Error in event subscriber, cancelling: " + e.getMessage());
+                    e.printStackTrace();
+                    cancel();
+                }
+                emitted++;
+            }
+            if (emitted != 0 && requested != Long.MAX_VALUE) {
+                demand.addAndGet(-emitted);
+            }
+            if (cancelled) {
+                return true;
+            }
+            if (done && queue.isEmpty()) {
+                cancelled = true;
+                remove(this);
+                subscriber.onComplete();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -7,6 +7,8 @@ public enum ENetEventType {
     RECEIVE(3),
     DISCONNECT_TIMEOUT(4);
 
+    private static final ENetEventType[] BY_VALUE = values();
+
     private final int value;
 
     ENetEventType(int value) {
@@ -18,7 +20,7 @@ public enum ENetEventType {
     }
 
     public static ENetEventType fromValue(int value) {
-        for (ENetEventType type : values()) {
+        for (ENetEventType type : BY_VALUE) {
             if (type.value == value) {
                 return type;
             }
@@ -0,0 +1,334 @@
+package com.enet;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec built once per message class from its instance fields, in declaration order. Fields are
+ * read and written through method handles resolved at registration, so encoding and decoding
+ * do no reflection. Supported field types are the primitives, {@code String} (unsigned 16-bit
+ * byte length, 0xFFFF for null, then UTF-8) and {@code byte[]} (32-bit length, -1 for null).
+ * Everything is big-endian.
+ */
+final class ENetFieldCodec<T> implements ENetMessageCodec<T> {
+    private static final int NULL_STRING = 0xFFFF;
+
+    private final MethodHandle constructor;
+    private final FieldAccess[] fields;
+
+    private ENetFieldCodec(MethodHandle constructor, FieldAccess[] fields) {
+        this.constructor = constructor;
+        this.fields = fields;
+    }
+
+    static <T> ENetFieldCodec<T> forClass(Class<T> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            throw new IllegalArgumentException("Message type must be a concrete class: " + type.getName());
+        }
+        MethodHandles.Lookup lookup;
+        MethodHandle constructor;
+        try {
+            lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Message type needs a no-argument constructor: " + type.getName(), e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Message type is not accessible: " + type.getName(), e);
+        }
+        List<FieldAccess> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                continue;
+            }
+            if (Modifier.isFinal(modifiers)) {
+                throw new IllegalArgumentException("Message field must not be final: " + field);
+            }
+            fields.add(access(lookup, field));
+        }
+        return new ENetFieldCodec<>(constructor, fields.toArray(new FieldAccess[0]));
+    }
+
+    @Override
+    public void encode(T message, ByteBuffer out) {
+        try {
+            for (FieldAccess field : fields) {
+                field.write(message, out);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T decode(ByteBuffer in) {
+        try {
+            Object message = constructor.invokeExact();
+            for (FieldAccess field : fields) {
+                field.read(message, in);
+            }
+            return (T) message;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static FieldAccess access(MethodHandles.Lookup lookup, Field field) {
+        Class<?> fieldType = field.getType();
+        MethodHandle getter;
+        MethodHandle setter;
+        try {
+            getter = lookup.unreflectGetter(field);
+            setter = lookup.unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Message field is not accessible: " + field, e);
+        }
+        // Erase the declaring class so every accessor is invoked with an Object receiver
+        getter = getter.asType(MethodType.methodType(fieldType, Object.class));
+        setter = setter.asType(MethodType.methodType(void.class, Object.class, fieldType));
+        if (fieldType == int.class) {
+            return new IntField(getter, setter);
+        } else if (fieldType == long.class) {
+            return new LongField(getter, setter);
+        } else if (fieldType == float.class) {
+            return new FloatField(getter, setter);
+        } else if (fieldType == double.class) {
+            return new DoubleField(getter, setter);
+        } else if (fieldType == short.class) {
+            return new ShortField(getter, setter);
+        } else if (fieldType == byte.class) {
+            return new ByteField(getter, setter);
+        } else if (fieldType == boolean.class) {
+            return new BooleanField(getter, setter);
+        } else if (fieldType == char.class) {
+            return new CharField(getter, setter);
+        } else if (fieldType == String.class) {
+            return new StringField(getter.asType(MethodType.methodType(Object.class, Object.class)),
+                    setter.asType(MethodType.methodType(void.class, Object.class, Object.class)));
+        } else if (fieldType == byte[].class) {
+            return new BytesField(getter.asType(MethodType.methodType(Object.class, Object.class)),
+                    setter.asType(MethodType.methodType(void.class, Object.class, Object.class)));
+        }
+        throw new IllegalArgumentException("Unsupported message field type: " + field);
+    }
+
+    private abstract static class FieldAccess {
+        final MethodHandle getter;
+        final MethodHandle setter;
+
+        FieldAccess(MethodHandle getter, MethodHandle setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        abstract void write(Object message, ByteBuffer out) throws Throwable;
+
+        abstract void read(Object message, ByteBuffer in) throws Throwable;
+    }
+
+    private static final class IntField extends FieldAccess {
+        IntField(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(Object message, ByteBuffer out) throws Throwable {
+            out.putInt((int) getter.invokeExact(message));
+        }
+
+        @Override
+        void read(Object message, ByteBuffer in) throws Throwable {
+            setter.invokeExact(message, in.getInt());
+        }
+    }
+
+    private static final class LongField extends FieldAccess {
+        LongField(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(Object message, ByteBuffer out) throws Throwable {
+            out.putLong((long) getter.invokeExact(message));
+        }
+
+        @Override
+        void read(Object message, ByteBuffer in) throws Throwable {
+            setter.invokeExact(message, in.getLong());
+        }
+    }
+
+    private static final class FloatField extends FieldAccess {
+        FloatField(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(Object message, ByteBuffer out) throws Throwable {
+            out.putFloat((float) getter.invokeExact(message));
+        }
+
+        @Override
+        void read(Object message, ByteBuffer in) throws Throwable {
+            setter.invokeExact(message, in.getFloat());
+        }
+    }
+
+    private static final class DoubleField extends FieldAccess {
+        DoubleField(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(Object message, ByteBuffer out) throws Throwable {
+            out.putDouble((double) getter.invokeExact(message));
+        }
+
+        @Override
+        void read(Object message, ByteBuffer in) throws Throwable {
+            setter.invokeExact(message, in.getDouble());
+        }
+    }
+
+    private static final class ShortField extends FieldAccess {
+        ShortField(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(Object message, ByteBuffer out) throws Throwable {
+            out.putShort((short) getter.invokeExact(message));
+        }
+
+        @Override
+        void read(Object message, ByteBuffer in) throws Throwable {
+            setter.invokeExact(message, in.getShort());
+        }
+    }
+
+    private static final class ByteField extends FieldAccess {
+        ByteField(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(Object message, ByteBuffer out) throws Throwable {
+            out.put((byte) getter.invokeExact(message));
+        }
+
+        @Override
+        void read(Object message, ByteBuffer in) throws Throwable {
+            setter.invokeExact(message, in.get());
+        }
+    }
+
+    private static final class BooleanField extends FieldAccess {
+        BooleanField(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(Object message, ByteBuffer out) throws Throwable {
+            out.put((boolean) getter.invokeExact(message) ? (byte) 1 : (byte) 0);
+        }
+
+        @Override
+        void read(Object message, ByteBuffer in) throws Throwable {
+            setter.invokeExact(message, in.get() != 0);
+        }
+    }
+
+    private static final class CharField extends FieldAccess {
+        CharField(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(Object message, ByteBuffer out) throws Throwable {
+            out.putChar((char) getter.invokeExact(message));
+        }
+
+        @Override
+        void read(Object message, ByteBuffer in) throws Throwable {
+            setter.invokeExact(message, in.getChar());
+        }
+    }
+
+    private static final class StringField extends FieldAccess {
+        StringField(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(Object message, ByteBuffer out) throws Throwable {
+            String value = (String) (Object) getter.invokeExact(message);
+            if (value == null) {
+                out.putShort((short) NULL_STRING);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length >= NULL_STRING) {
+                throw new IllegalArgumentException("String message field longer than "
+                        + (NULL_STRING - 1) + " bytes");
+            }
+            out.putShort((short) bytes.length);
+            out.put(bytes);
+        }
+
+        @Override
+        void read(Object message, ByteBuffer in) throws Throwable {
+            int length = in.getShort() & 0xFFFF;
+            String value = null;
+            if (length != NULL_STRING) {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            setter.invokeExact(message, (Object) value);
+        }
+    }
+
+    private static final class BytesField extends FieldAccess {
+        BytesField(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(Object message, ByteBuffer out) throws Throwable {
+            byte[] value = (byte[]) (Object) getter.invokeExact(message);
+            if (value == null) {
+                out.putInt(-1);
+                return;
+            }
+            out.putInt(value.length);
+            out.put(value);
+        }
+
+        @Override
+        void read(Object message, ByteBuffer in) throws Throwable {
+            int length = in.getInt();
+            byte[] value = null;
+            if (length >= 0) {
+                if (length > in.remaining()) {
+                    throw new IllegalArgumentException("Truncated byte[] message field");
+                }
+                value = new byte[length];
+                in.get(value);
+            }
+            setter.invokeExact(message, (Object) value);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.enet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs event handlers off the event-loop thread. Events of one peer are always handled in
+ * order by a single lane; different peers are handled in parallel.
+ *
+ * @see ENetConnection#setHandlerExecutor(ENetHandlerExecutor)
+ */
+public abstract class ENetHandlerExecutor implements AutoCloseable {
+
+    public enum OverflowPolicy {
+        /** Block the event loop until the lane has room. */
+        BLOCK,
+        /** Drop the incoming receive event. */
+        DROP_NEWEST,
+        /** Drop the oldest queued receive event of the lane to make room. */
+        DROP_OLDEST
+    }
+
+    private static final ENetEvent STOP = new ENetEvent(ENetEventType.NONE.getValue(), null, (byte) 0, 0, null);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    final int queueDepth;
+    final OverflowPolicy overflowPolicy;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    // Lane threads that have not exited yet, so close() can wait for handlers still running
+    private final Set<Thread> laneThreads = ConcurrentHashMap.newKeySet();
+    volatile Consumer<ENetEvent> sink;
+
+    ENetHandlerExecutor(int queueDepth, OverflowPolicy overflowPolicy) {
+        if (queueDepth <= 0) {
+            throw new IllegalArgumentException("Queue depth must be positive");
+        }
+        this.queueDepth = queueDepth;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Hashes peers onto {@code threads} single-threaded lanes, each with a bounded queue.
+     */
+    public static ENetHandlerExecutor striped(int threads, int queueDepth, OverflowPolicy overflowPolicy) {
+        return new Striped(threads, queueDepth, overflowPolicy);
+    }
+
+    /**
+     * Gives every connected peer its own virtual thread and bounded mailbox. Requires JDK 21+.
+     */
+    public static ENetHandlerExecutor virtualThreadPerPeer(int queueDepth, OverflowPolicy overflowPolicy) {
+        return new VirtualPerPeer(queueDepth, overflowPolicy);
+    }
+
+    void start(Consumer<ENetEvent> sink) {
+        this.sink = sink;
+    }
+
+    // Called from the event-loop thread only
+    abstract void submit(ENetEvent event);
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Stops every lane, releasing the packets of events not handled yet, and waits up to five
+     * seconds for handlers that are still running to return.
+     */
+    @Override
+    public abstract void close();
+
+    // Connect and disconnect events are never dropped, only receives
+    void enqueue(BlockingQueue<ENetEvent> queue, ENetEvent event) {
+        boolean droppable = event.getType() == ENetEventType.RECEIVE.getValue();
+        if (droppable && overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+            if (!queue.offer(event)) {
+                drop(event);
+            }
+            return;
+        }
+        if (droppable && overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            while (!queue.offer(event)) {
+                ENetEvent oldest = queue.peek();
+                if (oldest != null && oldest.getType() != ENetEventType.RECEIVE.getValue()) {
+                    put(queue, event);
+                    return;
+                }
+                if (oldest != null && queue.remove(oldest)) {
+                    drop(oldest);
+                }
+            }
+            return;
+        }
+        put(queue, event);
+    }
+
+    private void put(BlockingQueue<ENetEvent> queue, ENetEvent event) {
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drop(event);
+        }
+    }
+
+    private void drop(ENetEvent event) {
+        droppedEvents.incrementAndGet();
+        if (event.getPacket() != null) {
+            event.getPacket().release();
+        }
+    }
+
+    void startLane(ThreadFactory factory, BlockingQueue<ENetEvent> queue, boolean exitOnDisconnect) {
+        Thread thread = factory.newThread(() -> runLane(queue, exitOnDisconnect));
+        laneThreads.add(thread);
+        thread.start();
+    }
+
+    private void runLane(BlockingQueue<ENetEvent> queue, boolean exitOnDisconnect) {
+        try {
+            while (true) {
+                ENetEvent event = queue.take();
+                if (event == STOP) {
+                    return;
+                }
+                sink.accept(event);
+                if (exitOnDisconnect && (event.getType() == ENetEventType.DISCONNECT.getValue()
+                        || event.getType() == ENetEventType.DISCONNECT_TIMEOUT.getValue())) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            laneThreads.remove(Thread.currentThread());
+        }
+    }
+
+    // Events still queued are never handled, so their packets are released here
+    void stop(BlockingQueue<ENetEvent> queue) {
+        ENetEvent event;
+        while ((event = queue.poll()) != null) {
+            if (event != STOP) {
+                drop(event);
+            }
+        }
+        queue.offer(STOP);
+    }
+
+    // A handler that closes the connection runs on a lane itself, so that lane is not waited for
+    void awaitLanes() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+        for (Thread thread : laneThreads) {
+            if (thread == Thread.currentThread()) {
+                continue;
+            }
+            try {
+                thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (thread.isAlive()) {
+                System.err.println("Handler thread " + thread.getName() + " did not stop within "
+                        + CLOSE_TIMEOUT_MILLIS + " ms");
+            }
+        }
+    }
+
+    private static final class Striped extends ENetHandlerExecutor {
+        private final BlockingQueue<ENetEvent>[] lanes;
+
+        @SuppressWarnings("unchecked")
+        Striped(int threadCount, int queueDepth, OverflowPolicy overflowPolicy) {
+            super(queueDepth, overflowPolicy);
+            if (threadCount <= 0) {
+                throw new IllegalArgumentException("Thread count must be positive");
+            }
+            this.lanes = (BlockingQueue<ENetEvent>[]) new BlockingQueue<?>[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                lanes[i] = new ArrayBlockingQueue<>(queueDepth);
+            }
+        }
+
+        @Override
+        void start(Consumer<ENetEvent> sink) {
+            super.start(sink);
+            for (int i = 0; i < lanes.length; i++) {
+                String name = "ENet-Handler-" + i;
+                startLane(r -> {
+                    Thread t = new Thread(r, name);
+                    t.setDaemon(true);
+                    return t;
+                }, lanes[i], false);
+            }
+        }
+
+        @Override
+        void submit(ENetEvent event) {
+            ENetPeer peer = event.getPeer();
+            int key = peer == null ? 0 : peer.getID() >= 0 ? peer.getID() : Long.hashCode(peer.getHandle()) & 0x7FFFFFFF;
+            enqueue(lanes[key % lanes.length], event);
+        }
+
+        @Override
+        public void close() {
+            for (BlockingQueue<ENetEvent> lane : lanes) {
+                stop(lane);
+            }
+            awaitLanes();
+        }
+    }
+
+    private static final class VirtualPerPeer extends ENetHandlerExecutor {
+        private final ThreadFactory threadFactory;
+        private final Map<ENetPeer, BlockingQueue<ENetEvent>> mailboxes = new HashMap<>();
+        private final BlockingQueue<ENetEvent> peerless;
+
+        VirtualPerPeer(int queueDepth, OverflowPolicy overflowPolicy) {
+            super(queueDepth, overflowPolicy);
+            this.threadFactory = virtualThreadFactory();
+            this.peerless = new ArrayBlockingQueue<>(queueDepth);
+        }
+
+        private static ThreadFactory virtualThreadFactory() {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                throw new UnsupportedOperationException("Virtual threads require JDK 21 or newer", e);
+            }
+        }
+
+        @Override
+        void start(Consumer<ENetEvent> sink) {
+            super.start(sink);
+            startLane(threadFactory, peerless, false);
+        }
+
+        @Override
+        void submit(ENetEvent event) {
+            ENetPeer peer = event.getPeer();
+            if (peer == null) {
+                enqueue(peerless, event);
+                return;
+            }
+            BlockingQueue<ENetEvent> mailbox = mailboxes.get(peer);
+            if (mailbox == null) {
+                BlockingQueue<ENetEvent> created = new ArrayBlockingQueue<>(queueDepth);
+                startLane(threadFactory, created, true);
+                mailboxes.put(peer, created);
+                mailbox = created;
+            }
+            enqueue(mailbox, event);
+            ENetEventType type = event.getEventType();
+            if (type == ENetEventType.DISCONNECT || type == ENetEventType.DISCONNECT_TIMEOUT) {
+                // The peer's virtual thread exits after handling its disconnect
+                mailboxes.remove(peer);
+            }
+        }
+
+        @Override
+        public void close() {
+            for (BlockingQueue<ENetEvent> mailbox : mailboxes.values()) {
+                stop(mailbox);
+            }
+            mailboxes.clear();
+            stop(peerless);
+            awaitLanes();
+        }
+    }
+}
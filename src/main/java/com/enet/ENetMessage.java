@@ -0,0 +1,16 @@
+package com.enet;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class as a message routed by {@link ENetMessageRouter}. The id is written as an
+ * unsigned 16-bit header in front of the encoded fields.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ENetMessage {
+    int value();
+}
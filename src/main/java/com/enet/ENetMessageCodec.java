@@ -0,0 +1,22 @@
+package com.enet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes the body of one message type, after the type-id header. A message class can
+ * supply its own codec in a {@code public static final ENetMessageCodec<T> CODEC} field;
+ * otherwise {@link ENetMessageRouter} builds one from the class's fields.
+ */
+public interface ENetMessageCodec<T> {
+    /**
+     * Writes {@code message} at the buffer's position. Throws
+     * {@link java.nio.BufferOverflowException} if it does not fit.
+     */
+    void encode(T message, ByteBuffer out);
+
+    /**
+     * Reads a message from the buffer's position up to its limit. The buffer is only valid
+     * during the call.
+     */
+    T decode(ByteBuffer in);
+}
@@ -0,0 +1,16 @@
+package com.enet;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method that receives decoded messages of the given type. The method takes the message,
+ * or the {@link ENetEvent} it arrived in followed by the message.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ENetMessageHandler {
+    Class<?> value();
+}
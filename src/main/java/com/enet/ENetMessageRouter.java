@@ -0,0 +1,338 @@
+package com.enet;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Routes received packets to {@link ENetMessageHandler} methods as decoded messages. Each
+ * packet starts with the message's {@link ENetMessage} id as an unsigned big-endian short; the
+ * id indexes a table holding the message's codec and its handlers, so routing is an array load
+ * followed by a decode. Register the router with {@link ENetConnection#addEventHandler(Object)}
+ * to route every received packet of that connection.
+ */
+public class ENetMessageRouter {
+    public static final int HEADER_SIZE = 2;
+    public static final int MAX_MESSAGE_ID = 0xFFFF;
+
+    private static final int MAX_ENCODED_SIZE = 1 << 24;
+
+    private static final ClassValue<Method[]> HANDLER_METHODS = new ClassValue<Method[]>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            List<Method> methods = new ArrayList<>();
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.getAnnotation(ENetMessageHandler.class) != null) {
+                    methods.add(method);
+                }
+            }
+            return methods.toArray(new Method[0]);
+        }
+    };
+
+    private final ThreadLocal<ByteBuffer> encodeScratch =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(256));
+    private volatile Route[] routes = new Route[0];
+
+    public static boolean hasMessageHandlers(Class<?> type) {
+        return HANDLER_METHODS.get(type).length > 0;
+    }
+
+    /**
+     * Registers a class annotated with {@link ENetMessage}, using its {@code CODEC} field if it
+     * declares one and a field-based codec otherwise. Registering the same class again does
+     * nothing.
+     */
+    public <T> void registerMessage(Class<T> type) {
+        ENetMessage annotation = type.getAnnotation(ENetMessage.class);
+        if (annotation == null) {
+            throw new IllegalArgumentException("Message type is not annotated with @ENetMessage: " + type.getName());
+        }
+        synchronized (this) {
+            Route existing = routeOf(annotation.value());
+            if (existing != null && existing.type == type) {
+                return;
+            }
+            registerMessage(type, annotation.value(), codecFor(type));
+        }
+    }
+
+    public synchronized <T> void registerMessage(Class<T> type, int id, ENetMessageCodec<T> codec) {
+        if (id < 0 || id > MAX_MESSAGE_ID) {
+            throw new IllegalArgumentException("Message id must be between 0 and " + MAX_MESSAGE_ID + ": " + id);
+        }
+        Route existing = routeOf(id);
+        if (existing != null && existing.type != type) {
+            throw new IllegalArgumentException("Message id " + id + " is already used by " + existing.type.getName());
+        }
+        Route[] table = routes;
+        for (Route route : table) {
+            if (route != null && route.type == type && route.id != id) {
+                throw new IllegalArgumentException(type.getName() + " is already registered with id " + route.id);
+            }
+        }
+        table = Arrays.copyOf(table, Math.max(table.length, id + 1));
+        table[id] = new Route(id, type, codec, existing != null ? existing.handlers : new Route.Invoker[0]);
+        routes = table;
+    }
+
+    /**
+     * Registers the {@link ENetMessageHandler} methods of {@code handler}, registering their
+     * message types on first use.
+     */
+    public synchronized void register(Object handler) {
+        for (Method method : HANDLER_METHODS.get(handler.getClass())) {
+            Class<?> type = method.getAnnotation(ENetMessageHandler.class).value();
+            Route.Invoker invoker = createInvoker(handler, method, type);
+            Route route = routeFor(type);
+            Route.Invoker[] handlers = Arrays.copyOf(route.handlers, route.handlers.length + 1);
+            handlers[route.handlers.length] = invoker;
+            Route[] table = routes.clone();
+            table[route.id] = new Route(route.id, route.type, route.codec, handlers);
+            routes = table;
+        }
+    }
+
+    /**
+     * Decodes the packet of {@code event} and passes it to the handlers of its message type.
+     * Returns {@code false} without decoding if the packet carries no id with handlers.
+     */
+    public boolean route(ENetEvent event) {
+        ENetPacket packet = event.getPacket();
+        if (packet == null || packet.getLength() < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer buffer = packet.getBuffer().order(ByteOrder.BIG_ENDIAN);
+        int start = buffer.position();
+        Route route = routeOf(buffer.getShort(start) & 0xFFFF);
+        if (route == null || route.handlers.length == 0) {
+            return false;
+        }
+        buffer.position(start + HEADER_SIZE);
+        Object message;
+        try {
+            message = route.codec.decode(buffer);
+        } catch (RuntimeException e) {
+            System.err.println("Error decoding message " + route.type.getName() + ": " + e);
+            return false;
+        }
+        for (Route.Invoker invoker : route.handlers) {
+            try {
+                invoker.invoke(event, message);
+            } catch (RuntimeException | Error e) {
+                ENetEventDispatcher.rethrowIfFatal(e);
+                System.err.println("Error handling message: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        return true;
+    }
+
+    @ENetEventHandler(ENetEventType.RECEIVE)
+    public void onReceive(ENetEvent event) {
+        route(event);
+    }
+
+    /**
+     * Writes the header and body of {@code message} at the position of {@code out}, e.g. a slot
+     * of an {@link ENetBufferPool}, and returns the number of bytes written.
+     */
+    public int encode(Object message, ByteBuffer out) {
+        Route route = routeFor(message.getClass());
+        int start = out.position();
+        ByteOrder order = out.order();
+        out.order(ByteOrder.BIG_ENDIAN);
+        try {
+            out.putShort((short) route.id);
+            encodeBody(route, message, out);
+        } catch (BufferOverflowException e) {
+            out.position(start);
+            throw e;
+        } finally {
+            out.order(order);
+        }
+        return out.position() - start;
+    }
+
+    /**
+     * Returns the header and body of {@code message} as a new array, sized to fit.
+     */
+    public byte[] encode(Object message) {
+        Route route = routeFor(message.getClass());
+        ByteBuffer scratch = encodeScratch.get();
+        while (true) {
+            scratch.clear();
+            try {
+                scratch.putShort((short) route.id);
+                encodeBody(route, message, scratch);
+                return Arrays.copyOf(scratch.array(), scratch.position());
+            } catch (BufferOverflowException e) {
+                if (scratch.capacity() >= MAX_ENCODED_SIZE) {
+                    throw new IllegalArgumentException("Encoded message is larger than " + MAX_ENCODED_SIZE + " bytes");
+                }
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+                encodeScratch.set(scratch);
+            }
+        }
+    }
+
+    public int send(ENetConnection connection, ENetPeer peer, byte channelID, Object message, int flags) {
+        return connection.send(peer, channelID, encode(message), flags);
+    }
+
+    public void broadcast(ENetConnection connection, byte channelID, Object message, int flags) {
+        connection.broadcast(channelID, encode(message), flags);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void encodeBody(Route route, Object message, ByteBuffer out) {
+        ((ENetMessageCodec<Object>) route.codec).encode(message, out);
+    }
+
+    private Route routeOf(int id) {
+        Route[] table = routes;
+        return id < table.length ? table[id] : null;
+    }
+
+    private Route routeFor(Class<?> type) {
+        ENetMessage annotation = type.getAnnotation(ENetMessage.class);
+        Route route = annotation != null ? routeOf(annotation.value()) : null;
+        if (route == null || route.type != type) {
+            for (Route candidate : routes) {
+                if (candidate != null && candidate.type == type) {
+                    return candidate;
+                }
+            }
+            registerMessage(type);
+            route = routeOf(annotation.value());
+        }
+        return route;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ENetMessageCodec<T> codecFor(Class<T> type) {
+        try {
+            Field field = type.getDeclaredField("CODEC");
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) && ENetMessageCodec.class.isAssignableFrom(field.getType())) {
+                field.setAccessible(true);
+                return (ENetMessageCodec<T>) field.get(null);
+            }
+        } catch (NoSuchFieldException e) {
+            // No hand-written codec
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("CODEC field is not accessible: " + type.getName(), e);
+        }
+        return ENetFieldCodec.forClass(type);
+    }
+
+    private static Route.Invoker createInvoker(Object handler, Method method, Class<?> type) {
+        Class<?>[] parameters = method.getParameterTypes();
+        boolean withEvent = parameters.length == 2 && parameters[0] == ENetEvent.class;
+        if (!(parameters.length == 1 || withEvent) || !parameters[parameters.length - 1].isAssignableFrom(type)) {
+            throw new IllegalArgumentException("Message handler method must accept (" + type.getSimpleName()
+                    + ") or (ENetEvent, " + type.getSimpleName() + "): " + method.getName());
+        }
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        Class<?> declaringClass = method.getDeclaringClass();
+        MethodHandle handle;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+            handle = lookup.unreflect(method);
+            try {
+                return withEvent ? bindBiConsumer(lookup, handle, handler, isStatic, declaringClass, parameters[1])
+                                 : bindConsumer(lookup, handle, handler, isStatic, declaringClass, parameters[0]);
+            } catch (LambdaConversionException | LinkageError e) {
+                // Fall back to a bound method handle, e.g. for hidden or proxy classes
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Cannot bind message handler method: " + method.getName(), e);
+            }
+        } catch (IllegalAccessException e) {
+            method.setAccessible(true);
+            try {
+                handle = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException inaccessible) {
+                throw new IllegalArgumentException("Handler method is not accessible: " + method.getName(), inaccessible);
+            }
+        }
+        MethodHandle bound = isStatic ? handle : handle.bindTo(handler);
+        if (!withEvent) {
+            bound = MethodHandles.dropArguments(bound, 0, ENetEvent.class);
+        }
+        MethodHandle invoker = bound.asType(MethodType.methodType(void.class, ENetEvent.class, Object.class));
+        return (event, message) -> {
+            try {
+                invoker.invokeExact(event, message);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Route.Invoker bindConsumer(MethodHandles.Lookup lookup, MethodHandle handle, Object handler,
+                                              boolean isStatic, Class<?> declaringClass, Class<?> parameter)
+            throws Throwable {
+        CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                isStatic ? MethodType.methodType(Consumer.class)
+                         : MethodType.methodType(Consumer.class, declaringClass),
+                MethodType.methodType(void.class, Object.class),
+                handle,
+                MethodType.methodType(void.class, parameter));
+        Consumer<Object> consumer = isStatic ? (Consumer<Object>) site.getTarget().invoke()
+                                             : (Consumer<Object>) site.getTarget().invoke(handler);
+        return (event, message) -> consumer.accept(message);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Route.Invoker bindBiConsumer(MethodHandles.Lookup lookup, MethodHandle handle, Object handler,
+                                                boolean isStatic, Class<?> declaringClass, Class<?> parameter)
+            throws Throwable {
+        CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                isStatic ? MethodType.methodType(BiConsumer.class)
+                         : MethodType.methodType(BiConsumer.class, declaringClass),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                handle,
+                MethodType.methodType(void.class, ENetEvent.class, parameter));
+        BiConsumer<ENetEvent, Object> consumer = isStatic
+                ? (BiConsumer<ENetEvent, Object>) site.getTarget().invoke()
+                : (BiConsumer<ENetEvent, Object>) site.getTarget().invoke(handler);
+        return consumer::accept;
+    }
+
+    private static final class Route {
+        final int id;
+        final Class<?> type;
+        final ENetMessageCodec<?> codec;
+        final Invoker[] handlers;
+
+        Route(int id, Class<?> type, ENetMessageCodec<?> codec, Invoker[] handlers) {
+            this.id = id;
+            this.type = type;
+            this.codec = codec;
+            this.handlers = handlers;
+        }
+
+        interface Invoker {
+            void invoke(ENetEvent event, Object message);
+        }
+    }
+}
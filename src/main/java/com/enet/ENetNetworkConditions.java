@@ -0,0 +1,199 @@
+package com.enet;
+
+import java.util.Locale;
+
+/**
+ * Link conditions the network emulator applies to datagrams a host receives: a fixed latency
+ * plus uniform jitter, random loss, duplication and reordering, and a bandwidth cap with a
+ * bounded bottleneck buffer. Conditions are copied when they are set, so one instance can be
+ * reused for several hosts.
+ *
+ * @see ENetConnection#setNetworkConditions(ENetNetworkConditions)
+ */
+public class ENetNetworkConditions {
+    // Indices into the array handed to the native emulator
+    static final int LATENCY = 0;
+    static final int JITTER = 1;
+    static final int LOSS = 2;
+    static final int DUPLICATE = 3;
+    static final int REORDER = 4;
+    static final int REORDER_DELAY = 5;
+    static final int BANDWIDTH = 6;
+    static final int BUFFER = 7;
+    static final int PARAMS = 8;
+
+    private int latencyMillis;
+    private int jitterMillis;
+    private double lossPercent;
+    private double duplicatePercent;
+    private double reorderPercent;
+    private int reorderDelayMillis = 10;
+    private int bandwidth;
+    private int bufferBytes = 64 * 1024;
+
+    /**
+     * Parses whitespace- or comma-separated {@code key=value} pairs, for example
+     * {@code latency=50 jitter=10 loss=1 duplicate=0.1 reorder=2 reorder-delay=20 bandwidth=125000 buffer=65536}.
+     * Percentages may be fractional; missing keys keep their defaults.
+     */
+    public static ENetNetworkConditions parse(String spec) {
+        ENetNetworkConditions conditions = new ENetNetworkConditions();
+        for (String token : spec.trim().split("[\\s,]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            int separator = token.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value in network conditions '" + spec + "'");
+            }
+            String value = token.substring(separator + 1);
+            switch (token.substring(0, separator)) {
+                case "latency":
+                    conditions.setLatencyMillis(Integer.parseInt(value));
+                    break;
+                case "jitter":
+                    conditions.setJitterMillis(Integer.parseInt(value));
+                    break;
+                case "loss":
+                    conditions.setLossPercent(Double.parseDouble(value));
+                    break;
+                case "duplicate":
+                    conditions.setDuplicatePercent(Double.parseDouble(value));
+                    break;
+                case "reorder":
+                    conditions.setReorderPercent(Double.parseDouble(value));
+                    break;
+                case "reorder-delay":
+                    conditions.setReorderDelayMillis(Integer.parseInt(value));
+                    break;
+                case "bandwidth":
+                    conditions.setBandwidth(Integer.parseInt(value));
+                    break;
+                case "buffer":
+                    conditions.setBufferBytes(Integer.parseInt(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown network condition '" + token + "'");
+            }
+        }
+        return conditions;
+    }
+
+    public int getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(int latencyMillis) {
+        this.latencyMillis = requireNonNegative(latencyMillis, "Latency");
+    }
+
+    public int getJitterMillis() {
+        return jitterMillis;
+    }
+
+    /**
+     * Each datagram's latency is drawn uniformly from latency +- jitter, so jitter larger than
+     * the packet spacing also reorders datagrams.
+     */
+    public void setJitterMillis(int jitterMillis) {
+        this.jitterMillis = requireNonNegative(jitterMillis, "Jitter");
+    }
+
+    public double getLossPercent() {
+        return lossPercent;
+    }
+
+    public void setLossPercent(double lossPercent) {
+        this.lossPercent = requirePercent(lossPercent, "Loss");
+    }
+
+    public double getDuplicatePercent() {
+        return duplicatePercent;
+    }
+
+    public void setDuplicatePercent(double duplicatePercent) {
+        this.duplicatePercent = requirePercent(duplicatePercent, "Duplicate");
+    }
+
+    public double getReorderPercent() {
+        return reorderPercent;
+    }
+
+    /**
+     * Share of datagrams held back an extra {@link #getReorderDelayMillis()} so that later ones
+     * overtake them.
+     */
+    public void setReorderPercent(double reorderPercent) {
+        this.reorderPercent = requirePercent(reorderPercent, "Reorder");
+    }
+
+    public int getReorderDelayMillis() {
+        return reorderDelayMillis;
+    }
+
+    public void setReorderDelayMillis(int reorderDelayMillis) {
+        this.reorderDelayMillis = requireNonNegative(reorderDelayMillis, "Reorder delay");
+    }
+
+    public int getBandwidth() {
+        return bandwidth;
+    }
+
+    /**
+     * Caps the link at {@code bandwidth} bytes per second of UDP payload, 0 meaning unlimited.
+     * Datagrams wait their turn to be serialized and are dropped once more than
+     * {@link #getBufferBytes()} are waiting.
+     */
+    public void setBandwidth(int bandwidth) {
+        this.bandwidth = requireNonNegative(bandwidth, "Bandwidth");
+    }
+
+    public int getBufferBytes() {
+        return bufferBytes;
+    }
+
+    public void setBufferBytes(int bufferBytes) {
+        if (bufferBytes <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.bufferBytes = bufferBytes;
+    }
+
+    int[] toParams() {
+        int[] params = new int[PARAMS];
+        params[LATENCY] = latencyMillis;
+        params[JITTER] = jitterMillis;
+        params[LOSS] = toPartsPerMillion(lossPercent);
+        params[DUPLICATE] = toPartsPerMillion(duplicatePercent);
+        params[REORDER] = toPartsPerMillion(reorderPercent);
+        params[REORDER_DELAY] = reorderDelayMillis;
+        params[BANDWIDTH] = bandwidth;
+        params[BUFFER] = bufferBytes;
+        return params;
+    }
+
+    private static int toPartsPerMillion(double percent) {
+        return (int) Math.round(percent * 10_000);
+    }
+
+    private static int requireNonNegative(int value, String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must not be negative");
+        }
+        return value;
+    }
+
+    private static double requirePercent(double value, String name) {
+        if (!(value >= 0 && value <= 100)) {
+            throw new IllegalArgumentException(name + " percentage must be between 0 and 100");
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "latency=%d jitter=%d loss=%s duplicate=%s reorder=%s reorder-delay=%d"
+                        + " bandwidth=%d buffer=%d", latencyMillis, jitterMillis, lossPercent, duplicatePercent,
+                reorderPercent, reorderDelayMillis, bandwidth, bufferBytes);
+    }
+}
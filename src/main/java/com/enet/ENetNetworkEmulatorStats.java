@@ -0,0 +1,82 @@
+package com.enet;
+
+/**
+ * Snapshot of a host's network emulator counters.
+ *
+ * @see ENetConnection#getNetworkEmulatorStats()
+ */
+public class ENetNetworkEmulatorStats {
+    private final long received;
+    private final long delivered;
+    private final long lost;
+    private final long duplicated;
+    private final long reordered;
+    private final long overflowed;
+    private final long delayMillisTotal;
+    private final long queued;
+
+    ENetNetworkEmulatorStats(long[] values) {
+        this.received = values[0];
+        this.delivered = values[1];
+        this.lost = values[2];
+        this.duplicated = values[3];
+        this.reordered = values[4];
+        this.overflowed = values[5];
+        this.delayMillisTotal = values[6];
+        this.queued = values[7];
+    }
+
+    /**
+     * Datagrams that matched a set of conditions.
+     */
+    public long getReceived() {
+        return received;
+    }
+
+    /**
+     * Datagrams handed on to ENet, duplicates included.
+     */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    public long getLost() {
+        return lost;
+    }
+
+    public long getDuplicated() {
+        return duplicated;
+    }
+
+    public long getReordered() {
+        return reordered;
+    }
+
+    /**
+     * Datagrams dropped because the bottleneck buffer or the emulator's queue was full.
+     */
+    public long getOverflowed() {
+        return overflowed;
+    }
+
+    /**
+     * Delay added to the datagrams that were held back, in total.
+     */
+    public long getDelayMillisTotal() {
+        return delayMillisTotal;
+    }
+
+    /**
+     * Datagrams held back right now.
+     */
+    public long getQueued() {
+        return queued;
+    }
+
+    @Override
+    public String toString() {
+        return "ENetNetworkEmulatorStats{received=" + received + ", delivered=" + delivered + ", lost=" + lost +
+                ", duplicated=" + duplicated + ", reordered=" + reordered + ", overflowed=" + overflowed +
+                ", delayMillisTotal=" + delayMillisTotal + ", queued=" + queued + "}";
+    }
+}
@@ -1,29 +1,122 @@
 package com.enet;
 
-public class ENetPacket {
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+
+public class ENetPacket implements AutoCloseable {
+    private static final Cleaner CLEANER = Cleaner.create();
+
     private final long handle;
-    private final byte[] data;
-    private final int flags;
+    private final ByteBuffer buffer;
+    private int flags;
+    private int length;
+    private final boolean reusable;
+    private final Cleaner.Cleanable cleanable;
+    private byte[] data;
+    private volatile boolean released;
 
     public ENetPacket(long handle, byte[] data, int flags) {
         this.handle = handle;
         this.data = data;
+        this.buffer = ByteBuffer.wrap(data).asReadOnlyBuffer();
+        this.flags = flags;
+        this.length = data.length;
+        this.reusable = false;
+        this.cleanable = null;
+    }
+
+    /**
+     * Wraps a received native packet without copying. The buffer points straight at
+     * {@code packet->data} and stays valid until {@link #release()} is called.
+     */
+    public ENetPacket(long handle, ByteBuffer buffer, int flags) {
+        this.handle = handle;
+        this.buffer = buffer.asReadOnlyBuffer();
+        this.flags = flags;
+        this.length = buffer.capacity();
+        this.reusable = false;
+        // Safety net for packets nobody releases; explicit release() is still preferred. It is tied
+        // to the buffer from native code rather than to this packet: every view derived from it
+        // keeps it reachable, so a handler holding only getBuffer() never reads freed memory.
+        this.cleanable = handle != 0 ? CLEANER.register(buffer, new NativePacket(handle)) : null;
+    }
+
+    // Flyweight over the event loop's scratch buffer, refilled with reset() for each event
+    ENetPacket(ByteBuffer scratch) {
+        this.handle = 0;
+        this.buffer = scratch.asReadOnlyBuffer();
+        this.reusable = true;
+        this.cleanable = null;
+    }
+
+    void reset(int length, int flags) {
+        this.length = length;
         this.flags = flags;
+        this.data = null;
+        this.released = false;
     }
 
     public long getHandle() {
         return handle;
     }
 
+    /**
+     * Returns a read-only view of the payload. For native packets the view is only valid
+     * until the packet is released, and keeps the native memory alive until then even if the
+     * packet itself is dropped; use {@link #getData()} to keep the bytes. A flyweight
+     * packet returns the same view every time, rewound to the start of the payload.
+     */
+    public ByteBuffer getBuffer() {
+        checkNotReleased();
+        if (reusable) {
+            buffer.clear();
+            buffer.limit(length);
+            return buffer;
+        }
+        return buffer.duplicate();
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the payload as a byte array, copying it out of native memory on first use.
+     */
     public byte[] getData() {
+        if (data == null) {
+            checkNotReleased();
+            byte[] copy = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.clear();
+            view.get(copy);
+            data = copy;
+        }
         return data;
     }
 
+    /**
+     * Returns a standalone packet holding a heap copy of the payload, with nothing to release.
+     */
+    public ENetPacket copy() {
+        byte[] bytes = new byte[length];
+        if (data != null) {
+            System.arraycopy(data, 0, bytes, 0, length);
+        } else {
+            checkNotReleased();
+            ByteBuffer view = buffer.duplicate();
+            view.clear();
+            view.get(bytes);
+        }
+        return new ENetPacket(0, bytes, flags);
+    }
+
     public int getFlags() {
         return flags;
     }
 
     public String getDataAsString() {
+        byte[] data = getData();
         // Handle null-terminated strings (C-style)
         int length = data.length;
         for (int i = 0; i < data.length; i++) {
@@ -34,5 +127,48 @@ public class ENetPacket {
         }
         return new String(data, 0, length, java.nio.charset.StandardCharsets.UTF_8);
     }
-}
 
+    boolean isReusable() {
+        return reusable;
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Destroys the native packet. Data already copied through {@link #getData()} stays usable.
+     */
+    public void release() {
+        if (!released) {
+            released = true;
+            if (cleanable != null) {
+                cleanable.clean();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    private void checkNotReleased() {
+        if (released && (cleanable != null || reusable)) {
+            throw new IllegalStateException("Packet has already been released");
+        }
+    }
+
+    private static final class NativePacket implements Runnable {
+        private final long handle;
+
+        NativePacket(long handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void run() {
+            ENetConnection.nativePacketDestroy(handle);
+        }
+    }
+}
@@ -2,10 +2,18 @@ package com.enet;
 
 public class ENetPeer {
     private final long handle;
+    private final int id;
     private final ENetAddress address;
+    private volatile Object session;
+    private volatile boolean connected;
 
     public ENetPeer(long handle, ENetAddress address) {
+        this(handle, -1, address);
+    }
+
+    public ENetPeer(long handle, int id, ENetAddress address) {
         this.handle = handle;
+        this.id = id;
         this.address = address;
     }
 
@@ -13,13 +21,40 @@ public class ENetPeer {
         return handle;
     }
 
+    /**
+     * Returns the native peer slot (incomingPeerID), or -1 if unknown.
+     */
+    public int getID() {
+        return id;
+    }
+
     public ENetAddress getAddress() {
         return address;
     }
 
+    /**
+     * Returns the application object attached with {@link #setSession(Object)}.
+     * Sessions live on the canonical peer returned with every event for the connection.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getSession() {
+        return (T) session;
+    }
+
+    public void setSession(Object session) {
+        this.session = session;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    void setConnected(boolean connected) {
+        this.connected = connected;
+    }
+
     @Override
     public String toString() {
         return "ENetPeer{address=" + address + "}";
     }
 }
-
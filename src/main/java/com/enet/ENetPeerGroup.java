@@ -0,0 +1,113 @@
+package com.enet;
+
+import java.util.Arrays;
+
+/**
+ * A set of peers of one connection that can be sent to with a single packet, e.g. the players
+ * in a room. Membership is kept as a dense array of native peer slots, so a group send is one
+ * native call that queues the same reference-counted packet on every member.
+ * Peers leave the group automatically when they disconnect.
+ *
+ * @see ENetConnection#createPeerGroup()
+ * @see ENetConnection#sendToGroup(ENetPeerGroup, byte, byte[], int)
+ */
+public class ENetPeerGroup {
+    private final ENetConnection connection;
+    private final ENetPeer[] members;
+    private final int[] memberIDs;
+    private final int[] positions;
+    private int size;
+
+    ENetPeerGroup(ENetConnection connection, int capacity) {
+        this.connection = connection;
+        this.members = new ENetPeer[capacity];
+        this.memberIDs = new int[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Adds a connected peer of the owning connection. Returns {@code false} if it already was a member.
+     */
+    public synchronized boolean add(ENetPeer peer) {
+        int id = peer.getID();
+        if (id < 0 || id >= positions.length || connection.getPeer(id) != peer) {
+            throw new IllegalArgumentException("Peer is not connected to this host: " + peer);
+        }
+        int position = positions[id];
+        if (position >= 0) {
+            if (members[position] == peer) {
+                return false;
+            }
+            // Stale entry from a previous connection in the same slot
+            members[position] = peer;
+            return true;
+        }
+        members[size] = peer;
+        memberIDs[size] = id;
+        positions[id] = size++;
+        return true;
+    }
+
+    public synchronized boolean remove(ENetPeer peer) {
+        int id = peer.getID();
+        if (id < 0 || id >= positions.length || positions[id] < 0 || members[positions[id]] != peer) {
+            return false;
+        }
+        removeAt(positions[id]);
+        return true;
+    }
+
+    public synchronized boolean contains(ENetPeer peer) {
+        int id = peer.getID();
+        return id >= 0 && id < positions.length && positions[id] >= 0 && members[positions[id]] == peer;
+    }
+
+    public synchronized int size() {
+        prune();
+        return size;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[memberIDs[i]] = -1;
+            members[i] = null;
+        }
+        size = 0;
+    }
+
+    ENetConnection getConnection() {
+        return connection;
+    }
+
+    // Drops members whose connection has ended, then hands the slot array to the native send
+    synchronized int send(Sender sender) {
+        prune();
+        return size == 0 ? 0 : sender.send(memberIDs, size);
+    }
+
+    interface Sender {
+        int send(int[] peerIDs, int count);
+    }
+
+    private void prune() {
+        for (int i = size - 1; i >= 0; i--) {
+            ENetPeer peer = members[i];
+            if (!peer.isConnected() || connection.getPeer(memberIDs[i]) != peer) {
+                removeAt(i);
+            }
+        }
+    }
+
+    // Swap-removes so the member arrays stay dense
+    private void removeAt(int position) {
+        int last = --size;
+        positions[memberIDs[position]] = -1;
+        if (position != last) {
+            members[position] = members[last];
+            memberIDs[position] = memberIDs[last];
+            positions[memberIDs[position]] = position;
+        }
+        members[last] = null;
+    }
+}
@@ -0,0 +1,148 @@
+package com.enet;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * A set of ENet hosts bound to the same address and port with SO_REUSEPORT. The kernel spreads
+ * clients across the sockets by their address, and each shard runs its own event-loop thread,
+ * so receive and send work scales with the number of shards. A peer belongs to exactly one
+ * shard for its whole connection.
+ */
+public class ENetServerGroup implements AutoCloseable {
+    private final ENetConnection[] shards;
+
+    private ENetServerGroup(ENetConnection[] shards) {
+        this.shards = shards;
+    }
+
+    public static ENetServerGroup create(String host, int port, int shardCount, int maxClientsPerShard, int maxChannels) {
+        return create(host, port, shardCount, maxClientsPerShard, maxChannels, 0, 0);
+    }
+
+    public static ENetServerGroup create(String host, int port, int shardCount, int maxClientsPerShard, int maxChannels,
+                                         int incomingBandwidth, int outgoingBandwidth) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        ENetConnection[] shards = new ENetConnection[shardCount];
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = ENetConnection.createHostReusePort(host, port, maxClientsPerShard, maxChannels,
+                        incomingBandwidth, outgoingBandwidth);
+                shards[i].setLoopThreadName("ENet-EventLoop-" + i);
+                // Sends may come from any thread, including another shard's handlers
+                shards[i].enableCommandQueue(ENetConnection.DEFAULT_COMMAND_QUEUE_CAPACITY);
+            }
+        } catch (RuntimeException e) {
+            for (ENetConnection shard : shards) {
+                if (shard != null) {
+                    shard.close();
+                }
+            }
+            throw e;
+        }
+        return new ENetServerGroup(shards);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public ENetConnection getShard(int index) {
+        return shards[index];
+    }
+
+    public void forEachShard(Consumer<ENetConnection> action) {
+        for (ENetConnection shard : shards) {
+            action.accept(shard);
+        }
+    }
+
+    /**
+     * Registers the handler on every shard. Handlers are then called concurrently from all
+     * shard threads and must be thread-safe.
+     */
+    public void addEventHandler(Object handler) {
+        for (ENetConnection shard : shards) {
+            shard.addEventHandler(handler);
+        }
+    }
+
+    public void startEventLoops() {
+        for (ENetConnection shard : shards) {
+            shard.startEventLoop();
+        }
+    }
+
+    public void stopEventLoops() {
+        for (ENetConnection shard : shards) {
+            shard.stopEventLoop();
+        }
+    }
+
+    /**
+     * Returns the shard that owns {@code peer}, or {@code null} if it is not connected to this group.
+     */
+    public ENetConnection shardOf(ENetPeer peer) {
+        for (ENetConnection shard : shards) {
+            if (shard.getPeer(peer.getID()) == peer) {
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    public void forEachPeer(Consumer<ENetPeer> action) {
+        for (ENetConnection shard : shards) {
+            for (int i = 0; i < shard.getPeerCapacity(); i++) {
+                ENetPeer peer = shard.getPeer(i);
+                if (peer != null && peer.isConnected()) {
+                    action.accept(peer);
+                }
+            }
+        }
+    }
+
+    public int getPeerCount() {
+        int[] count = new int[1];
+        forEachPeer(peer -> count[0]++);
+        return count[0];
+    }
+
+    public int send(ENetPeer peer, byte channelID, byte[] data, int flags) {
+        ENetConnection shard = shardOf(peer);
+        return shard != null ? shard.send(peer, channelID, data, flags) : -1;
+    }
+
+    public int send(ENetPeer peer, byte channelID, ByteBuffer data, int offset, int length, int flags) {
+        ENetConnection shard = shardOf(peer);
+        return shard != null ? shard.send(peer, channelID, data, offset, length, flags) : -1;
+    }
+
+    public void broadcast(byte channelID, byte[] data, int flags) {
+        for (ENetConnection shard : shards) {
+            shard.broadcast(channelID, data, flags);
+        }
+    }
+
+    public void flush() {
+        for (ENetConnection shard : shards) {
+            shard.flush();
+        }
+    }
+
+    public void disconnectPeer(ENetPeer peer) {
+        ENetConnection shard = shardOf(peer);
+        if (shard != null) {
+            shard.disconnectPeer(peer);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (ENetConnection shard : shards) {
+            shard.close();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.enet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format shared by {@link ENetSnapshotReplicator} and {@link ENetSnapshotReceiver}.
+ * A snapshot packet is {@code kind, varint sequence, varint baseline} followed by two lists,
+ * each ending with a 0: the ids of baseline entities that are gone, then the entities that are
+ * new or changed, each as {@code id, varint field mask, zigzag varint delta per set bit}. New
+ * entities are encoded against all-zero fields, and baseline 0 is the empty snapshot, so a full
+ * snapshot is just a delta against nothing. Ids in both lists are written as the gap to the
+ * previous id plus one, which keeps them to a byte for dense ids.
+ * Acks and resync requests are {@code kind, varint sequence}.
+ */
+final class ENetSnapshotCodec {
+    static final byte SNAPSHOT = 1;
+    static final byte ACK = 2;
+    static final byte RESYNC = 3;
+    static final int MAX_FIELDS = 32;
+
+    private static final int MAX_VARINT_SIZE = 5;
+
+    private ENetSnapshotCodec() {
+    }
+
+    static int maxPacketSize(int maxEntities, int fieldsPerEntity) {
+        return 1 + 2 * MAX_VARINT_SIZE
+                + maxEntities * MAX_VARINT_SIZE + 1
+                + maxEntities * (2 + fieldsPerEntity) * MAX_VARINT_SIZE + 1;
+    }
+
+    /**
+     * Writes {@code current} as a delta against {@code base} into {@code out} and returns the
+     * encoded length. Both id lists must be strictly ascending.
+     */
+    static int encode(int sequence, int baseSequence, int fieldsPerEntity,
+                      int[] ids, int[] fields, int count,
+                      int[] baseIds, int[] baseFields, int baseCount, byte[] out) {
+        int position = 0;
+        out[position++] = SNAPSHOT;
+        position = writeVarint(out, position, sequence);
+        position = writeVarint(out, position, baseSequence);
+
+        int previous = -1;
+        for (int i = 0, b = 0; b < baseCount; b++) {
+            int id = baseIds[b];
+            while (i < count && ids[i] < id) {
+                i++;
+            }
+            if (i == count || ids[i] != id) {
+                position = writeVarint(out, position, id - previous);
+                previous = id;
+            }
+        }
+        out[position++] = 0;
+
+        previous = -1;
+        for (int i = 0, b = 0; i < count; i++) {
+            int id = ids[i];
+            while (b < baseCount && baseIds[b] < id) {
+                b++;
+            }
+            boolean known = b < baseCount && baseIds[b] == id;
+            int offset = i * fieldsPerEntity;
+            int baseOffset = b * fieldsPerEntity;
+            int mask = 0;
+            for (int f = 0; f < fieldsPerEntity; f++) {
+                int old = known ? baseFields[baseOffset + f] : 0;
+                if (fields[offset + f] != old) {
+                    mask |= 1 << f;
+                }
+            }
+            if (mask == 0 && known) {
+                continue;
+            }
+            position = writeVarint(out, position, id - previous);
+            previous = id;
+            // A new entity with all-zero fields still needs its entry, with an empty mask
+            position = writeVarint(out, position, mask);
+            for (int f = 0; f < fieldsPerEntity; f++) {
+                if ((mask & (1 << f)) != 0) {
+                    int old = known ? baseFields[baseOffset + f] : 0;
+                    position = writeVarint(out, position, zigzag(fields[offset + f] - old));
+                }
+            }
+        }
+        out[position++] = 0;
+        return position;
+    }
+
+    /**
+     * Applies the lists that follow the header in {@code in} to {@code base}, writing the
+     * result to {@code ids}/{@code fields}, and returns its entity count. {@code removed} is
+     * scratch of at least {@code maxEntities} ids.
+     *
+     * @throws IllegalArgumentException if the packet is malformed or holds too many entities
+     */
+    static int decode(ByteBuffer in, int fieldsPerEntity, int maxEntities,
+                      int[] baseIds, int[] baseFields, int baseCount,
+                      int[] ids, int[] fields, int[] removed) {
+        int removedCount = 0;
+        int previous = -1;
+        int gap;
+        while ((gap = readVarint(in)) != 0) {
+            if (removedCount == removed.length) {
+                throw new IllegalArgumentException("Too many removed entities");
+            }
+            previous += gap;
+            removed[removedCount++] = previous;
+        }
+
+        int count = 0;
+        int b = 0;
+        int r = 0;
+        previous = -1;
+        while ((gap = readVarint(in)) != 0) {
+            int id = previous + gap;
+            if (id <= previous) {
+                throw new IllegalArgumentException("Entity ids out of order");
+            }
+            previous = id;
+            // Carry over the untouched baseline entities ahead of this one
+            while (b < baseCount && baseIds[b] < id) {
+                if (r < removedCount && removed[r] == baseIds[b]) {
+                    r++;
+                } else {
+                    count = copyEntity(baseIds, baseFields, b, ids, fields, count, fieldsPerEntity, maxEntities);
+                }
+                b++;
+            }
+            boolean known = b < baseCount && baseIds[b] == id;
+            count = known
+                    ? copyEntity(baseIds, baseFields, b, ids, fields, count, fieldsPerEntity, maxEntities)
+                    : copyEntity(null, null, 0, ids, fields, count, fieldsPerEntity, maxEntities);
+            ids[count - 1] = id;
+            if (known) {
+                b++;
+            }
+            int mask = readVarint(in);
+            if (fieldsPerEntity < MAX_FIELDS && (mask >>> fieldsPerEntity) != 0) {
+                throw new IllegalArgumentException("Field mask has more than " + fieldsPerEntity + " fields");
+            }
+            int offset = (count - 1) * fieldsPerEntity;
+            for (int f = 0; f < fieldsPerEntity; f++) {
+                if ((mask & (1 << f)) != 0) {
+                    fields[offset + f] += unzigzag(readVarint(in));
+                }
+            }
+        }
+        for (; b < baseCount; b++) {
+            if (r < removedCount && removed[r] == baseIds[b]) {
+                r++;
+            } else {
+                count = copyEntity(baseIds, baseFields, b, ids, fields, count, fieldsPerEntity, maxEntities);
+            }
+        }
+        return count;
+    }
+
+    // Appends baseline entity b, or an all-zero one without a baseline, and returns the new count
+    private static int copyEntity(int[] baseIds, int[] baseFields, int b, int[] ids, int[] fields,
+                                  int count, int fieldsPerEntity, int maxEntities) {
+        if (count == maxEntities) {
+            throw new IllegalArgumentException("Snapshot holds more than " + maxEntities + " entities");
+        }
+        int offset = count * fieldsPerEntity;
+        if (baseIds != null) {
+            ids[count] = baseIds[b];
+            System.arraycopy(baseFields, b * fieldsPerEntity, fields, offset, fieldsPerEntity);
+        } else {
+            for (int f = 0; f < fieldsPerEntity; f++) {
+                fields[offset + f] = 0;
+            }
+        }
+        return count + 1;
+    }
+
+    static byte[] control(byte kind, int sequence) {
+        byte[] packet = new byte[1 + ENetCoalescer.varintSize(sequence)];
+        packet[0] = kind;
+        writeVarint(packet, 1, sequence);
+        return packet;
+    }
+
+    static int writeVarint(byte[] target, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            target[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+
+    static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than 5 bytes");
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,13 @@
+package com.enet;
+
+/**
+ * Receives the world state rebuilt by an {@link ENetSnapshotReceiver}, on the thread that
+ * handles the connection's events.
+ */
+public interface ENetSnapshotListener {
+    /**
+     * The arrays belong to the receiver and are only valid during the call: the first
+     * {@code entityCount} ids, ascending, and {@code fieldsPerEntity} fields per entity.
+     */
+    void onSnapshot(int sequence, int[] entityIds, int[] fields, int entityCount);
+}
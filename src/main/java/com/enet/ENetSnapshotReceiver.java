@@ -0,0 +1,145 @@
+package com.enet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Client side of {@link ENetSnapshotReplicator}: rebuilds each snapshot from the baseline it was
+ * encoded against, hands it to the listener and acknowledges it. Acks are queued without a
+ * flush, so they ride in the next datagram the client sends anyway, such as its input.
+ * Snapshots older than the newest one applied are dropped, and a snapshot whose baseline is no
+ * longer held triggers a request for a full one.
+ *
+ * <p>The layout must match the replicator's, and {@code historySize} should be at least as
+ * large. The receiver registers itself as a handler of {@code connection} and expects a single
+ * server per connection.
+ */
+public class ENetSnapshotReceiver {
+    private final ENetConnection connection;
+    private final byte channelID;
+    private final int fieldsPerEntity;
+    private final int maxEntities;
+    private final int historySize;
+    private final ENetSnapshotListener listener;
+    private volatile int latestSequence;
+    private volatile long droppedSnapshots;
+    private volatile long resyncRequests;
+
+    // Event-handling thread only
+    private final int[] ringSequence;
+    private final int[] ringCount;
+    private final int[][] ringIds;
+    private final int[][] ringFields;
+    private final int[] removed;
+    private int requestedResync;
+
+    public ENetSnapshotReceiver(ENetConnection connection, int channelID, int fieldsPerEntity,
+                                int maxEntities, int historySize, ENetSnapshotListener listener) {
+        ENetSnapshotReplicator.checkLayout(channelID, fieldsPerEntity, maxEntities, historySize);
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null");
+        }
+        this.connection = connection;
+        this.channelID = (byte) channelID;
+        this.fieldsPerEntity = fieldsPerEntity;
+        this.maxEntities = maxEntities;
+        this.historySize = historySize;
+        this.listener = listener;
+        this.ringSequence = new int[historySize];
+        this.ringCount = new int[historySize];
+        this.ringIds = new int[historySize][maxEntities];
+        this.ringFields = new int[historySize][maxEntities * fieldsPerEntity];
+        this.removed = new int[maxEntities];
+        connection.addEventHandler(this);
+    }
+
+    @ENetEventHandler(ENetEventType.CONNECT)
+    public void onConnect(ENetEvent event) {
+        latestSequence = 0;
+        requestedResync = 0;
+        for (int i = 0; i < historySize; i++) {
+            ringSequence[i] = 0;
+        }
+    }
+
+    @ENetEventHandler(ENetEventType.RECEIVE)
+    public void onReceive(ENetEvent event) {
+        ENetPacket packet = event.getPacket();
+        if (event.getChannelID() != channelID || packet == null) {
+            return;
+        }
+        ByteBuffer buffer = packet.getBuffer();
+        int sequence;
+        int baseSequence;
+        try {
+            if (buffer.get() != ENetSnapshotCodec.SNAPSHOT) {
+                return;
+            }
+            sequence = ENetSnapshotCodec.readVarint(buffer);
+            baseSequence = ENetSnapshotCodec.readVarint(buffer);
+        } catch (RuntimeException e) {
+            System.err.println("Dropping malformed snapshot from " + event.getPeer() + ": " + e);
+            return;
+        }
+        if (sequence <= latestSequence || baseSequence >= sequence) {
+            droppedSnapshots++;
+            return;
+        }
+        int slot = sequence % historySize;
+        int baseSlot = baseSequence % historySize;
+        if (baseSequence != 0 && (ringSequence[baseSlot] != baseSequence || baseSlot == slot)) {
+            droppedSnapshots++;
+            // Once per missing baseline; if the request is lost, the baseline leaves the
+            // replicator's ring soon enough and a full snapshot follows anyway
+            if (requestedResync != baseSequence) {
+                requestedResync = baseSequence;
+                resyncRequests++;
+                connection.send(event.getPeer(), channelID,
+                        ENetSnapshotCodec.control(ENetSnapshotCodec.RESYNC, sequence), ENetPacketFlags.UNSEQUENCED);
+            }
+            return;
+        }
+        int count;
+        ringSequence[slot] = 0;
+        try {
+            if (baseSequence == 0) {
+                count = ENetSnapshotCodec.decode(buffer, fieldsPerEntity, maxEntities, null, null, 0,
+                        ringIds[slot], ringFields[slot], removed);
+            } else {
+                count = ENetSnapshotCodec.decode(buffer, fieldsPerEntity, maxEntities, ringIds[baseSlot],
+                        ringFields[baseSlot], ringCount[baseSlot], ringIds[slot], ringFields[slot], removed);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Dropping malformed snapshot from " + event.getPeer() + ": " + e);
+            return;
+        }
+        ringSequence[slot] = sequence;
+        ringCount[slot] = count;
+        latestSequence = sequence;
+        connection.send(event.getPeer(), channelID,
+                ENetSnapshotCodec.control(ENetSnapshotCodec.ACK, sequence), ENetPacketFlags.UNSEQUENCED);
+        try {
+            listener.onSnapshot(sequence, ringIds[slot], ringFields[slot], count);
+        } catch (RuntimeException e) {
+            System.err.println("Error in snapshot listener: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the sequence number of the newest snapshot applied, 0 before the first.
+     */
+    public int getLatestSequence() {
+        return latestSequence;
+    }
+
+    /**
+     * Snapshots dropped because they arrived out of order or their baseline was missing.
+     */
+    public long getDroppedSnapshots() {
+        return droppedSnapshots;
+    }
+
+    public long getResyncRequests() {
+        return resyncRequests;
+    }
+}
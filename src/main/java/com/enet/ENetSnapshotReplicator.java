@@ -0,0 +1,231 @@
+package com.enet;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replicates world state to every connected peer as delta-compressed snapshots on an unreliable
+ * channel. Each {@link #publish(int[], int[], int)} stores the state in a ring of the last
+ * {@code historySize} snapshots and sends each peer only what changed since the last snapshot
+ * it acknowledged; a peer whose baseline is no longer in the ring, or that asks for a resync,
+ * gets a full snapshot. Peers acknowledging the same baseline share one encoded packet.
+ *
+ * <p>State is a flat table: entity ids, strictly ascending and non-negative, and
+ * {@code fieldsPerEntity} ints per entity in the same order. Encode floats with
+ * {@link Float#floatToIntBits(float)} or as fixed point; fixed point deltas are much smaller.
+ * The channel carries nothing but snapshots and the acks of {@link ENetSnapshotReceiver}.
+ * The replicator registers itself as a handler of {@code connection}. Publish on the
+ * event-loop thread, typically from an {@link ENetTickListener} so each snapshot leaves in the
+ * tick's flush: the per-baseline peer groups are reused by every publish, so they must be sent
+ * before the next one refills them, which only holds when the sends are not queued.
+ */
+public class ENetSnapshotReplicator {
+    // Oversized snapshots are fragmented without turning reliable
+    static final int SNAPSHOT_FLAGS = ENetPacketFlags.UNSEQUENCED | ENetPacketFlags.UNRELIABLE_FRAGMENT;
+
+    private final ENetConnection connection;
+    private final byte channelID;
+    private final int fieldsPerEntity;
+    private final int maxEntities;
+    private final int historySize;
+    private final AtomicIntegerArray ackedSequence;
+    private volatile int sequence;
+
+    // Publishing thread only
+    private final int[] ringSequence;
+    private final int[] ringCount;
+    private final int[][] ringIds;
+    private final int[][] ringFields;
+    // One group per ring slot, plus one for peers that need a full snapshot
+    private final ENetPeerGroup[] groups;
+    private final int[] groupSlots;
+    private final byte[] scratch;
+
+    private final AtomicLong fullSnapshots = new AtomicLong();
+    private final AtomicLong deltaSnapshots = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong resyncRequests = new AtomicLong();
+
+    public ENetSnapshotReplicator(ENetConnection connection, int channelID, int fieldsPerEntity,
+                                  int maxEntities, int historySize) {
+        checkLayout(channelID, fieldsPerEntity, maxEntities, historySize);
+        this.connection = connection;
+        this.channelID = (byte) channelID;
+        this.fieldsPerEntity = fieldsPerEntity;
+        this.maxEntities = maxEntities;
+        this.historySize = historySize;
+        this.ackedSequence = new AtomicIntegerArray(connection.getPeerCapacity());
+        this.ringSequence = new int[historySize];
+        this.ringCount = new int[historySize];
+        this.ringIds = new int[historySize][maxEntities];
+        this.ringFields = new int[historySize][maxEntities * fieldsPerEntity];
+        this.groups = new ENetPeerGroup[historySize + 1];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = connection.createPeerGroup();
+        }
+        this.groupSlots = new int[historySize + 1];
+        this.scratch = new byte[ENetSnapshotCodec.maxPacketSize(maxEntities, fieldsPerEntity)];
+        connection.addEventHandler(this);
+    }
+
+    static void checkLayout(int channelID, int fieldsPerEntity, int maxEntities, int historySize) {
+        if (channelID < 0 || channelID > 255) {
+            throw new IllegalArgumentException("Channel ID must be between 0 and 255");
+        }
+        if (fieldsPerEntity <= 0 || fieldsPerEntity > ENetSnapshotCodec.MAX_FIELDS) {
+            throw new IllegalArgumentException("Fields per entity must be between 1 and " + ENetSnapshotCodec.MAX_FIELDS);
+        }
+        if (maxEntities <= 0) {
+            throw new IllegalArgumentException("Max entities must be positive");
+        }
+        if (historySize < 2) {
+            throw new IllegalArgumentException("History size must be at least 2");
+        }
+    }
+
+    /**
+     * Stores the first {@code entityCount} entities as the next snapshot and sends it to every
+     * connected peer. Returns the snapshot's sequence number.
+     *
+     * @throws IllegalStateException if called off the event-loop thread while the loop runs
+     */
+    public int publish(int[] entityIds, int[] fields, int entityCount) {
+        if (!connection.isLoopContext()) {
+            throw new IllegalStateException("Snapshots must be published on the event-loop thread");
+        }
+        if (entityCount < 0 || entityCount > maxEntities) {
+            throw new IllegalArgumentException("Entity count must be between 0 and " + maxEntities);
+        }
+        if (entityIds.length < entityCount || fields.length < entityCount * fieldsPerEntity) {
+            throw new IllegalArgumentException("Arrays are shorter than " + entityCount + " entities");
+        }
+        for (int i = 0; i < entityCount; i++) {
+            if (entityIds[i] < 0 || (i > 0 && entityIds[i] <= entityIds[i - 1])) {
+                throw new IllegalArgumentException("Entity ids must be non-negative and strictly ascending");
+            }
+        }
+        int current = sequence + 1;
+        int slot = current % historySize;
+        System.arraycopy(entityIds, 0, ringIds[slot], 0, entityCount);
+        System.arraycopy(fields, 0, ringFields[slot], 0, entityCount * fieldsPerEntity);
+        ringCount[slot] = entityCount;
+        ringSequence[slot] = current;
+        sequence = current;
+
+        int distinct = 0;
+        for (int peerID = 0; peerID < ackedSequence.length(); peerID++) {
+            ENetPeer peer = connection.getPeer(peerID);
+            if (peer == null || !peer.isConnected()) {
+                continue;
+            }
+            int group = baselineSlot(ackedSequence.get(peerID), current);
+            if (groups[group].size() == 0) {
+                groupSlots[distinct++] = group;
+            }
+            groups[group].add(peer);
+        }
+        for (int i = 0; i < distinct; i++) {
+            int group = groupSlots[i];
+            int members = groups[group].size();
+            int length;
+            if (group == historySize) {
+                length = ENetSnapshotCodec.encode(current, 0, fieldsPerEntity, ringIds[slot], ringFields[slot],
+                        entityCount, null, null, 0, scratch);
+                fullSnapshots.addAndGet(members);
+            } else {
+                length = ENetSnapshotCodec.encode(current, ringSequence[group], fieldsPerEntity, ringIds[slot],
+                        ringFields[slot], entityCount, ringIds[group], ringFields[group], ringCount[group], scratch);
+                deltaSnapshots.addAndGet(members);
+            }
+            bytesSent.addAndGet((long) length * members);
+            connection.sendToGroup(groups[group], channelID, Arrays.copyOf(scratch, length), SNAPSHOT_FLAGS);
+            groups[group].clear();
+        }
+        return current;
+    }
+
+    // Ring slot of an acknowledged baseline that is still held, or historySize for a full snapshot
+    private int baselineSlot(int acked, int current) {
+        if (acked <= 0 || acked >= current || acked <= current - historySize) {
+            return historySize;
+        }
+        int slot = acked % historySize;
+        return ringSequence[slot] == acked ? slot : historySize;
+    }
+
+    @ENetEventHandler(ENetEventType.CONNECT)
+    public void onConnect(ENetEvent event) {
+        ENetPeer peer = event.getPeer();
+        if (peer.getID() >= 0 && peer.getID() < ackedSequence.length()) {
+            ackedSequence.set(peer.getID(), 0);
+        }
+    }
+
+    @ENetEventHandler(ENetEventType.RECEIVE)
+    public void onReceive(ENetEvent event) {
+        ENetPacket packet = event.getPacket();
+        int peerID = event.getPeer().getID();
+        if (event.getChannelID() != channelID || packet == null || peerID < 0 || peerID >= ackedSequence.length()) {
+            return;
+        }
+        ByteBuffer buffer = packet.getBuffer();
+        int acked;
+        byte kind;
+        try {
+            kind = buffer.get();
+            acked = ENetSnapshotCodec.readVarint(buffer);
+        } catch (RuntimeException e) {
+            System.err.println("Dropping malformed snapshot ack from " + event.getPeer() + ": " + e);
+            return;
+        }
+        if (kind == ENetSnapshotCodec.RESYNC) {
+            resyncRequests.incrementAndGet();
+            ackedSequence.set(peerID, 0);
+        } else if (kind == ENetSnapshotCodec.ACK && acked <= sequence) {
+            // Acks are unsequenced, so only ever move the baseline forward
+            int previous;
+            do {
+                previous = ackedSequence.get(peerID);
+            } while (acked > previous && !ackedSequence.compareAndSet(peerID, previous, acked));
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last published snapshot, 0 before the first.
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the newest snapshot {@code peer} acknowledged, 0 if none is usable as a baseline.
+     */
+    public int getAckedSequence(ENetPeer peer) {
+        int peerID = peer.getID();
+        return peerID >= 0 && peerID < ackedSequence.length() ? ackedSequence.get(peerID) : 0;
+    }
+
+    /**
+     * Snapshots sent in full, counted per peer.
+     */
+    public long getFullSnapshots() {
+        return fullSnapshots.get();
+    }
+
+    public long getDeltaSnapshots() {
+        return deltaSnapshots.get();
+    }
+
+    /**
+     * Snapshot payload sent to all peers, before ENet's headers.
+     */
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getResyncRequests() {
+        return resyncRequests.get();
+    }
+}
@@ -0,0 +1,55 @@
+package com.enet;
+
+/**
+ * Field layout of the arrays filled by {@link ENetConnection#stats(long[])} and
+ * {@link ENetConnection#peerStats(long[])}.
+ *
+ * <p>Host byte and packet totals are ENet's 32-bit counters and wrap around after 4 GiB or
+ * 2^32 datagrams. Peer records are {@link #PEER_FIELDS} longs each, one per peer that is not
+ * disconnected, in slot order.
+ */
+public final class ENetStats {
+    public static final int SENT_BYTES = 0;
+    public static final int SENT_PACKETS = 1;
+    public static final int RECEIVED_BYTES = 2;
+    public static final int RECEIVED_PACKETS = 3;
+    public static final int CONNECTED_PEERS = 4;
+    public static final int PEER_CAPACITY = 5;
+    public static final int BANDWIDTH_LIMITED_PEERS = 6;
+    public static final int HOST_FIELDS = 7;
+
+    public static final int PEER_ID = 0;
+    /** Native ENetPeerState ordinal; 5 is connected. */
+    public static final int PEER_STATE = 1;
+    /** Mean round trip time in milliseconds. */
+    public static final int PEER_ROUND_TRIP_TIME = 2;
+    public static final int PEER_ROUND_TRIP_TIME_VARIANCE = 3;
+    /** Mean reliable packet loss scaled by {@link #PACKET_LOSS_SCALE}. */
+    public static final int PEER_PACKET_LOSS = 4;
+    public static final int PEER_PACKET_LOSS_VARIANCE = 5;
+    /** Unreliable packet throttle scaled by {@link #PACKET_THROTTLE_SCALE}. */
+    public static final int PEER_PACKET_THROTTLE = 6;
+    public static final int PEER_PACKETS_SENT = 7;
+    public static final int PEER_PACKETS_LOST = 8;
+    public static final int PEER_BYTES_SENT = 9;
+    public static final int PEER_BYTES_RECEIVED = 10;
+    /** Reliable bytes sent but not yet acknowledged. */
+    public static final int PEER_RELIABLE_IN_TRANSIT = 11;
+    /** Commands queued and not yet sent, or -1 if they could not be counted safely. */
+    public static final int PEER_OUTGOING_QUEUE = 12;
+    /** Reliable commands sent and awaiting acknowledgement, or -1 if they could not be counted safely. */
+    public static final int PEER_SENT_RELIABLE_QUEUE = 13;
+    /** Bytes of received packets waiting to be reassembled or dispatched. */
+    public static final int PEER_WAITING_DATA = 14;
+    public static final int PEER_MTU = 15;
+    /** Payload bytes queued or awaiting acknowledgement, or -1 if they could not be counted safely. */
+    public static final int PEER_OUTSTANDING_BYTES = 16;
+    public static final int PEER_FIELDS = 17;
+
+    public static final int PEER_STATE_CONNECTED = 5;
+    public static final int PACKET_LOSS_SCALE = 65536;
+    public static final int PACKET_THROTTLE_SCALE = 32;
+
+    private ENetStats() {
+    }
+}
@@ -0,0 +1,15 @@
+package com.enet;
+
+/**
+ * Called on the event-loop thread once per tick of a host running with
+ * {@link ENetConnection#enableTicks(int)}, after the tick's events were handled and before
+ * everything sent during the tick is flushed.
+ */
+public interface ENetTickListener {
+    /**
+     * @param tick         number of the tick, starting at 1
+     * @param deltaSeconds time since the previous tick started, which differs from the nominal
+     *                     period when the loop woke late or fell behind
+     */
+    void onTick(long tick, double deltaSeconds);
+}
@@ -0,0 +1,125 @@
+package com.enet;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Schedule, listeners and counters behind {@link ENetConnection#enableTicks(int)}. Deadlines are
+ * kept on an absolute grid of the period, so a tick that starts late does not push the ones
+ * after it; a loop that falls a whole period behind skips the missed ticks instead of running
+ * them back to back.
+ */
+final class ENetTickScheduler {
+    private static final ENetTickListener[] NONE = new ENetTickListener[0];
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final long periodNanos;
+    private volatile ENetTickListener[] listeners = NONE;
+    private final AtomicLongArray counters = new AtomicLongArray(ENetTickStats.FIELDS);
+
+    // Loop thread only
+    private long deadline;
+    private long lastTick;
+    private long tick;
+
+    ENetTickScheduler(int ticksPerSecond) {
+        if (ticksPerSecond <= 0 || ticksPerSecond > 1000) {
+            throw new IllegalArgumentException("Ticks per second must be between 1 and 1000");
+        }
+        this.periodNanos = 1_000_000_000L / ticksPerSecond;
+    }
+
+    synchronized void addListener(ENetTickListener listener) {
+        ENetTickListener[] current = listeners;
+        ENetTickListener[] updated = new ENetTickListener[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    synchronized boolean removeListener(ENetTickListener listener) {
+        ENetTickListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                ENetTickListener[] updated = new ENetTickListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    ENetTickListener[] listeners() {
+        return listeners;
+    }
+
+    void start(long now) {
+        deadline = now;
+        lastTick = now - periodNanos;
+    }
+
+    long nanosUntilDue(long now) {
+        return deadline - now;
+    }
+
+    /**
+     * Starts the tick that was due and returns the time since the previous one started.
+     */
+    double begin(long now) {
+        double deltaSeconds = (now - lastTick) / NANOS_PER_SECOND;
+        lastTick = now;
+        tick++;
+        deadline += periodNanos;
+        return deltaSeconds;
+    }
+
+    void runListeners(double deltaSeconds) {
+        for (ENetTickListener listener : listeners) {
+            try {
+                listener.onTick(tick, deltaSeconds);
+            } catch (RuntimeException e) {
+                System.err.println("Error in tick listener: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Records the phase boundaries of the tick started at {@code start}, and moves the next
+     * deadline past any ticks it overran by a whole period.
+     */
+    void end(long start, long serviced, long handled, long listened, long flushed, int events) {
+        add(ENetTickStats.TICKS, 1);
+        add(ENetTickStats.EVENTS, events);
+        add(ENetTickStats.SERVICE_NANOS, serviced - start);
+        add(ENetTickStats.HANDLER_NANOS, handled - serviced);
+        add(ENetTickStats.LISTENER_NANOS, listened - handled);
+        add(ENetTickStats.FLUSH_NANOS, flushed - listened);
+        if (flushed - start > counters.get(ENetTickStats.MAX_TICK_NANOS)) {
+            counters.lazySet(ENetTickStats.MAX_TICK_NANOS, flushed - start);
+        }
+        long behind = flushed - deadline;
+        if (behind > 0) {
+            add(ENetTickStats.OVERRUNS, 1);
+            long missed = behind / periodNanos;
+            if (missed > 0) {
+                deadline += missed * periodNanos;
+                add(ENetTickStats.SKIPPED, missed);
+            }
+        }
+    }
+
+    // Single writer, so a plain read-modify-write is enough
+    private void add(int field, long value) {
+        counters.lazySet(field, counters.get(field) + value);
+    }
+
+    ENetTickStats snapshot() {
+        long[] values = new long[ENetTickStats.FIELDS];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = counters.get(i);
+        }
+        return new ENetTickStats(periodNanos, values);
+    }
+}
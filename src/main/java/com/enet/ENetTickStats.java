@@ -0,0 +1,116 @@
+package com.enet;
+
+import java.util.Locale;
+
+/**
+ * Snapshot of a ticking host's counters. Phase times are totals over all ticks so far.
+ *
+ * @see ENetConnection#getTickStats()
+ */
+public class ENetTickStats {
+    static final int TICKS = 0;
+    static final int OVERRUNS = 1;
+    static final int SKIPPED = 2;
+    static final int EVENTS = 3;
+    static final int SERVICE_NANOS = 4;
+    static final int HANDLER_NANOS = 5;
+    static final int LISTENER_NANOS = 6;
+    static final int FLUSH_NANOS = 7;
+    static final int MAX_TICK_NANOS = 8;
+    static final int FIELDS = 9;
+
+    private final long periodNanos;
+    private final long ticks;
+    private final long overruns;
+    private final long skippedTicks;
+    private final long events;
+    private final long serviceNanos;
+    private final long handlerNanos;
+    private final long listenerNanos;
+    private final long flushNanos;
+    private final long maxTickNanos;
+
+    ENetTickStats(long periodNanos, long[] values) {
+        this.periodNanos = periodNanos;
+        this.ticks = values[TICKS];
+        this.overruns = values[OVERRUNS];
+        this.skippedTicks = values[SKIPPED];
+        this.events = values[EVENTS];
+        this.serviceNanos = values[SERVICE_NANOS];
+        this.handlerNanos = values[HANDLER_NANOS];
+        this.listenerNanos = values[LISTENER_NANOS];
+        this.flushNanos = values[FLUSH_NANOS];
+        this.maxTickNanos = values[MAX_TICK_NANOS];
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Ticks that ended after the next one was due.
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * Ticks left out because the loop fell a whole period or more behind. The next tick's delta
+     * covers the time they would have taken.
+     */
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    /**
+     * Time spent running queued commands and servicing the host.
+     */
+    public long getServiceNanos() {
+        return serviceNanos;
+    }
+
+    /**
+     * Time spent dispatching events to handlers, or handing them to the handler executor.
+     */
+    public long getHandlerNanos() {
+        return handlerNanos;
+    }
+
+    public long getListenerNanos() {
+        return listenerNanos;
+    }
+
+    public long getFlushNanos() {
+        return flushNanos;
+    }
+
+    public long getMaxTickNanos() {
+        return maxTickNanos;
+    }
+
+    /**
+     * Average share of the period a tick kept the loop busy.
+     */
+    public double getAverageLoad() {
+        if (ticks == 0) {
+            return 0.0;
+        }
+        return (double) (serviceNanos + handlerNanos + listenerNanos + flushNanos) / ticks / periodNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "ENetTickStats{ticks=%d, overruns=%d, skippedTicks=%d, events=%d,"
+                        + " serviceNanos=%d, handlerNanos=%d, listenerNanos=%d, flushNanos=%d, maxTickNanos=%d,"
+                        + " averageLoad=%.3f}", ticks, overruns, skippedTicks, events, serviceNanos, handlerNanos,
+                listenerNanos, flushNanos, maxTickNanos, getAverageLoad());
+    }
+}
@@ -44,6 +44,9 @@ public class ClientExample {
     public void start(String host, int port) {
         client = ENetConnection.createHostBound(null, 0, 1, 2);
         client.addEventHandler(this);
+        client.setAutoReleasePackets(true);
+        // sendMessage() runs on the stdin thread, so route it through the loop
+        client.enableCommandQueue(256);
         client.startEventLoop();
         
         try {
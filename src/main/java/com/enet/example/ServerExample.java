@@ -54,6 +54,11 @@ public class ServerExample {
     public void start() {
         server = ENetConnection.createHost("0.0.0.0", 7777, 32, 2);
         server.addEventHandler(this);
+        server.setAutoReleasePackets(true);
+        // broadcastMessage() runs on the stdin thread, so route it through the loop
+        server.enableCommandQueue(1024);
+        // Everything sent during a tick, from handlers or other threads, goes out in one flush
+        server.enableTicks(30);
         server.startEventLoop();
         System.out.println("Server started on port 7777");
     }
@@ -101,15 +106,14 @@ public class ServerExample {
             // Send plain data on channel 0 - Godot now uses direct ENet connection
             server.send(peer, (byte) 0, welcomeData, ENetPacketFlags.RELIABLE);
             welcomeSent.put(peer, true);
-            server.flush();
             System.out.println("Sent welcome message to " + clientInfo + " (channel 0, size: " + welcomeData.length + ")");
         }
 
         // Send plain responses on channel 0 - no special formatting needed
         String response = "Echo: " + message;
         byte[] data = response.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        // No flush here: the tick sends the welcome and the echo together after this handler
         int result = server.send(peer, (byte) 0, data, ENetPacketFlags.RELIABLE);
-        server.flush();
         System.out.println("Echo sent, result: " + result + ", data length: " + data.length + ", channel: 0");
     }
     
@@ -123,7 +127,6 @@ public class ServerExample {
         // Send plain data on channel 0 - Godot now uses direct ENet connection
         byte[] data = message.getBytes(java.nio.charset.StandardCharsets.UTF_8);
         server.broadcast((byte) 0, data, ENetPacketFlags.RELIABLE);
-        server.flush();
         System.out.println("Broadcast sent, data length: " + data.length);
     }
     
@@ -132,7 +135,6 @@ public class ServerExample {
             // Send plain data on channel 0 - Godot now uses direct ENet connection
             byte[] data = message.getBytes(java.nio.charset.StandardCharsets.UTF_8);
             server.send(peer, (byte) 0, data, ENetPacketFlags.RELIABLE);
-            server.flush();
         } else {
             System.out.println("Client not found or disconnected.");
         }
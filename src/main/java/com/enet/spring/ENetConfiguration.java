@@ -1,14 +1,52 @@
 package com.enet.spring;
 
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-@Configuration
+@AutoConfiguration
+@ConditionalOnProperty(prefix = "enet", name = "enabled", matchIfMissing = true)
+@EnableConfigurationProperties(ENetProperties.class)
 public class ENetConfiguration {
-    
+
+    // Static so the post-processor is created without instantiating this configuration early
     @Bean
-    public ENetEventHandlerRegistry enetEventHandlerRegistry() {
+    @ConditionalOnMissingBean
+    public static ENetEventHandlerRegistry enetEventHandlerRegistry() {
         return new ENetEventHandlerRegistry();
     }
-}
 
+    @Bean
+    @ConditionalOnMissingBean
+    public ENetService enetService(ENetEventHandlerRegistry handlerRegistry, ENetProperties properties) {
+        return new ENetService(handlerRegistry, properties);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public ENetStatsSampler enetStatsSampler(ENetService service, ENetProperties properties) {
+        return new ENetStatsSampler(service::getConnection, properties.getStats().getIntervalMs());
+    }
+
+    @Bean(initMethod = "register", destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "enet.stats", name = "jmx-enabled", matchIfMissing = true)
+    public ENetStatsJmxExporter enetStatsJmxExporter(ENetStatsSampler sampler, ENetProperties properties) {
+        return new ENetStatsJmxExporter(sampler, properties.getStats().getJmxName());
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public ENetMetrics enetMetrics(ENetStatsSampler sampler) {
+            return new ENetMetrics(sampler);
+        }
+    }
+}
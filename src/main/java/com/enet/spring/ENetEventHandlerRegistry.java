@@ -1,66 +1,74 @@
 package com.enet.spring;
 
 import com.enet.ENetEvent;
+import com.enet.ENetEventDispatcher;
 import com.enet.ENetEventType;
-import com.enet.ENetEventHandler;
+import com.enet.ENetMessageRouter;
 import org.springframework.beans.BeansException;
-import org.springframework.context.ApplicationContext;
-import org.springframework.context.ApplicationContextAware;
-import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 
-import javax.annotation.PostConstruct;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-@Component
-public class ENetEventHandlerRegistry implements ApplicationContextAware {
-    private final Map<ENetEventType, List<HandlerMethod>> handlers = new HashMap<>();
-    private ApplicationContext applicationContext;
+/**
+ * Collects {@link com.enet.ENetEventHandler} and {@link com.enet.ENetMessageHandler} methods of
+ * singleton beans as they are initialized,
+ * so no bean is created early just to be scanned and lazy beans register when first used.
+ * Prototype and other scoped beans are skipped, since every instance would stay registered;
+ * register such handlers with {@link #registerHandler(Object)}.
+ */
+public class ENetEventHandlerRegistry implements BeanPostProcessor, BeanFactoryAware {
+    private final ENetEventDispatcher dispatcher = new ENetEventDispatcher();
+    private final ENetMessageRouter messageRouter = new ENetMessageRouter();
+    private volatile boolean routeMessages;
+    private BeanFactory beanFactory;
 
     @Override
-    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
-        this.applicationContext = applicationContext;
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
     }
 
-    @PostConstruct
-    public void init() {
-        String[] beanNames = applicationContext.getBeanNamesForType(Object.class);
-        for (String beanName : beanNames) {
-            Object bean = applicationContext.getBean(beanName);
-            if (bean != this && hasHandlerMethods(bean)) {
-                registerHandler(bean);
-            }
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        Class<?> type = bean.getClass();
+        if (bean != this && (ENetEventDispatcher.hasHandlerMethods(type) || ENetMessageRouter.hasMessageHandlers(type))
+                && isSingleton(beanName)) {
+            registerHandler(bean);
         }
+        return bean;
     }
 
-    private boolean hasHandlerMethods(Object bean) {
-        for (Method method : bean.getClass().getDeclaredMethods()) {
-            if (method.getAnnotation(ENetEventHandler.class) != null) {
-                return true;
-            }
+    private boolean isSingleton(String beanName) {
+        if (beanFactory == null) {
+            return true;
+        }
+        try {
+            return beanFactory.isSingleton(beanName);
+        } catch (NoSuchBeanDefinitionException e) {
+            // Inner beans have no definition of their own
+            return false;
         }
-        return false;
     }
 
     public void registerHandler(Object handler) {
-        for (Method method : handler.getClass().getDeclaredMethods()) {
-            ENetEventHandler annotation = method.getAnnotation(ENetEventHandler.class);
-            if (annotation != null) {
-                if (method.getParameterCount() != 1 || 
-                    !method.getParameterTypes()[0].equals(ENetEvent.class)) {
-                    throw new IllegalArgumentException(
-                        "Handler method must accept exactly one ENetEvent parameter: " + method.getName());
-                }
-                method.setAccessible(true);
-                handlers.computeIfAbsent(annotation.value(), k -> new ArrayList<>())
-                        .add(new HandlerMethod(handler, method));
-            }
+        Class<?> type = handler.getClass();
+        if (ENetEventDispatcher.hasHandlerMethods(type)) {
+            dispatcher.register(handler);
+        }
+        if (ENetMessageRouter.hasMessageHandlers(type)) {
+            messageRouter.register(handler);
+            routeMessages = true;
         }
     }
 
+    /**
+     * Returns the router that decodes received packets for message handler beans, also used to
+     * register codecs and encode outgoing messages.
+     */
+    public ENetMessageRouter getMessageRouter() {
+        return messageRouter;
+    }
+
     public void handleConnect(ENetEvent event) {
         invokeHandlers(ENetEventType.CONNECT, event);
     }
@@ -71,30 +79,12 @@ public class ENetEventHandlerRegistry implements ApplicationContextAware {
 
     public void handleReceive(ENetEvent event) {
         invokeHandlers(ENetEventType.RECEIVE, event);
-    }
-
-    private void invokeHandlers(ENetEventType eventType, ENetEvent event) {
-        List<HandlerMethod> methods = handlers.get(eventType);
-        if (methods != null) {
-            for (HandlerMethod handlerMethod : methods) {
-                try {
-                    handlerMethod.method.invoke(handlerMethod.handler, event);
-                } catch (Exception e) {
-                    System.err.println("Error handling event: " + e.getMessage());
-                    e.printStackTrace();
-                }
-            }
+        if (routeMessages) {
+            messageRouter.route(event);
         }
     }
 
-    private static class HandlerMethod {
-        final Object handler;
-        final Method method;
-
-        HandlerMethod(Object handler, Method method) {
-            this.handler = handler;
-            this.method = method;
-        }
+    private void invokeHandlers(ENetEventType eventType, ENetEvent event) {
+        dispatcher.dispatch(eventType, event);
     }
 }
-
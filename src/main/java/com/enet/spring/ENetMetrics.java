@@ -0,0 +1,57 @@
+package com.enet.spring;
+
+import com.enet.ENetStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Micrometer binding for an {@link ENetStatsSampler}. Host totals become counters and gauges;
+ * every sample records each peer's round trip time and packet loss into distribution
+ * summaries, so percentiles reflect the spread across peers.
+ */
+public class ENetMetrics implements MeterBinder {
+    private final ENetStatsSampler sampler;
+
+    public ENetMetrics(ENetStatsSampler sampler) {
+        this.sampler = sampler;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "enet.sent.bytes", ENetStats.SENT_BYTES, "bytes");
+        counter(registry, "enet.sent.packets", ENetStats.SENT_PACKETS, "packets");
+        counter(registry, "enet.received.bytes", ENetStats.RECEIVED_BYTES, "bytes");
+        counter(registry, "enet.received.packets", ENetStats.RECEIVED_PACKETS, "packets");
+        Gauge.builder("enet.peers.connected", sampler, s -> s.getHostStat(ENetStats.CONNECTED_PEERS))
+                .description("Connected ENet peers")
+                .register(registry);
+        Gauge.builder("enet.peers.outgoing.queued", sampler, ENetStatsSampler::getOutgoingQueueTotal)
+                .description("Commands queued for sending across all peers")
+                .register(registry);
+
+        DistributionSummary roundTripTime = DistributionSummary.builder("enet.peer.rtt")
+                .baseUnit("milliseconds")
+                .description("Mean round trip time per peer, sampled")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        DistributionSummary packetLoss = DistributionSummary.builder("enet.peer.packet.loss")
+                .description("Reliable packet loss ratio per peer, sampled")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        sampler.addListener(s -> {
+            for (int i = 0; i < s.getPeerCount(); i++) {
+                roundTripTime.record(s.getPeerStat(i, ENetStats.PEER_ROUND_TRIP_TIME));
+                packetLoss.record((double) s.getPeerStat(i, ENetStats.PEER_PACKET_LOSS) / ENetStats.PACKET_LOSS_SCALE);
+            }
+        });
+    }
+
+    private void counter(MeterRegistry registry, String name, int field, String unit) {
+        FunctionCounter.builder(name, sampler, s -> s.getHostStat(field))
+                .baseUnit(unit)
+                .register(registry);
+    }
+}
@@ -0,0 +1,239 @@
+package com.enet.spring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hosts started by {@link ENetService}, keyed by name:
+ *
+ * <pre>
+ * enet.hosts.game.port=7777
+ * enet.hosts.game.max-peers=2000
+ * enet.hosts.game.loop-threads=4
+ * enet.hosts.admin.address=127.0.0.1
+ * enet.hosts.admin.port=7778
+ * </pre>
+ *
+ * Without any {@code enet.hosts} entry a single host named {@value #DEFAULT_HOST} is started on
+ * 0.0.0.0:7777 with 32 peers and 2 channels.
+ */
+@ConfigurationProperties(prefix = "enet")
+public class ENetProperties {
+    public static final String DEFAULT_HOST = "default";
+
+    /** Whether the ENet auto-configuration is applied. */
+    private boolean enabled = true;
+
+    /** Lifecycle phase the hosts start in; the default starts them after all other beans. */
+    private int phase = SmartLifecycle.DEFAULT_PHASE;
+
+    private Map<String, Host> hosts = new LinkedHashMap<>();
+
+    private final Stats stats = new Stats();
+
+    public static class Host {
+        private String address = "0.0.0.0";
+        private int port = 7777;
+        /** Peer slots in total, split evenly across loop threads. */
+        private int maxPeers = 32;
+        private int channels = 2;
+        /** Bytes per second, 0 for unlimited; applies to each loop thread's host. */
+        private int incomingBandwidth;
+        private int outgoingBandwidth;
+        /** Event-loop threads; more than one binds that many SO_REUSEPORT sockets. */
+        private int loopThreads = 1;
+        /** Command queue for sends from other threads, 0 to send directly. Sharded hosts always have one. */
+        private int commandQueueCapacity;
+        /** Batch buffer size for the event loop, 0 to service one event at a time. */
+        private int batchCapacityBytes;
+        private boolean autoReleasePackets;
+        /** Channel ID to priority; higher-priority channels are handled first. */
+        private Map<Integer, Integer> channelPriorities = new LinkedHashMap<>();
+        /** Emulated conditions for received datagrams, e.g. {@code latency=50 jitter=10 loss=1}; for tests only. */
+        private String networkConditions;
+        /** Ticks per second for a fixed-rate loop that flushes once per tick, 0 for an event-driven loop. */
+        private int tickRate;
+
+        public String getAddress() {
+            return address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public int getMaxPeers() {
+            return maxPeers;
+        }
+
+        public void setMaxPeers(int maxPeers) {
+            this.maxPeers = maxPeers;
+        }
+
+        public int getChannels() {
+            return channels;
+        }
+
+        public void setChannels(int channels) {
+            this.channels = channels;
+        }
+
+        public int getIncomingBandwidth() {
+            return incomingBandwidth;
+        }
+
+        public void setIncomingBandwidth(int incomingBandwidth) {
+            this.incomingBandwidth = incomingBandwidth;
+        }
+
+        public int getOutgoingBandwidth() {
+            return outgoingBandwidth;
+        }
+
+        public void setOutgoingBandwidth(int outgoingBandwidth) {
+            this.outgoingBandwidth = outgoingBandwidth;
+        }
+
+        public int getLoopThreads() {
+            return loopThreads;
+        }
+
+        public void setLoopThreads(int loopThreads) {
+            this.loopThreads = loopThreads;
+        }
+
+        public int getCommandQueueCapacity() {
+            return commandQueueCapacity;
+        }
+
+        public void setCommandQueueCapacity(int commandQueueCapacity) {
+            this.commandQueueCapacity = commandQueueCapacity;
+        }
+
+        public int getBatchCapacityBytes() {
+            return batchCapacityBytes;
+        }
+
+        public void setBatchCapacityBytes(int batchCapacityBytes) {
+            this.batchCapacityBytes = batchCapacityBytes;
+        }
+
+        public boolean isAutoReleasePackets() {
+            return autoReleasePackets;
+        }
+
+        public void setAutoReleasePackets(boolean autoReleasePackets) {
+            this.autoReleasePackets = autoReleasePackets;
+        }
+
+        public Map<Integer, Integer> getChannelPriorities() {
+            return channelPriorities;
+        }
+
+        public void setChannelPriorities(Map<Integer, Integer> channelPriorities) {
+            this.channelPriorities = channelPriorities;
+        }
+
+        public String getNetworkConditions() {
+            return networkConditions;
+        }
+
+        public void setNetworkConditions(String networkConditions) {
+            this.networkConditions = networkConditions;
+        }
+
+        public int getTickRate() {
+            return tickRate;
+        }
+
+        public void setTickRate(int tickRate) {
+            this.tickRate = tickRate;
+        }
+    }
+
+    public static class Stats {
+        /** How often the stats sampler reads the primary host. */
+        private long intervalMs = 10000;
+
+        /** Whether the sampled stats are exported as an MXBean. */
+        private boolean jmxEnabled = true;
+
+        /** Name key of the MXBean; a suffix is added if another context registered it already. */
+        private String jmxName = "enet";
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public void setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        public boolean isJmxEnabled() {
+            return jmxEnabled;
+        }
+
+        public void setJmxEnabled(boolean jmxEnabled) {
+            this.jmxEnabled = jmxEnabled;
+        }
+
+        public String getJmxName() {
+            return jmxName;
+        }
+
+        public void setJmxName(String jmxName) {
+            this.jmxName = jmxName;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public void setPhase(int phase) {
+        this.phase = phase;
+    }
+
+    public Map<String, Host> getHosts() {
+        return hosts;
+    }
+
+    public void setHosts(Map<String, Host> hosts) {
+        this.hosts = hosts;
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    /**
+     * Returns the configured hosts, or the single default host if none are configured.
+     */
+    Map<String, Host> effectiveHosts() {
+        if (!hosts.isEmpty()) {
+            return hosts;
+        }
+        Map<String, Host> defaults = new LinkedHashMap<>();
+        defaults.put(DEFAULT_HOST, new Host());
+        return defaults;
+    }
+}
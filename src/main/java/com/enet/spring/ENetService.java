@@ -2,53 +2,195 @@ package com.enet.spring;
 
 import com.enet.ENetConnection;
 import com.enet.ENetEvent;
-import com.enet.ENetEventType;
 import com.enet.ENetEventHandler;
-import org.springframework.stereotype.Service;
+import com.enet.ENetEventType;
+import com.enet.ENetNetworkConditions;
+import com.enet.ENetPeer;
+import com.enet.ENetServerGroup;
+import org.springframework.context.SmartLifecycle;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
-@Service
-public class ENetService {
-    private ENetConnection connection;
+/**
+ * Starts the hosts described by {@link ENetProperties} in its lifecycle phase and closes them on
+ * shutdown. Events of every host are passed to the handlers in {@link ENetEventHandlerRegistry}.
+ */
+public class ENetService implements SmartLifecycle {
     private final ENetEventHandlerRegistry handlerRegistry;
+    private final ENetProperties properties;
+    // Replaced as a whole on start and stop, so lookups from handlers never lock
+    private volatile Map<String, List<ENetConnection>> connections = Collections.emptyMap();
+    private volatile Map<String, ENetServerGroup> serverGroups = Collections.emptyMap();
+    private volatile boolean running;
 
     public ENetService(ENetEventHandlerRegistry handlerRegistry) {
+        this(handlerRegistry, new ENetProperties());
+    }
+
+    public ENetService(ENetEventHandlerRegistry handlerRegistry, ENetProperties properties) {
         this.handlerRegistry = handlerRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        Map<String, List<ENetConnection>> started = new LinkedHashMap<>();
+        Map<String, ENetServerGroup> groups = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, ENetProperties.Host> entry : properties.effectiveHosts().entrySet()) {
+                startHost(entry.getKey(), entry.getValue(), started, groups);
+            }
+        } catch (RuntimeException e) {
+            close(started);
+            throw e;
+        }
+        connections = Collections.unmodifiableMap(started);
+        serverGroups = Collections.unmodifiableMap(groups);
+        running = true;
     }
 
-    @PostConstruct
-    public void init() {
-        connection = ENetConnection.createHost("0.0.0.0", 7777, 32, 2);
-        connection.addEventHandler(this);
-        connection.startEventLoop();
+    private void startHost(String name, ENetProperties.Host host, Map<String, List<ENetConnection>> started,
+                           Map<String, ENetServerGroup> groups) {
+        int loopThreads = host.getLoopThreads();
+        if (loopThreads <= 0) {
+            throw new IllegalArgumentException("enet.hosts." + name + ".loop-threads must be positive");
+        }
+        List<ENetConnection> hostConnections = new ArrayList<>(loopThreads);
+        if (loopThreads == 1) {
+            ENetConnection connection = ENetConnection.createHost(host.getAddress(), host.getPort(),
+                    host.getMaxPeers(), host.getChannels(), host.getIncomingBandwidth(), host.getOutgoingBandwidth());
+            hostConnections.add(connection);
+            started.put(name, Collections.unmodifiableList(hostConnections));
+            if (host.getCommandQueueCapacity() > 0) {
+                connection.enableCommandQueue(host.getCommandQueueCapacity());
+            }
+        } else {
+            int peersPerShard = (host.getMaxPeers() + loopThreads - 1) / loopThreads;
+            ENetServerGroup group = ENetServerGroup.create(host.getAddress(), host.getPort(), loopThreads,
+                    peersPerShard, host.getChannels(), host.getIncomingBandwidth(), host.getOutgoingBandwidth());
+            groups.put(name, group);
+            group.forEachShard(hostConnections::add);
+            started.put(name, Collections.unmodifiableList(hostConnections));
+        }
+        String conditions = host.getNetworkConditions();
+        ENetNetworkConditions networkConditions = conditions != null && !conditions.isBlank()
+                ? ENetNetworkConditions.parse(conditions) : null;
+        for (ENetConnection connection : hostConnections) {
+            if (host.getBatchCapacityBytes() > 0) {
+                connection.enableBatchMode(host.getBatchCapacityBytes());
+            }
+            connection.setAutoReleasePackets(host.isAutoReleasePackets());
+            host.getChannelPriorities().forEach(connection::setChannelPriority);
+            if (networkConditions != null) {
+                connection.setNetworkConditions(networkConditions);
+            }
+            if (host.getTickRate() > 0) {
+                connection.enableTicks(host.getTickRate());
+            }
+            connection.addEventHandler(new RegistryForwarder(handlerRegistry));
+            connection.startEventLoop();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        Map<String, List<ENetConnection>> stopping = connections;
+        connections = Collections.emptyMap();
+        serverGroups = Collections.emptyMap();
+        running = false;
+        close(stopping);
     }
 
-    @PreDestroy
-    public void cleanup() {
-        if (connection != null) {
-            connection.close();
+    private static void close(Map<String, List<ENetConnection>> hosts) {
+        for (List<ENetConnection> hostConnections : hosts.values()) {
+            for (ENetConnection connection : hostConnections) {
+                connection.close();
+            }
         }
     }
 
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return properties.getPhase();
+    }
+
+    /**
+     * Returns the first connection of the first configured host, or {@code null} before start.
+     */
     public ENetConnection getConnection() {
-        return connection;
+        Iterator<List<ENetConnection>> hosts = connections.values().iterator();
+        return hosts.hasNext() ? hosts.next().get(0) : null;
     }
 
-    @ENetEventHandler(ENetEventType.CONNECT)
-    public void onConnect(ENetEvent event) {
-        handlerRegistry.handleConnect(event);
+    /**
+     * Returns the first connection of the named host; for hosts with several loop threads use
+     * {@link #getConnections(String)} or {@link #getServerGroup(String)}.
+     */
+    public ENetConnection getConnection(String hostName) {
+        List<ENetConnection> hostConnections = connections.get(hostName);
+        return hostConnections != null ? hostConnections.get(0) : null;
     }
 
-    @ENetEventHandler(ENetEventType.DISCONNECT)
-    public void onDisconnect(ENetEvent event) {
-        handlerRegistry.handleDisconnect(event);
+    public List<ENetConnection> getConnections(String hostName) {
+        return connections.getOrDefault(hostName, Collections.emptyList());
     }
 
-    @ENetEventHandler(ENetEventType.RECEIVE)
-    public void onReceive(ENetEvent event) {
-        handlerRegistry.handleReceive(event);
+    /**
+     * Returns the server group of a host with several loop threads, or {@code null}.
+     */
+    public ENetServerGroup getServerGroup(String hostName) {
+        return serverGroups.get(hostName);
     }
-}
 
+    /**
+     * Returns the connection that owns {@code peer}, for replying from handlers shared by
+     * several hosts, or {@code null} if the peer is not connected.
+     */
+    public ENetConnection connectionOf(ENetPeer peer) {
+        for (List<ENetConnection> hostConnections : connections.values()) {
+            for (ENetConnection connection : hostConnections) {
+                if (connection.getPeer(peer.getID()) == peer) {
+                    return connection;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Not a bean, so the registry never registers it as a handler of itself
+    private static final class RegistryForwarder {
+        private final ENetEventHandlerRegistry registry;
+
+        RegistryForwarder(ENetEventHandlerRegistry registry) {
+            this.registry = registry;
+        }
+
+        @ENetEventHandler(ENetEventType.CONNECT)
+        public void onConnect(ENetEvent event) {
+            registry.handleConnect(event);
+        }
+
+        @ENetEventHandler(ENetEventType.DISCONNECT)
+        public void onDisconnect(ENetEvent event) {
+            registry.handleDisconnect(event);
+        }
+
+        @ENetEventHandler(ENetEventType.RECEIVE)
+        public void onReceive(ENetEvent event) {
+            registry.handleReceive(event);
+        }
+    }
+}
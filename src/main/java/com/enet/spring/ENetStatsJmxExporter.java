@@ -0,0 +1,123 @@
+package com.enet.spring;
+
+import com.enet.ENetStats;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Publishes the latest {@link ENetStatsSampler} snapshot as an MXBean on the platform MBean
+ * server under {@code com.enet:type=ENetConnection,name=<name>}. If another exporter, e.g. of a
+ * second application context, holds that name, {@code <name>-2}, {@code <name>-3}, ... is used.
+ */
+public class ENetStatsJmxExporter implements ENetStatsMXBean, AutoCloseable {
+    private static final int MAX_NAME_ATTEMPTS = 100;
+
+    private final ENetStatsSampler sampler;
+    private final String name;
+    private volatile ObjectName objectName;
+
+    public ENetStatsJmxExporter(ENetStatsSampler sampler, String name) {
+        this.sampler = sampler;
+        this.name = name;
+        // Fails fast on a name that cannot form an ObjectName
+        objectName(name);
+    }
+
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName("com.enet:type=ENetConnection,name=" + ObjectName.quote(name));
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Invalid MBean name: " + name, e);
+        }
+    }
+
+    public synchronized void register() {
+        if (objectName != null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (int attempt = 1; attempt <= MAX_NAME_ATTEMPTS; attempt++) {
+            ObjectName candidate = objectName(attempt == 1 ? name : name + "-" + attempt);
+            try {
+                server.registerMBean(this, candidate);
+                objectName = candidate;
+                return;
+            } catch (InstanceAlreadyExistsException e) {
+                // Taken by another exporter; try the next suffix
+            } catch (JMException e) {
+                throw new IllegalStateException("Failed to register " + candidate, e);
+            }
+        }
+        throw new IllegalStateException("No free MBean name for " + name + " after " + MAX_NAME_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * Returns the name the MXBean was registered under, or {@code null} before {@link #register()}.
+     */
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    // Only ever unregisters the name this exporter registered
+    @Override
+    public synchronized void close() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            // Unregistered by someone else already
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getSentBytes() {
+        return sampler.getHostStat(ENetStats.SENT_BYTES);
+    }
+
+    @Override
+    public long getSentPackets() {
+        return sampler.getHostStat(ENetStats.SENT_PACKETS);
+    }
+
+    @Override
+    public long getReceivedBytes() {
+        return sampler.getHostStat(ENetStats.RECEIVED_BYTES);
+    }
+
+    @Override
+    public long getReceivedPackets() {
+        return sampler.getHostStat(ENetStats.RECEIVED_PACKETS);
+    }
+
+    @Override
+    public long getConnectedPeers() {
+        return sampler.getHostStat(ENetStats.CONNECTED_PEERS);
+    }
+
+    @Override
+    public double getMeanRoundTripTime() {
+        return sampler.getMeanRoundTripTime();
+    }
+
+    @Override
+    public long getMaxRoundTripTime() {
+        return sampler.getMaxRoundTripTime();
+    }
+
+    @Override
+    public double getMeanPacketLoss() {
+        return sampler.getMeanPacketLoss();
+    }
+
+    @Override
+    public long getOutgoingQueueTotal() {
+        return sampler.getOutgoingQueueTotal();
+    }
+}
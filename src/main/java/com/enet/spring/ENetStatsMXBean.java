@@ -0,0 +1,21 @@
+package com.enet.spring;
+
+public interface ENetStatsMXBean {
+    long getSentBytes();
+
+    long getSentPackets();
+
+    long getReceivedBytes();
+
+    long getReceivedPackets();
+
+    long getConnectedPeers();
+
+    double getMeanRoundTripTime();
+
+    long getMaxRoundTripTime();
+
+    double getMeanPacketLoss();
+
+    long getOutgoingQueueTotal();
+}
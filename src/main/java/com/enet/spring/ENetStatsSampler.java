@@ -0,0 +1,150 @@
+package com.enet.spring;
+
+import com.enet.ENetConnection;
+import com.enet.ENetStats;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reads host and peer statistics once per interval on its own thread and keeps the latest
+ * snapshot for metrics and JMX readers, so scrapes never touch the event loop.
+ */
+public class ENetStatsSampler implements AutoCloseable {
+    private final Supplier<ENetConnection> connection;
+    private final long intervalMillis;
+    private final List<Consumer<ENetStatsSampler>> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private volatile Snapshot snapshot = new Snapshot(new long[ENetStats.HOST_FIELDS], new long[0], 0);
+
+    private static final class Snapshot {
+        final long[] host;
+        final long[] peers;
+        final int peerCount;
+
+        Snapshot(long[] host, long[] peers, int peerCount) {
+            this.host = host;
+            this.peers = peers;
+            this.peerCount = peerCount;
+        }
+    }
+
+    public ENetStatsSampler(Supplier<ENetConnection> connection, long intervalMillis) {
+        this.connection = connection;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public synchronized void start() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ENet-StatsSampler");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.scheduleAtFixedRate(this::sample, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Called after every sample, on the sampler thread.
+     */
+    public void addListener(Consumer<ENetStatsSampler> listener) {
+        listeners.add(listener);
+    }
+
+    public void sample() {
+        ENetConnection current = connection.get();
+        if (current == null) {
+            return;
+        }
+        try {
+            long[] host = new long[ENetStats.HOST_FIELDS];
+            current.stats(host);
+            long[] peers = new long[(int) host[ENetStats.PEER_CAPACITY] * ENetStats.PEER_FIELDS];
+            int peerCount = current.peerStats(peers);
+            if (peerCount < 0) {
+                return;
+            }
+            snapshot = new Snapshot(host, peers, peerCount);
+        } catch (RuntimeException e) {
+            System.err.println("Error sampling ENet stats: " + e.getMessage());
+            return;
+        }
+        for (Consumer<ENetStatsSampler> listener : listeners) {
+            listener.accept(this);
+        }
+    }
+
+    public long getHostStat(int field) {
+        return snapshot.host[field];
+    }
+
+    public int getPeerCount() {
+        return snapshot.peerCount;
+    }
+
+    public long getPeerStat(int peer, int field) {
+        return snapshot.peers[peer * ENetStats.PEER_FIELDS + field];
+    }
+
+    public double getMeanRoundTripTime() {
+        return mean(ENetStats.PEER_ROUND_TRIP_TIME, 1);
+    }
+
+    public long getMaxRoundTripTime() {
+        Snapshot current = snapshot;
+        long max = 0;
+        for (int i = 0; i < current.peerCount; i++) {
+            max = Math.max(max, current.peers[i * ENetStats.PEER_FIELDS + ENetStats.PEER_ROUND_TRIP_TIME]);
+        }
+        return max;
+    }
+
+    /**
+     * Mean packet loss as a ratio between 0 and 1.
+     */
+    public double getMeanPacketLoss() {
+        return mean(ENetStats.PEER_PACKET_LOSS, ENetStats.PACKET_LOSS_SCALE);
+    }
+
+    /**
+     * Commands queued across all peers, or -1 if queues could not be counted.
+     */
+    public long getOutgoingQueueTotal() {
+        Snapshot current = snapshot;
+        long total = 0;
+        for (int i = 0; i < current.peerCount; i++) {
+            long queued = current.peers[i * ENetStats.PEER_FIELDS + ENetStats.PEER_OUTGOING_QUEUE];
+            if (queued < 0) {
+                return -1;
+            }
+            total += queued;
+        }
+        return total;
+    }
+
+    private double mean(int field, double scale) {
+        Snapshot current = snapshot;
+        if (current.peerCount == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < current.peerCount; i++) {
+            sum += current.peers[i * ENetStats.PEER_FIELDS + field];
+        }
+        return sum / current.peerCount / scale;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}